@@ -0,0 +1,195 @@
+package com.rabbit.mechanic.cache;
+
+import com.rabbit.mechanic.persistence.entity.CacheInvalidationEntity;
+import com.rabbit.mechanic.persistence.repository.CacheInvalidationRepository;
+import com.rabbit.mechanic.persistence.shard.ShardContext;
+import com.rabbit.mechanic.persistence.shard.Shards;
+import com.rabbit.mechanic.properties.InvalidationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidation bus of several instances sharing the home database, with no other infrastructure.
+ * Published invalidations are queued in memory and inserted in the cache_invalidations table by the next poll,
+ * which then reads the rows the other instances published since the previous poll, minus the lookback,
+ * skipping the ones it already delivered. The lookback covers rows committed late and clock skew between instances.
+ * Rows are deleted after the retention, an instance that couldn't poll for that long may have missed some
+ * and drops everything its listeners keep instead. The time from a change to its delivery here is published
+ * as the cache.invalidation.lag timer of each topic
+ */
+@Component
+@ConditionalOnProperty(prefix = "rabbit-mechanic.invalidation", name = "mode", havingValue = "database")
+public class DatabaseInvalidationBus implements InvalidationBus {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(DatabaseInvalidationBus.class);
+
+    private final String origin = UUID.randomUUID().toString();
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+    private final InvalidationProperties invalidationProperties;
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<CacheInvalidationEntity> pending;
+    private final Map<String, List<InvalidationListener>> listeners = new ConcurrentHashMap<>();
+    private final Map<Long, Long> delivered = new HashMap<>();
+    private final Counter droppedCounter;
+    private final Counter resyncCounter;
+    private long lastPoll;
+
+    public DatabaseInvalidationBus(CacheInvalidationRepository cacheInvalidationRepository,
+                                   InvalidationProperties invalidationProperties,
+                                   PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.invalidationProperties = invalidationProperties;
+        this.meterRegistry = meterRegistry;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.pending = new ArrayBlockingQueue<>(invalidationProperties.getQueueCapacity());
+        this.lastPoll = System.currentTimeMillis();
+
+        meterRegistry.gaugeCollectionSize("cache.invalidation.pending", Tags.empty(), pending);
+        this.droppedCounter = Counter.builder("cache.invalidation.dropped")
+                .description("Invalidations not published since too many were waiting for the next poll")
+                .register(meterRegistry);
+        this.resyncCounter = Counter.builder("cache.invalidation.resyncs")
+                .description("Times every listener was cleared after polling stopped for longer than the retention")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @see InvalidationBus#publish(String, long)
+     */
+    @Override
+    public void publish(String topic, long id) {
+        TransactionCallbacks.afterCommit(() -> {
+            CacheInvalidationEntity invalidation = CacheInvalidationEntity.builder()
+                    .topic(topic)
+                    .recordId(id)
+                    .origin(origin)
+                    .changedAt(new Date())
+                    .build();
+            if (!pending.offer(invalidation)) {
+                // The other instances keep their copy until it expires
+                LOGGER.warn("Too many pending invalidations, dropping the one of {} with id {}", topic, id);
+                droppedCounter.increment();
+            }
+        });
+    }
+
+    /**
+     * @see InvalidationBus#subscribe(String, InvalidationListener)
+     */
+    @Override
+    public void subscribe(String topic, InvalidationListener listener) {
+        listeners.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Insert the pending invalidations and deliver the ones published by the other instances since the previous poll
+     */
+    @Scheduled(fixedDelayString = "${rabbit-mechanic.invalidation.pollInterval}")
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        try {
+            flush(now);
+            List<CacheInvalidationEntity> invalidations = ShardContext.run(Shards.HOME, () -> transaction.execute(status ->
+                    cacheInvalidationRepository.findPublishedSince(origin, new Date(lastPoll - invalidationProperties.getLookback()))));
+
+            // Rows published while this instance wasn't polling may be gone already
+            if (now - lastPoll > invalidationProperties.getRetention() - invalidationProperties.getLookback()) {
+                LOGGER.warn("No poll of cache invalidations for {} ms, clearing every listener", now - lastPoll);
+                resyncCounter.increment();
+                listeners.values().forEach(topicListeners -> topicListeners.forEach(InvalidationListener::invalidateAll));
+            }
+
+            for (CacheInvalidationEntity invalidation : invalidations) {
+                if (delivered.putIfAbsent(invalidation.getInvalidationId(), invalidation.getPublishedAt().getTime()) == null) {
+                    deliver(invalidation, now);
+                }
+            }
+
+            // Rows published before the next lookback won't be read again
+            lastPoll = now;
+            delivered.values().removeIf(publishedAt -> publishedAt < lastPoll - invalidationProperties.getLookback());
+        } catch (RuntimeException e) {
+            // The next poll reads again from the last successful one
+            LOGGER.error("Failed to poll cache invalidations", e);
+        }
+    }
+
+    /**
+     * Remove invalidations every instance had the chance to read
+     */
+    @Scheduled(fixedDelayString = "${rabbit-mechanic.invalidation.retention}")
+    public void purgeDeliveredInvalidations() {
+        Date before = new Date(System.currentTimeMillis() - invalidationProperties.getRetention());
+        int deleted = ShardContext.run(Shards.HOME, () -> transaction.execute(status ->
+                cacheInvalidationRepository.deletePublishedBefore(before)));
+        LOGGER.debug("Purged {} cache invalidations", deleted);
+    }
+
+    /**
+     * Helper to insert the pending invalidations, queued again when the insert fails
+     * @param now
+     */
+    private void flush(long now) {
+        List<CacheInvalidationEntity> invalidations = new ArrayList<>();
+        pending.drainTo(invalidations);
+        if (invalidations.isEmpty()) {
+            return;
+        }
+
+        Date publishedAt = new Date(now);
+        invalidations.forEach(invalidation -> invalidation.setPublishedAt(publishedAt));
+        try {
+            ShardContext.run(Shards.HOME, () -> transaction.execute(status ->
+                    cacheInvalidationRepository.saveAll(invalidations)));
+        } catch (RuntimeException e) {
+            for (CacheInvalidationEntity invalidation : invalidations) {
+                invalidation.setInvalidationId(0);
+                if (!pending.offer(invalidation)) {
+                    droppedCounter.increment();
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Helper to deliver an invalidation to the listeners of its topic
+     * @param invalidation
+     * @param now
+     */
+    private void deliver(CacheInvalidationEntity invalidation, long now) {
+        LOGGER.debug("Invalidating {} with id {} changed by instance {}",
+                invalidation.getTopic(), invalidation.getRecordId(), invalidation.getOrigin());
+        for (InvalidationListener listener : listeners.getOrDefault(invalidation.getTopic(), Collections.emptyList())) {
+            try {
+                listener.invalidate(invalidation.getRecordId());
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to invalidate {} with id {}", invalidation.getTopic(), invalidation.getRecordId(), e);
+            }
+        }
+
+        Timer.builder("cache.invalidation.lag")
+                .description("Time from a change on another instance to the invalidation of its copies on this one")
+                .tag("topic", invalidation.getTopic())
+                .register(meterRegistry)
+                .record(Math.max(0, now - invalidation.getChangedAt().getTime()), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,84 @@
+package com.rabbit.mechanic.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.rabbit.mechanic.properties.DetailsCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded cache of the details of one kind of record keyed by id, in front of the get by id of its service.
+ * Concurrent misses of the same id wait for a single load. Entries older than refreshAfter are still served
+ * while one reload runs in the background, so a slow database delays the refresh instead of the requests,
+ * and a failed reload keeps the entry until it expires, expiresIn after its last load.
+ * Updates put the new details, deletes and the invalidations of other instances evict them.
+ * Hit, miss and load counters are exposed as the cache metrics of its name. Created through {@link DetailsCaches}
+ * @param <T> details of the record
+ */
+public class DetailsCache<T> implements InvalidationListener {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(DetailsCache.class);
+
+    private final String name;
+    private final LoadingCache<Long, T> details;
+
+    DetailsCache(String name, DetailsCacheProperties detailsCacheProperties, Executor executor,
+                 MeterRegistry meterRegistry, LongFunction<T> loader) {
+        this.name = name;
+        this.details = Caffeine.newBuilder()
+                .maximumSize(detailsCacheProperties.getMaximumSize())
+                .refreshAfterWrite(detailsCacheProperties.getRefreshAfter(), TimeUnit.MILLISECONDS)
+                .expireAfterWrite(detailsCacheProperties.getExpiresIn(), TimeUnit.MILLISECONDS)
+                .executor(executor)
+                .recordStats()
+                .build(loader::apply);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, details, name);
+    }
+
+    /**
+     * Get the details of a record, loading them when absent
+     * @param id
+     * @return the details, null when there is no such record
+     */
+    public T get(long id) {
+        return details.get(id);
+    }
+
+    /**
+     * Replace the details of a record after they were updated, once the current transaction commits when there is one
+     * @param id
+     * @param updated
+     */
+    public void put(long id, T updated) {
+        TransactionCallbacks.afterCommit(() -> details.put(id, updated));
+    }
+
+    /**
+     * Remove the details of a record after it was deleted, once the current transaction commits when there is one
+     * @param id
+     */
+    @Override
+    public void invalidate(long id) {
+        TransactionCallbacks.afterCommit(() -> {
+            LOGGER.debug("Evicting cached {} of id {}", name, id);
+            details.invalidate(id);
+        });
+    }
+
+    /**
+     * Remove the details of every record
+     */
+    @Override
+    public void invalidateAll() {
+        LOGGER.debug("Evicting every cached {}", name);
+        details.invalidateAll();
+    }
+}
@@ -0,0 +1,69 @@
+package com.rabbit.mechanic.cache;
+
+import com.rabbit.mechanic.persistence.datasource.PrimaryContext;
+import com.rabbit.mechanic.properties.DetailsCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Creates the {@link DetailsCache} of each service, all of them sharing the properties, the read only transaction
+ * their loads run in and the pool reloading stale entries in the background.
+ * Loads read from the primary, a replica lagging behind would cache the details an invalidation just dropped
+ */
+@Component
+public class DetailsCaches {
+
+    public static final String CARS = "car-details";
+    public static final String CUSTOMERS = "customer-details";
+    public static final String EMPLOYEES = "employee-details";
+    public static final String REPAIRS = "repair-details";
+
+    private final DetailsCacheProperties detailsCacheProperties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+
+    public DetailsCaches(DetailsCacheProperties detailsCacheProperties, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.detailsCacheProperties = detailsCacheProperties;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        // Reloads over the capacity are rejected and the entry stays stale until a later request retries
+        this.executor = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(detailsCacheProperties.getQueueCapacity()),
+                new CustomizableThreadFactory("details-cache-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Create the cache of one kind of record
+     * @param name name of the cache metrics, e.g. {@link #CARS}
+     * @param loader loads the details of an id, null when there is no such record
+     * @return {@link DetailsCache}
+     */
+    public <T> DetailsCache<T> create(String name, LongFunction<T> loader) {
+        return new DetailsCache<>(name, detailsCacheProperties, executor, meterRegistry,
+                id -> PrimaryContext.run(() -> readOnlyTransaction.execute(status -> loader.apply(id))));
+    }
+
+    /**
+     * Stop the refresh pool, called by spring when the context is closed
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
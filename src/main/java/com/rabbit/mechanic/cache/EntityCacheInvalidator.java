@@ -0,0 +1,43 @@
+package com.rabbit.mechanic.cache;
+
+import com.rabbit.mechanic.persistence.entity.CarEntity;
+import com.rabbit.mechanic.persistence.entity.CustomerEntity;
+import com.rabbit.mechanic.persistence.entity.EmployeeEntity;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Evicts from the Hibernate second level cache the employees, customers and cars changed by other instances.
+ * A changed car may have moved to another customer, so the cached cars of every customer are evicted with it
+ */
+@Component
+public class EntityCacheInvalidator {
+
+    private static final String CUSTOMER_CARS = CustomerEntity.class.getName() + ".cars";
+
+    public EntityCacheInvalidator(EntityManagerFactory entityManagerFactory, InvalidationBus invalidationBus) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+
+        invalidationBus.subscribe(InvalidationBus.EMPLOYEES, InvalidationListener.of(
+                id -> cache.evictEntityData(EmployeeEntity.class, id),
+                () -> cache.evictEntityData(EmployeeEntity.class)));
+        invalidationBus.subscribe(InvalidationBus.CUSTOMERS, InvalidationListener.of(
+                id -> {
+                    cache.evictEntityData(CustomerEntity.class, id);
+                    cache.evictCollectionData(CUSTOMER_CARS, id);
+                },
+                () -> cache.evictEntityData(CustomerEntity.class)));
+        invalidationBus.subscribe(InvalidationBus.CARS, InvalidationListener.of(
+                id -> {
+                    cache.evictEntityData(CarEntity.class, id);
+                    cache.evictCollectionData(CUSTOMER_CARS);
+                },
+                () -> {
+                    cache.evictEntityData(CarEntity.class);
+                    cache.evictCollectionData(CUSTOMER_CARS);
+                }));
+    }
+}
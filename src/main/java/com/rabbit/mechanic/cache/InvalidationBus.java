@@ -0,0 +1,31 @@
+package com.rabbit.mechanic.cache;
+
+/**
+ * Broadcasts the ids of changed records to the other instances of the application, so they drop their in memory
+ * copies. Each instance updates its own caches itself, so invalidations are only delivered to the other instances.
+ * {@link LocalInvalidationBus} is used by a single instance and {@link DatabaseInvalidationBus} by several ones,
+ * as set by rabbit-mechanic.invalidation.mode
+ */
+public interface InvalidationBus {
+
+    String CARS = "cars";
+    String CUSTOMERS = "customers";
+    String EMPLOYEES = "employees";
+    String EMPLOYEE_TOKENS = "employee-tokens";
+    String REPAIRS = "repairs";
+    String TOKENS = "tokens";
+
+    /**
+     * Tell the other instances a record changed, once the current transaction commits when there is one
+     * @param topic kind of record, e.g. {@link #CARS}
+     * @param id
+     */
+    void publish(String topic, long id);
+
+    /**
+     * Listen to the records of a topic changed by the other instances
+     * @param topic kind of record, e.g. {@link #CARS}
+     * @param listener
+     */
+    void subscribe(String topic, InvalidationListener listener);
+}
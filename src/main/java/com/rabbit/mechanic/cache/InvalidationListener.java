@@ -0,0 +1,40 @@
+package com.rabbit.mechanic.cache;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Receives from the {@link InvalidationBus} the records changed by other instances
+ */
+public interface InvalidationListener {
+
+    /**
+     * Drop what is kept about a record changed by another instance
+     * @param id
+     */
+    void invalidate(long id);
+
+    /**
+     * Drop what is kept about every record, when the invalidations of other instances may have been missed
+     */
+    void invalidateAll();
+
+    /**
+     * Create a listener from its two callbacks
+     * @param invalidate
+     * @param invalidateAll
+     * @return {@link InvalidationListener}
+     */
+    static InvalidationListener of(LongConsumer invalidate, Runnable invalidateAll) {
+        return new InvalidationListener() {
+            @Override
+            public void invalidate(long id) {
+                invalidate.accept(id);
+            }
+
+            @Override
+            public void invalidateAll() {
+                invalidateAll.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,200 @@
+package com.rabbit.mechanic.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rabbit.mechanic.properties.ListCountProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Cached totals of the list endpoints, keyed by list and filter (e.g. "repairs:active" or "cars?brand=BMW"),
+ * so listing a page doesn't run a count query on every request. The least recently used totals are dropped first.
+ * Only the first request of a list counts synchronously, afterwards the total is served from memory
+ * and recounted on a background thread when older than the refresh period or when the list is written to.
+ * Totals are therefore approximate for a moment after each write
+ */
+@Component
+public class ListCountCache {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(ListCountCache.class);
+
+    public static final String CARS = "cars";
+    public static final String CUSTOMERS = "customers";
+    public static final String EMPLOYEES = "employees";
+    public static final String REPAIRS = "repairs";
+    public static final String ACTIVE_REPAIRS = "repairs:active";
+
+    private final Map<String, CountEntry> counts;
+    private final long refreshAfter;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public ListCountCache(ListCountProperties listCountProperties, MeterRegistry meterRegistry, InvalidationBus invalidationBus) {
+        this.refreshAfter = listCountProperties.getRefreshAfter();
+        this.meterRegistry = meterRegistry;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(listCountProperties.getMaximumSize())
+                .<String, CountEntry>build()
+                .asMap();
+        this.executor = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(listCountProperties.getQueueCapacity()),
+                new CustomizableThreadFactory("list-count-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gaugeMapSize("list.count.entries", Tags.empty(), counts);
+
+        // Recount the lists written to by other instances
+        subscribe(invalidationBus, InvalidationBus.CARS, CARS);
+        subscribe(invalidationBus, InvalidationBus.CUSTOMERS, CUSTOMERS);
+        subscribe(invalidationBus, InvalidationBus.EMPLOYEES, EMPLOYEES);
+        subscribe(invalidationBus, InvalidationBus.REPAIRS, REPAIRS, ACTIVE_REPAIRS);
+    }
+
+    /**
+     * Get the total of a list, counting it when absent
+     * @param list list and filter key
+     * @param counter count query of the list
+     * @return the cached total
+     */
+    public long get(String list, LongSupplier counter) {
+        CountEntry entry = counts.computeIfAbsent(list, key -> new CountEntry(key, counter, count(key, counter)));
+        if (System.currentTimeMillis() - entry.loadedAt >= refreshAfter) {
+            refresh(entry);
+        }
+        return entry.count;
+    }
+
+    /**
+     * Recount lists written to, with all their filters, after the current transaction commits when there is one
+     * @param lists list keys
+     */
+    public void invalidate(String... lists) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(lists);
+                }
+            });
+            return;
+        }
+        refresh(lists);
+    }
+
+    /**
+     * Stop the refresh pool, called by spring when the context is closed
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Helper to recount lists on the writes of other instances
+     * @param invalidationBus
+     * @param topic
+     * @param lists list keys
+     */
+    private void subscribe(InvalidationBus invalidationBus, String topic, String... lists) {
+        invalidationBus.subscribe(topic, InvalidationListener.of(id -> refresh(lists), () -> refresh(lists)));
+    }
+
+    /**
+     * Helper to recount the lists already cached, with all their filters.
+     * They're also marked stale so the next request retries when the pool can't take the refresh
+     * @param lists list keys
+     */
+    private void refresh(String... lists) {
+        for (CountEntry entry : counts.values()) {
+            for (String list : lists) {
+                if (entry.list.equals(list) || entry.list.startsWith(list + "?")) {
+                    entry.dirty = true;
+                    entry.loadedAt = 0;
+                    refresh(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper to recount a list on the refresh pool, at most one refresh per list at a time.
+     * Writes arriving while it runs mark the entry dirty so it counts once more
+     * @param entry
+     */
+    private void refresh(CountEntry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    do {
+                        entry.dirty = false;
+                        entry.count = count(entry.list, entry.counter);
+                        entry.loadedAt = System.currentTimeMillis();
+                    } while (entry.dirty);
+
+                } catch (Exception e) {
+                    LOGGER.warn("Failed to refresh the total of list {}, keeping {}", entry.list, entry.count, e);
+
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("List count pool saturated, skipping refresh of list {}", entry.list);
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Helper to run and time a count query
+     * @param list list and filter key
+     * @param counter count query of the list
+     * @return the total
+     */
+    private long count(String list, LongSupplier counter) {
+        LOGGER.debug("Counting list {}", list);
+        Timer timer = Timer.builder("list.count.duration")
+                .tag("list", list)
+                .register(meterRegistry);
+        return timer.record(counter::getAsLong);
+    }
+
+    /**
+     * Cached total of a list
+     */
+    private static class CountEntry {
+
+        private final String list;
+        private final LongSupplier counter;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long count;
+        private volatile long loadedAt;
+        private volatile boolean dirty;
+
+        private CountEntry(String list, LongSupplier counter, long count) {
+            this.list = list;
+            this.counter = counter;
+            this.count = count;
+            this.loadedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.rabbit.mechanic.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidation bus of a single instance, where there are no other instances to tell
+ */
+@Component
+@ConditionalOnProperty(prefix = "rabbit-mechanic.invalidation", name = "mode", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationBus implements InvalidationBus {
+
+    /**
+     * @see InvalidationBus#publish(String, long)
+     */
+    @Override
+    public void publish(String topic, long id) {
+        // No other instance keeps a copy of the record
+    }
+
+    /**
+     * @see InvalidationBus#subscribe(String, InvalidationListener)
+     */
+    @Override
+    public void subscribe(String topic, InvalidationListener listener) {
+        // No other instance changes records
+    }
+}
@@ -0,0 +1,100 @@
+package com.rabbit.mechanic.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.RabbitMechanicException;
+import com.rabbit.mechanic.properties.PageCacheProperties;
+import com.rabbit.mechanic.properties.PaginationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.function.Supplier;
+
+/**
+ * Cached list pages, already serialized to JSON, so the same page polled again is answered without going to the
+ * database nor to Jackson. Pages are keyed by the version of their table in {@link TableVersions} plus the endpoint,
+ * page, size, filters and sort, normalized by {@link #pageKey(String, int, int, List, String)}, so a write makes the pages of its table unreachable and they age out of the cache,
+ * which is bounded by the bytes of the pages it keeps. Concurrent misses of the same page wait for a single load.
+ * Reads may go to the replica, so pages also expire expiresIn after being loaded.
+ * Hit, miss and eviction counters are exposed as the "list-pages" cache metrics
+ */
+@Component
+public class PageCache {
+
+    public static final String CACHE_NAME = "list-pages";
+
+    private final Cache<String, byte[]> pages;
+    private final TableVersions tableVersions;
+    private final ObjectMapper objectMapper;
+    private final PaginationProperties paginationProperties;
+
+    public PageCache(PageCacheProperties pageCacheProperties, TableVersions tableVersions, ObjectMapper objectMapper,
+                     PaginationProperties paginationProperties, MeterRegistry meterRegistry) {
+        this.tableVersions = tableVersions;
+        this.objectMapper = objectMapper;
+        this.paginationProperties = paginationProperties;
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(pageCacheProperties.getMaximumWeight())
+                .weigher((String key, byte[] page) -> key.length() + page.length)
+                .expireAfterWrite(pageCacheProperties.getExpiresIn(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, CACHE_NAME);
+    }
+
+    /**
+     * Get a list page as JSON, loading and serializing it when absent
+     * @param table table the page is read from, e.g. {@link TableVersions#CARS}
+     * @param key key of the page, built by {@link #pageKey(String, int, int, List, String)}
+     * @param loader loads the page on a miss
+     * @return the page serialized to JSON
+     */
+    public byte[] get(String table, String key, Supplier<?> loader) {
+        // Read the version before loading, so a page loaded while a write commits is kept under the previous version
+        return pages.get(table + "@" + tableVersions.current(table) + ":" + key, versionedKey -> serialize(loader.get()));
+    }
+
+    /**
+     * Build the key of a list page the way the services read it, so the same page requested differently shares
+     * a single entry: the size is limited to the max size and the filters are sorted without duplicates.
+     * Filters are URL encoded, so a filter holding a separator can't collide with two filters
+     * @param endpoint endpoint of the page, with any parameter other than the pagination ones, e.g. repairs/status?only-actives=true
+     * @param page page number
+     * @param size page size requested
+     * @param filters filters requested, may be null
+     * @param sort sort requested, may be null
+     * @return the key of the page
+     */
+    public String pageKey(String endpoint, int page, int size, List<String> filters, String sort) {
+        String filter = filters == null ? "" : new TreeSet<>(filters).stream()
+                .map(value -> URLEncoder.encode(value, StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&filter="));
+        String sortBy = sort == null ? "" : URLEncoder.encode(sort, StandardCharsets.UTF_8);
+        return String.format("%s%spage=%d&size=%d&filter=%s&sort=%s", endpoint, endpoint.contains("?") ? "&" : "?",
+                page, paginationProperties.limit(size), filter, sortBy);
+    }
+
+    /**
+     * Helper to serialize a page the way the controllers do
+     * @param page
+     * @return the page serialized to JSON
+     */
+    private byte[] serialize(Object page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+    }
+}
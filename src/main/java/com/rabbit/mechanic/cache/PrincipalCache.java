@@ -0,0 +1,67 @@
+package com.rabbit.mechanic.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.properties.PrincipalCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded, time based cache of authenticated principals keyed by employee id.
+ * Hit, miss and eviction counters are exposed as the "principals" cache metrics
+ */
+@Component
+public class PrincipalCache implements InvalidationListener {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(PrincipalCache.class);
+    public static final String CACHE_NAME = "principals";
+
+    private final Cache<Long, PrincipalDto> principals;
+
+    public PrincipalCache(PrincipalCacheProperties principalCacheProperties, MeterRegistry meterRegistry) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(principalCacheProperties.getMaximumSize())
+                .expireAfterWrite(principalCacheProperties.getExpiresIn(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, CACHE_NAME);
+    }
+
+    /**
+     * Get principal from cache, loading it when absent
+     * @param employeeId employee id of the principal
+     * @param loader function used to load the principal on a miss
+     * @return {@link PrincipalDto} the cached principal
+     */
+    public PrincipalDto get(long employeeId, Function<Long, PrincipalDto> loader) {
+        return principals.get(employeeId, loader);
+    }
+
+    /**
+     * Remove principal from cache
+     * @param employeeId employee id of the principal we want to evict
+     */
+    @Override
+    public void invalidate(long employeeId) {
+        LOGGER.debug("Evicting cached principal of employee with id {}", employeeId);
+        principals.invalidate(employeeId);
+    }
+
+    /**
+     * Remove every principal from cache
+     */
+    @Override
+    public void invalidateAll() {
+        LOGGER.debug("Evicting every cached principal");
+        principals.invalidateAll();
+    }
+}
@@ -0,0 +1,69 @@
+package com.rabbit.mechanic.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the tables whose list pages are cached by {@link PageCache}, bumped by every create, update and delete
+ * on the table, here or on another instance, so pages cached under a previous version are never served again
+ */
+@Component
+public class TableVersions {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(TableVersions.class);
+
+    public static final String CARS = "cars";
+    public static final String CUSTOMERS = "customers";
+    public static final String REPAIRS = "repairs";
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public TableVersions(InvalidationBus invalidationBus) {
+        subscribe(invalidationBus, InvalidationBus.CARS, CARS);
+        subscribe(invalidationBus, InvalidationBus.CUSTOMERS, CUSTOMERS);
+        subscribe(invalidationBus, InvalidationBus.REPAIRS, REPAIRS);
+    }
+
+    /**
+     * Get the current version of a table
+     * @param table e.g. {@link #CARS}
+     * @return the version, 0 until the table is written to
+     */
+    public long current(String table) {
+        AtomicLong version = versions.get(table);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Bump the version of a table after a write, once the current transaction commits when there is one
+     * @param table e.g. {@link #CARS}
+     */
+    public void bump(String table) {
+        TransactionCallbacks.afterCommit(() -> increment(table));
+    }
+
+    /**
+     * Helper to bump the version of a table on the writes of other instances
+     * @param invalidationBus
+     * @param topic
+     * @param table
+     */
+    private void subscribe(InvalidationBus invalidationBus, String topic, String table) {
+        invalidationBus.subscribe(topic, InvalidationListener.of(id -> increment(table), () -> increment(table)));
+    }
+
+    /**
+     * Helper to increment the version of a table
+     * @param table
+     */
+    private void increment(String table) {
+        long version = versions.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+        LOGGER.debug("Version of {} bumped to {}", table, version);
+    }
+}
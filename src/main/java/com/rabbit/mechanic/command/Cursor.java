@@ -0,0 +1,16 @@
+package com.rabbit.mechanic.command;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Position in a keyset paginated list, the sort key and id of the last row returned
+ * key is null for lists sorted by id only
+ */
+@Data
+@AllArgsConstructor
+public class Cursor {
+
+    private String key;
+    private long id;
+}
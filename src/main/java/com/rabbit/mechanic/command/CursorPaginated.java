@@ -0,0 +1,21 @@
+package com.rabbit.mechanic.command;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page of a keyset paginated list
+ * next is the opaque cursor of the following page, null on the last page
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPaginated<T> {
+
+    private List<T> results;
+    private int resultsCurrentPage;
+    private String next;
+}
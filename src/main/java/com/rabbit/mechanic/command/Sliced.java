@@ -0,0 +1,21 @@
+package com.rabbit.mechanic.command;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page of a list without totals, hasNext tells if there is a following page
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Sliced<T> {
+
+    private List<T> results;
+    private int currentPage;
+    private int resultsCurrentPage;
+    private boolean hasNext;
+}
@@ -12,4 +12,5 @@ public class LoggedInDto {
 
     private PrincipalDto principal;
     private String token;
+    private String refreshToken;
 }
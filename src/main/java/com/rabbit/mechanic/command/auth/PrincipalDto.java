@@ -1,5 +1,6 @@
 package com.rabbit.mechanic.command.auth;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.rabbit.mechanic.enumerators.EmployeeRoles;
 import lombok.Builder;
 import lombok.Data;
@@ -15,4 +16,7 @@ public class PrincipalDto {
     private String firstName;
     private String lastName;
     private EmployeeRoles employeeRole;
+
+    @JsonIgnore
+    private int roleMask;
 }
@@ -0,0 +1,33 @@
+package com.rabbit.mechanic.command.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * DTO to refresh the access token
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDto {
+
+    @NotBlank(message = "Refresh token must be provided")
+    private String refreshToken;
+
+    /**
+     * Override to String to avoid show the refresh token
+     * in the logs if printing the entire object
+     * @return
+     */
+    @Override
+    public String toString() {
+        return "RefreshTokenDto{" +
+                "refreshToken='***'" +
+                '}';
+    }
+}
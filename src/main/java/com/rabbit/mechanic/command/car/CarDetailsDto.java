@@ -1,6 +1,7 @@
 package com.rabbit.mechanic.command.car;
 
 import com.rabbit.mechanic.enumerators.CarBrands;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,6 +10,7 @@ import lombok.Data;
  */
 @Data
 @Builder
+@AllArgsConstructor
 public class CarDetailsDto {
 
     private long carId;
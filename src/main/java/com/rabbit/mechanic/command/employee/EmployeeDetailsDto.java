@@ -1,6 +1,7 @@
 package com.rabbit.mechanic.command.employee;
 
 import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,6 +10,7 @@ import lombok.Data;
  */
 @Data
 @Builder
+@AllArgsConstructor
 public class EmployeeDetailsDto {
 
     private long employeeId;
@@ -1,5 +1,6 @@
 package com.rabbit.mechanic.command.repair;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -11,6 +12,7 @@ import java.util.Date;
  */
 @Data
 @Builder
+@AllArgsConstructor
 public class RepairDetailsDto {
 
     private long repairId;
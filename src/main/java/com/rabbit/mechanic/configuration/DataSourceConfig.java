@@ -0,0 +1,138 @@
+package com.rabbit.mechanic.configuration;
+
+import com.rabbit.mechanic.persistence.datasource.ReadWriteRoutingDataSource;
+import com.rabbit.mechanic.persistence.datasource.ReadYourWritesTracker;
+import com.rabbit.mechanic.persistence.shard.ShardRoutingDataSource;
+import com.rabbit.mechanic.properties.ReplicaProperties;
+import com.rabbit.mechanic.properties.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data source configuration when a read replica or shards are configured
+ * Read only transactions of the home database go to the replica pool and the rest to the primary pool.
+ * With shards, each transaction goes to the database of the shard it runs on, the home one being shard 0.
+ * The pools aren't beans of their own, so they publish their hikaricp metrics themselves, tagged with the pool name
+ */
+@Configuration
+@Conditional(DataSourceConfig.RoutingCondition.class)
+public class DataSourceConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    /**
+     * Data source used by the application, routing each transaction to one of the pools
+     * @param dataSourceProperties spring.datasource properties, used by the primary pool
+     * @param replicaProperties rabbit-mechanic.replica properties, used by the replica pool
+     * @param shardingProperties rabbit-mechanic.sharding properties, used by the pools of the other shards
+     * @param meterRegistry
+     * @return {@link DataSource}
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ReplicaProperties replicaProperties,
+                                 ShardingProperties shardingProperties, MeterRegistry meterRegistry) {
+        int shardCount = 1 + shardingProperties.getUrls().size();
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        pool(primary, ReadWriteRoutingDataSource.PRIMARY, meterRegistry);
+
+        DataSource home = primary;
+        if (replicaProperties.getUrl() != null) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replicaProperties.getUrl())
+                    .username(replicaProperties.getUsername())
+                    .password(replicaProperties.getPassword())
+                    .build();
+            replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            pool(replica, ReadWriteRoutingDataSource.REPLICA, meterRegistry);
+
+            ReadYourWritesTracker readYourWritesTracker = new ReadYourWritesTracker(
+                    replicaProperties.getReadYourWritesWindow(), replicaProperties.getMaximumClients());
+            ReadWriteRoutingDataSource readWriteRoutingDataSource = new ReadWriteRoutingDataSource(
+                    primary, replica, readYourWritesTracker, meterRegistry);
+            readWriteRoutingDataSource.afterPropertiesSet();
+            home = readWriteRoutingDataSource;
+        }
+
+        DataSource routingDataSource = home;
+        if (shardCount > 1) {
+            List<DataSource> shards = new ArrayList<>();
+            shards.add(home);
+            for (int shard = 1; shard < shardCount; shard++) {
+                HikariDataSource pool = DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .url(shardingProperties.getUrls().get(shard - 1))
+                        .username(shardingProperties.getUsername())
+                        .password(shardingProperties.getPassword())
+                        .build();
+                pool.setMaximumPoolSize(shardingProperties.getMaximumPoolSize());
+                pool(pool, "shard-" + shard, meterRegistry);
+                shards.add(pool);
+            }
+
+            ShardRoutingDataSource shardRoutingDataSource = new ShardRoutingDataSource(shards);
+            shardRoutingDataSource.afterPropertiesSet();
+            routingDataSource = shardRoutingDataSource;
+        }
+
+        // Defer picking the pool until the first statement, once the transaction is flagged as read only
+        // and runs on its shard
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Close the pools on shutdown
+     */
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    /**
+     * Helper to name a pool and publish its metrics
+     * @param pool
+     * @param name
+     * @param meterRegistry
+     */
+    private void pool(HikariDataSource pool, String name, MeterRegistry meterRegistry) {
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        pools.add(pool);
+    }
+
+    /**
+     * Matches when a replica url or shard urls are set
+     */
+    static class RoutingCondition extends AnyNestedCondition {
+
+        RoutingCondition() {
+            super(ConfigurationPhase.PARSE_CONFIGURATION);
+        }
+
+        @ConditionalOnProperty(prefix = "rabbit-mechanic.replica", name = "url")
+        static class OnReplica {
+        }
+
+        @ConditionalOnProperty(prefix = "rabbit-mechanic.sharding", name = "urls")
+        static class OnShards {
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.rabbit.mechanic.configuration;
+
+import com.rabbit.mechanic.persistence.shard.ShardIdGenerator;
+import com.rabbit.mechanic.properties.ShardingProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JPA configuration
+ * Hands Hibernate the settings that come from the application properties
+ */
+@Configuration
+public class JpaConfig {
+
+    /**
+     * Number of shards the ids of {@link ShardIdGenerator} are spread over
+     * @param shardingProperties
+     * @return {@link HibernatePropertiesCustomizer}
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardCountCustomizer(ShardingProperties shardingProperties) {
+        return properties -> properties.put(ShardIdGenerator.SHARD_COUNT, 1 + shardingProperties.getUrls().size());
+    }
+}
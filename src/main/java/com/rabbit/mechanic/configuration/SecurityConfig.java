@@ -1,10 +1,9 @@
 package com.rabbit.mechanic.configuration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbit.mechanic.security.*;
-import org.springframework.context.annotation.Bean;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
@@ -16,15 +15,19 @@ import org.springframework.security.web.authentication.www.BasicAuthenticationFi
  */
 @Configuration
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true)
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final EmployeeAuthenticationEntryPoint employeeAuthenticationEntryPoint;
     private final EmployeeAuthenticationProvider employeeAuthenticationProvider;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
 
-    public SecurityConfig(EmployeeAuthenticationEntryPoint employeeAuthenticationEntryPoint, EmployeeAuthenticationProvider employeeAuthenticationProvider) {
+    public SecurityConfig(EmployeeAuthenticationEntryPoint employeeAuthenticationEntryPoint, EmployeeAuthenticationProvider employeeAuthenticationProvider,
+                          MeterRegistry meterRegistry, ObjectMapper objectMapper) {
         this.employeeAuthenticationEntryPoint = employeeAuthenticationEntryPoint;
         this.employeeAuthenticationProvider = employeeAuthenticationProvider;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -39,20 +42,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .and()
                 .exceptionHandling().authenticationEntryPoint(employeeAuthenticationEntryPoint)
                 .and()
-                .addFilterBefore(new JwtAuthFilter(employeeAuthenticationProvider), BasicAuthenticationFilter.class)
-                .addFilterBefore(new CookieAuthFilter(employeeAuthenticationProvider), JwtAuthFilter.class)
+                .addFilterBefore(new TokenAuthFilter(employeeAuthenticationProvider, meterRegistry, objectMapper), BasicAuthenticationFilter.class)
                 .csrf().disable()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
-                .authorizeRequests().antMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
-                .antMatchers("/api/swagger-ui.html", "/api/swagger-ui/*", "/v3/api-docs",
-                        "/v3/api-docs/*", "/api/health").permitAll()
+                .authorizeRequests().requestMatchers(TokenAuthFilter.PUBLIC_REQUESTS).permitAll()
                 .anyRequest().authenticated();
 
     }
-
-    @Bean
-    public AuthorizationValidatorService authorized() {
-        return new AuthorizationValidatorService();
-    }
 }
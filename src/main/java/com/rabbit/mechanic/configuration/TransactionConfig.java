@@ -0,0 +1,32 @@
+package com.rabbit.mechanic.configuration;
+
+import com.rabbit.mechanic.persistence.datasource.QueryTimeoutTransactionManager;
+import com.rabbit.mechanic.properties.QueryTimeoutProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Transaction configuration
+ * Replaces the auto configured transaction manager with one that bounds every statement with the read or write timeout
+ */
+@Configuration
+public class TransactionConfig {
+
+    /**
+     * Transaction manager of the application
+     * @param queryTimeoutProperties
+     * @param transactionManagerCustomizers spring.transaction properties, as for the auto configured one
+     * @return {@link PlatformTransactionManager}
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(QueryTimeoutProperties queryTimeoutProperties,
+                                                         ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        QueryTimeoutTransactionManager transactionManager = new QueryTimeoutTransactionManager(
+                queryTimeoutProperties.getRead(), queryTimeoutProperties.getWrite());
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+}
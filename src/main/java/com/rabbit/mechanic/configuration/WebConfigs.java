@@ -1,5 +1,13 @@
 package com.rabbit.mechanic.configuration;
 
+import com.rabbit.mechanic.properties.InvalidationProperties;
+import com.rabbit.mechanic.properties.PasswordHashingProperties;
+import com.rabbit.mechanic.security.BCryptPolicyPasswordEncoder;
+import com.rabbit.mechanic.security.BCryptStrengthCalibrator;
+import com.rabbit.mechanic.security.BoundedPasswordEncoder;
+import com.rabbit.mechanic.security.RoleAuthorizationInterceptor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
@@ -8,11 +16,12 @@ import io.swagger.v3.oas.models.security.SecurityScheme;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
 
@@ -20,7 +29,22 @@ import java.util.Arrays;
  * Class for beans and configurations
  */
 @Configuration
-public class WebConfigs {
+public class WebConfigs implements WebMvcConfigurer {
+
+    private final RoleAuthorizationInterceptor roleAuthorizationInterceptor;
+
+    public WebConfigs(RoleAuthorizationInterceptor roleAuthorizationInterceptor) {
+        this.roleAuthorizationInterceptor = roleAuthorizationInterceptor;
+    }
+
+    /**
+     * Register the role authorization of the handlers
+     * @param registry
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(roleAuthorizationInterceptor);
+    }
 
     /**
      * CORS configuration
@@ -41,11 +65,30 @@ public class WebConfigs {
     /**
      * PasswordEncoder configuration
      * Set the password encoder we want to use returned a generic {@link PasswordEncoder}
+     * BCrypt runs on a dedicated bounded pool instead of the request threads and, unless a strength
+     * is configured, its strength is calibrated at startup to hit the target verification time.
+     * Instances calibrated on their own would rehash each other's hashes, so several ones need the configured strength
+     * @param passwordHashingProperties
+     * @param invalidationProperties
+     * @param meterRegistry
      * @return {@link PasswordEncoder}
      */
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder getPasswordEncoder(PasswordHashingProperties passwordHashingProperties,
+                                              InvalidationProperties invalidationProperties, MeterRegistry meterRegistry) {
+        if (passwordHashingProperties.getStrength() == null && !"local".equals(invalidationProperties.getMode())) {
+            throw new IllegalStateException("rabbit-mechanic.password-hashing.strength must be set when several instances run");
+        }
+
+        int strength = passwordHashingProperties.getStrength() != null
+                ? passwordHashingProperties.getStrength()
+                : BCryptStrengthCalibrator.calibrate(
+                        passwordHashingProperties.getMinStrength(),
+                        passwordHashingProperties.getMaxStrength(),
+                        passwordHashingProperties.getTargetVerificationMillis());
+
+        Gauge.builder("password.hashing.strength", () -> strength).register(meterRegistry);
+        return new BoundedPasswordEncoder(new BCryptPolicyPasswordEncoder(strength), passwordHashingProperties, meterRegistry);
     }
 
     @Bean
@@ -3,15 +3,18 @@ package com.rabbit.mechanic.controller;
 import com.rabbit.mechanic.command.auth.CredentialsDto;
 import com.rabbit.mechanic.command.auth.LoggedInDto;
 import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.command.auth.RefreshTokenDto;
 import com.rabbit.mechanic.error.ErrorMessages;
 import com.rabbit.mechanic.exception.RabbitMechanicException;
+import com.rabbit.mechanic.security.LoginThrottle;
 import com.rabbit.mechanic.service.AuthService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.http.HttpHeaders;
-import static com.rabbit.mechanic.security.CookieAuthFilter.COOKIE_NAME;
+import static com.rabbit.mechanic.security.TokenAuthFilter.COOKIE_NAME;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,6 +22,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+
 /**
  * REST controller responsible for authentication operations
  */
@@ -29,31 +35,31 @@ public class AuthController {
     // Logger
     private static final Logger LOGGER = LogManager.getLogger(AuthController.class);
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, LoginThrottle loginThrottle) {
         this.authService = authService;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
      * Login employee with username and password
      * @param credentials
+     * @param request
      * @return {@link LoggedInDto} with employee info and jwt token
      */
     @PostMapping("/login")
-    public ResponseEntity<LoggedInDto> login(@RequestBody CredentialsDto credentials) {
+    public ResponseEntity<LoggedInDto> login(@RequestBody CredentialsDto credentials, HttpServletRequest request) {
 
         LOGGER.info("Request to login employee with username {}", credentials.getUsername());
         LoggedInDto loggedIn;
         try {
+            // Reject throttled attempts before the employee is loaded or the password verified
+            loginThrottle.acquire(credentials.getUsername(), loginThrottle.clientAddress(request));
+
             loggedIn = authService.loginEmployee(credentials);
 
-            ResponseCookie cookie = ResponseCookie
-                    .from(COOKIE_NAME, loggedIn.getToken())
-                    .httpOnly(true)
-                    .secure(false)
-                    .maxAge(24 * 60 * 60)
-                    .path("/")
-                    .build();
+            ResponseCookie cookie = buildAuthCookie(loggedIn.getToken());
 
             LOGGER.info("Employee logged in successfully. Retrieving jwt token and setting cookie");
 
@@ -73,7 +79,36 @@ public class AuthController {
     }
 
     /**
-     * Logout employee and delete cookie
+     * Refresh jwt token with a refresh token, which is rotated
+     * @param refreshTokenDto
+     * @return {@link LoggedInDto} with employee info, jwt token and the next refresh token
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoggedInDto> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+
+        LOGGER.info("Request to refresh jwt token");
+        LoggedInDto loggedIn;
+        try {
+            loggedIn = authService.refreshToken(refreshTokenDto);
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to refresh jwt token", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Jwt token refreshed successfully. Retrieving jwt token and setting cookie");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, buildAuthCookie(loggedIn.getToken()).toString())
+                .body(loggedIn);
+    }
+
+    /**
+     * Logout employee, revoke its token and delete cookie
      * @param principal
      * @return
      */
@@ -82,6 +117,8 @@ public class AuthController {
         LOGGER.info("Request to logout employee with id {}", principal.getEmployeeId());
 
         try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            authService.logoutEmployee((String) authentication.getCredentials());
             SecurityContextHolder.clearContext();
 
             ResponseCookie deleteCookie = ResponseCookie
@@ -104,4 +141,19 @@ public class AuthController {
             throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
         }
     }
+
+    /**
+     * Helper to build the cookie with the jwt token
+     * @param token
+     * @return {@link ResponseCookie}
+     */
+    private ResponseCookie buildAuthCookie(String token) {
+        return ResponseCookie
+                .from(COOKIE_NAME, token)
+                .httpOnly(true)
+                .secure(false)
+                .maxAge(24 * 60 * 60)
+                .path("/")
+                .build();
+    }
 }
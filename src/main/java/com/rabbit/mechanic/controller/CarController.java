@@ -1,35 +1,46 @@
 package com.rabbit.mechanic.controller;
 
+import com.rabbit.mechanic.cache.PageCache;
+import com.rabbit.mechanic.cache.TableVersions;
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.car.CarDetailsDto;
 import com.rabbit.mechanic.command.car.CreateOrUpdateCarDto;
 import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
 import com.rabbit.mechanic.exception.RabbitMechanicException;
+import com.rabbit.mechanic.security.AllowedRoles;
 import com.rabbit.mechanic.service.CarServiceImp;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 
 /**
  * Car Controller who provides endpoints
  */
 @RestController
 @RequestMapping("/api/cars")
-@PreAuthorize("@authorized.hasRole(\"RECEPTIONIST\") ||" +
-        "@authorized.hasRole(\"ADMIN\")")
+@AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.RECEPTIONIST})
 public class CarController {
 
     // Logger
     private static final Logger LOGGER = LogManager.getLogger(CarController.class);
     private final CarServiceImp carService;
+    private final PageCache pageCache;
 
-    public CarController(CarServiceImp carService) {
+    public CarController(CarServiceImp carService, PageCache pageCache) {
         this.carService = carService;
+        this.pageCache = pageCache;
     }
 
     /**
@@ -65,9 +76,7 @@ public class CarController {
      * @return {@link CarDetailsDto} the car wanted and Ok httpStatus
      */
     @GetMapping("/{carId}")
-    @PreAuthorize("@authorized.hasRole(\"RECEPTIONIST\") ||" +
-            "@authorized.hasRole(\"MECHANIC\") ||" +
-            "@authorized.hasRole(\"ADMIN\")")
+    @AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.MECHANIC, EmployeeRoles.RECEPTIONIST})
     public ResponseEntity<CarDetailsDto> getCarById(@PathVariable long carId) {
 
         LOGGER.info("Request to get car with id {}", carId);
@@ -91,19 +100,86 @@ public class CarController {
 
     /**
      * Get cars list
-     * @return {@link CarDetailsDto} list of all cars and Ok httpStatus
+     * @return {@link Paginated} list of all cars serialized to JSON and Ok httpStatus
      */
     @GetMapping
-    @PreAuthorize("@authorized.hasRole(\"RECEPTIONIST\") ||" +
-                "@authorized.hasRole(\"MECHANIC\") ||" +
-            "@authorized.hasRole(\"ADMIN\")")
-    public ResponseEntity<Paginated<CarDetailsDto>> getCarsList(@RequestParam(defaultValue = "0") int page,
-                                                                @RequestParam(defaultValue = "20") int size) {
+    @AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.MECHANIC, EmployeeRoles.RECEPTIONIST})
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = CarsPage.class)))
+    public ResponseEntity<byte[]> getCarsList(@RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              @RequestParam(name = "filter", required = false) List<String> filters,
+                                              @RequestParam(required = false) String sort) {
 
         LOGGER.info("Request to get cars list - page: {}, size: {}", page, size);
-        Paginated<CarDetailsDto> carsList;
+        byte[] carsList;
         try {
-            carsList = carService.getCarsList(page, size);
+            // Serve the page from cache while no cars were written since it was loaded
+            String key = pageCache.pageKey("cars", page, size, filters, sort);
+            carsList = pageCache.get(TableVersions.CARS, key,
+                    () -> carService.getCarsList(page, size, filters, sort));
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get cars list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving cars list");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(carsList);
+    }
+
+    /**
+     * Get cars list without totals, which skips counting them
+     * @param page page number
+     * @param size page size
+     * @return {@link Sliced} of {@link CarDetailsDto} telling if there is a next page and Ok httpStatus
+     */
+    @GetMapping(params = {"totals=false", "!cursor"})
+    @AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.MECHANIC, EmployeeRoles.RECEPTIONIST})
+    public ResponseEntity<Sliced<CarDetailsDto>> getCarsListWithoutTotals(@RequestParam(defaultValue = "0") int page,
+                                                                          @RequestParam(defaultValue = "20") int size,
+                                                                          @RequestParam(name = "filter", required = false) List<String> filters,
+                                                                          @RequestParam(required = false) String sort) {
+
+        LOGGER.info("Request to get cars list - page: {}, size: {}", page, size);
+        Sliced<CarDetailsDto> carsList;
+        try {
+            carsList = carService.getCarsListWithoutTotals(page, size, filters, sort);
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get cars list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving cars list");
+        return new ResponseEntity<>(carsList, HttpStatus.OK);
+    }
+
+    /**
+     * Get cars list with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @return {@link CursorPaginated} of {@link CarDetailsDto} with the cursor of the next page and Ok httpStatus
+     */
+    @GetMapping(params = "cursor")
+    @AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.MECHANIC, EmployeeRoles.RECEPTIONIST})
+    public ResponseEntity<CursorPaginated<CarDetailsDto>> getCarsListAfter(@RequestParam(defaultValue = "") String cursor,
+                                                                           @RequestParam(defaultValue = "20") int size) {
+
+        LOGGER.info("Request to get cars list - cursor: {}, size: {}", cursor, size);
+        CursorPaginated<CarDetailsDto> carsList;
+        try {
+            carsList = carService.getCarsListAfter(cursor, size);
 
         } catch (RabbitMechanicException e) {
             // Since RabbitMechanicException exceptions are thrown by us, we just throw them
@@ -173,4 +249,10 @@ public class CarController {
         LOGGER.info("Car with id {} deleted successfully", carId);
         return new ResponseEntity(HttpStatus.OK);
     }
+
+    /**
+     * Schema of the cars list pages, which are answered already serialized to JSON
+     */
+    public static class CarsPage extends Paginated<CarDetailsDto> {
+    }
 }
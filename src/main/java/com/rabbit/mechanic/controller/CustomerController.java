@@ -1,19 +1,29 @@
 package com.rabbit.mechanic.controller;
 
+import com.rabbit.mechanic.cache.PageCache;
+import com.rabbit.mechanic.cache.TableVersions;
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.customer.CreateOrUpdateCustomerDto;
 import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
 import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
 import com.rabbit.mechanic.exception.RabbitMechanicException;
+import com.rabbit.mechanic.security.AllowedRoles;
 import com.rabbit.mechanic.service.CustomerServiceImp;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 
 import static org.springframework.http.HttpStatus.OK;
 
@@ -22,16 +32,17 @@ import static org.springframework.http.HttpStatus.OK;
  */
 @RestController
 @RequestMapping("/api/customers")
-@PreAuthorize("@authorized.hasRole(\"RECEPTIONIST\") ||" +
-        "@authorized.hasRole(\"ADMIN\")")
+@AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.RECEPTIONIST})
 public class CustomerController {
 
     // Logger
     private static final Logger LOGGER = LogManager.getLogger(CustomerController.class);
     private final CustomerServiceImp customerService;
+    private final PageCache pageCache;
 
-    public CustomerController(CustomerServiceImp customerService) {
+    public CustomerController(CustomerServiceImp customerService, PageCache pageCache) {
         this.customerService = customerService;
+        this.pageCache = pageCache;
     }
 
     /**
@@ -90,16 +101,83 @@ public class CustomerController {
 
     /**
      * Get customers list
-     * @return {@link CustomerDetailsDto} list of all customers and Ok httpStatus
+     * @return {@link Paginated} list of all customers serialized to JSON and Ok httpStatus
      */
     @GetMapping
-    public ResponseEntity<Paginated<CustomerDetailsDto>> getCustomerList(@RequestParam(defaultValue = "0") int page,
-                                                                         @RequestParam(defaultValue = "20") int size) {
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = CustomersPage.class)))
+    public ResponseEntity<byte[]> getCustomerList(@RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "20") int size,
+                                                  @RequestParam(name = "filter", required = false) List<String> filters,
+                                                  @RequestParam(required = false) String sort) {
 
         LOGGER.info("Request to get customers list - page: {}, size: {}", page, size);
-        Paginated<CustomerDetailsDto> customersList;
+        byte[] customersList;
         try {
-            customersList = customerService.getCustomerList(page, size);
+            // Serve the page from cache while no customers were written since it was loaded
+            String key = pageCache.pageKey("customers", page, size, filters, sort);
+            customersList = pageCache.get(TableVersions.CUSTOMERS, key,
+                    () -> customerService.getCustomerList(page, size, filters, sort));
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get customers list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving customers list");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(customersList);
+    }
+
+    /**
+     * Get customers list without totals, which skips counting them
+     * @param page page number
+     * @param size page size
+     * @return {@link Sliced} of {@link CustomerDetailsDto} telling if there is a next page and Ok httpStatus
+     */
+    @GetMapping(params = {"totals=false", "!cursor"})
+    public ResponseEntity<Sliced<CustomerDetailsDto>> getCustomerListWithoutTotals(@RequestParam(defaultValue = "0") int page,
+                                                                                   @RequestParam(defaultValue = "20") int size,
+                                                                                   @RequestParam(name = "filter", required = false) List<String> filters,
+                                                                                   @RequestParam(required = false) String sort) {
+
+        LOGGER.info("Request to get customers list - page: {}, size: {}", page, size);
+        Sliced<CustomerDetailsDto> customersList;
+        try {
+            customersList = customerService.getCustomerListWithoutTotals(page, size, filters, sort);
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get customers list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving customers list");
+        return new ResponseEntity<>(customersList, OK);
+    }
+
+    /**
+     * Get customers list with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @return {@link CursorPaginated} of {@link CustomerDetailsDto} with the cursor of the next page and Ok httpStatus
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPaginated<CustomerDetailsDto>> getCustomerListAfter(@RequestParam(defaultValue = "") String cursor,
+                                                                                    @RequestParam(defaultValue = "20") int size) {
+
+        LOGGER.info("Request to get customers list - cursor: {}, size: {}", cursor, size);
+        CursorPaginated<CustomerDetailsDto> customersList;
+        try {
+            customersList = customerService.getCustomerListAfter(cursor, size);
 
         } catch (RabbitMechanicException e) {
             // Since RabbitMechanicException exceptions are thrown by us, we just throw them
@@ -168,4 +246,10 @@ public class CustomerController {
         LOGGER.info("Customer with id {} deleted successfully", customerId);
         return new ResponseEntity(OK);
     }
+
+    /**
+     * Schema of the customers list pages, which are answered already serialized to JSON
+     */
+    public static class CustomersPage extends Paginated<CustomerDetailsDto> {
+    }
 }
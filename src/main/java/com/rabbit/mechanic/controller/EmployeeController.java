@@ -1,17 +1,20 @@
 package com.rabbit.mechanic.controller;
 
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.employee.CreateEmployeeDto;
 import com.rabbit.mechanic.command.employee.EmployeeDetailsDto;
 import com.rabbit.mechanic.command.employee.UpdateEmployeeDto;
 import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
 import com.rabbit.mechanic.exception.RabbitMechanicException;
+import com.rabbit.mechanic.security.AllowedRoles;
 import com.rabbit.mechanic.service.EmployeeServiceImp;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -23,7 +26,7 @@ import static org.springframework.http.HttpStatus.OK;
  */
 @RestController
 @RequestMapping("/api/employees")
-@PreAuthorize("@authorized.hasRole(\"ADMIN\")")
+@AllowedRoles(EmployeeRoles.ADMIN)
 public class EmployeeController {
 
     // Logger
@@ -67,8 +70,7 @@ public class EmployeeController {
      * @return {@link EmployeeDetailsDto} the employee wanted and Ok httpStatus
      */
     @GetMapping("/{employeeId}")
-    @PreAuthorize("@authorized.hasRole(\"ADMIN\") || " +
-                "@authorized.isEmployee(#employeeId)")
+    @AllowedRoles(value = EmployeeRoles.ADMIN, orSelf = "employeeId")
     public ResponseEntity<EmployeeDetailsDto> getEmployeeById(@PathVariable long employeeId) {
 
         LOGGER.info("Request to get employee with id {}", employeeId);
@@ -117,6 +119,64 @@ public class EmployeeController {
         return new ResponseEntity<>(employeeList, OK);
     }
 
+    /**
+     * Get employees list without totals, which skips counting them
+     * @param page page number
+     * @param size page size
+     * @return {@link Sliced} of {@link EmployeeDetailsDto} telling if there is a next page and Ok httpStatus
+     */
+    @GetMapping(params = {"totals=false", "!cursor"})
+    public ResponseEntity<Sliced<EmployeeDetailsDto>> getAllEmployeesWithoutTotals(@RequestParam(defaultValue = "0") int page,
+                                                                                   @RequestParam(defaultValue = "20") int size) {
+
+        LOGGER.info("Request to get all employees");
+        Sliced<EmployeeDetailsDto> employeeList;
+        try {
+            employeeList = employeeServiceImp.getEmployeesListWithoutTotals(page, size);
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get employees list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving employees list");
+        return new ResponseEntity<>(employeeList, OK);
+    }
+
+    /**
+     * Get employees list with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @return {@link CursorPaginated} of {@link EmployeeDetailsDto} with the cursor of the next page and Ok httpStatus
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPaginated<EmployeeDetailsDto>> getAllEmployeesAfter(@RequestParam(defaultValue = "") String cursor,
+                                                                                    @RequestParam(defaultValue = "20") int size) {
+
+        LOGGER.info("Request to get employees list - cursor: {}, size: {}", cursor, size);
+        CursorPaginated<EmployeeDetailsDto> employeesList;
+        try {
+            employeesList = employeeServiceImp.getEmployeesListAfter(cursor, size);
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get employees list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving employees list");
+        return new ResponseEntity<>(employeesList, OK);
+    }
+
     /**
      * Update Employee
      * @param employeeId employee id we want to update
@@ -124,7 +184,7 @@ public class EmployeeController {
      * @return {@link EmployeeDetailsDto} employee updated and Ok httpStatus
      */
     @PutMapping("/{employeeId}")
-    @PreAuthorize("@authorized.hasRole(\"ADMIN\")")
+    @AllowedRoles(EmployeeRoles.ADMIN)
     public ResponseEntity<EmployeeDetailsDto> updateEmployee(@PathVariable long employeeId,
                                                  @Valid @RequestBody UpdateEmployeeDto updateEmployeeDto) {
 
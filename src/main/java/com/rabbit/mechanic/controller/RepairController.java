@@ -1,19 +1,29 @@
 package com.rabbit.mechanic.controller;
 
+import com.rabbit.mechanic.cache.PageCache;
+import com.rabbit.mechanic.cache.TableVersions;
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.repair.CreateOrUpdateRepairDto;
 import com.rabbit.mechanic.command.repair.RepairDetailsDto;
 import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
 import com.rabbit.mechanic.exception.RabbitMechanicException;
+import com.rabbit.mechanic.security.AllowedRoles;
 import com.rabbit.mechanic.service.RepairServiceImp;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 
 import static org.springframework.http.HttpStatus.OK;
 
@@ -22,16 +32,17 @@ import static org.springframework.http.HttpStatus.OK;
  */
 @RestController
 @RequestMapping("/api/repairs")
-@PreAuthorize("@authorized.hasRole(\"MECHANIC\") ||" +
-        "@authorized.hasRole(\"ADMIN\")")
+@AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.MECHANIC})
 public class RepairController {
 
     // Logger
     private static final Logger LOGGER = LogManager.getLogger(RepairController.class);
     private final RepairServiceImp repairServiceImp;
+    private final PageCache pageCache;
 
-    public RepairController(RepairServiceImp repairServiceImp) {
+    public RepairController(RepairServiceImp repairServiceImp, PageCache pageCache) {
         this.repairServiceImp = repairServiceImp;
+        this.pageCache = pageCache;
     }
 
     /**
@@ -67,9 +78,7 @@ public class RepairController {
      * @return {@link RepairDetailsDto} the repair wanted and Ok httpStatus
      */
     @GetMapping("/{repairId}")
-    @PreAuthorize("@authorized.hasRole(\"MECHANIC\") ||" +
-                "@authorized.hasRole(\"RECEPTIONIST\") ||" +
-                "@authorized.hasRole(\"ADMIN\")")
+    @AllowedRoles({EmployeeRoles.ADMIN, EmployeeRoles.MECHANIC, EmployeeRoles.RECEPTIONIST})
     public ResponseEntity<RepairDetailsDto> getRepairById(@PathVariable long repairId) {
 
         LOGGER.info("Request to get repair with id {}", repairId);
@@ -93,17 +102,57 @@ public class RepairController {
 
     /**
      * Get Repairs List By Status
-     * @return {@link RepairDetailsDto} list of all repairs and Ok httpStatus
+     * @return {@link Paginated} list of all repairs serialized to JSON and Ok httpStatus
      */
     @GetMapping("/status")
-    public ResponseEntity<Paginated<RepairDetailsDto>> getRepairsListByStatus(@RequestParam(defaultValue = "0") int page,
-                                                                              @RequestParam(defaultValue = "20") int size,
-                                                                              @RequestParam(name = "only-actives", defaultValue = "true") boolean onlyActives) {
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = RepairsPage.class)))
+    public ResponseEntity<byte[]> getRepairsListByStatus(@RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         @RequestParam(name = "only-actives", defaultValue = "true") boolean onlyActives,
+                                                         @RequestParam(name = "filter", required = false) List<String> filters,
+                                                         @RequestParam(required = false) String sort) {
 
         LOGGER.info("Request to get repairs list - page: {}, size: {}", page, size);
-        Paginated<RepairDetailsDto> repairsList;
+        byte[] repairsList;
         try {
-            repairsList = repairServiceImp.getRepairsListByStatus(page, size, onlyActives);
+            // Serve the page from cache while no repairs were written since it was loaded
+            String key = pageCache.pageKey("repairs/status?only-actives=" + onlyActives, page, size, filters, sort);
+            repairsList = pageCache.get(TableVersions.REPAIRS, key,
+                    () -> repairServiceImp.getRepairsListByStatus(page, size, onlyActives, filters, sort));
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get repairs list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving repairs list");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(repairsList);
+    }
+
+    /**
+     * Get repairs by status list without totals, which skips counting them
+     * @param page page number
+     * @param size page size
+     * @param onlyActives
+     * @return {@link Sliced} of {@link RepairDetailsDto} telling if there is a next page and Ok httpStatus
+     */
+    @GetMapping(value = "/status", params = {"totals=false", "!cursor"})
+    public ResponseEntity<Sliced<RepairDetailsDto>> getRepairsListByStatusWithoutTotals(@RequestParam(defaultValue = "0") int page,
+                                                                                        @RequestParam(defaultValue = "20") int size,
+                                                                                        @RequestParam(name = "only-actives", defaultValue = "true") boolean onlyActives,
+                                                                                        @RequestParam(name = "filter", required = false) List<String> filters,
+                                                                                        @RequestParam(required = false) String sort) {
+
+        LOGGER.info("Request to get repairs list - page: {}, size: {}", page, size);
+        Sliced<RepairDetailsDto> repairsList;
+        try {
+            repairsList = repairServiceImp.getRepairsListByStatusWithoutTotals(page, size, onlyActives, filters, sort);
 
         } catch (RabbitMechanicException e) {
             // Since RabbitMechanicException exceptions are thrown by us, we just throw them
@@ -119,6 +168,37 @@ public class RepairController {
         return new ResponseEntity<>(repairsList, HttpStatus.OK);
     }
 
+    /**
+     * Get repairs list with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @param onlyActives
+     * @return {@link CursorPaginated} of {@link RepairDetailsDto} with the cursor of the next page and Ok httpStatus
+     */
+    @GetMapping(value = "/status", params = "cursor")
+    public ResponseEntity<CursorPaginated<RepairDetailsDto>> getRepairsListByStatusAfter(@RequestParam(defaultValue = "") String cursor,
+                                                                                         @RequestParam(defaultValue = "20") int size,
+                                                                                         @RequestParam(name = "only-actives", defaultValue = "true") boolean onlyActives) {
+
+        LOGGER.info("Request to get repairs list - cursor: {}, size: {}", cursor, size);
+        CursorPaginated<RepairDetailsDto> repairsList;
+        try {
+            repairsList = repairServiceImp.getRepairsListByStatusAfter(cursor, size, onlyActives);
+
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
+        } catch (Exception e) {
+            // With all others exceptions we log them and throw a generic exception
+            LOGGER.error("Failed to get repairs list", e);
+            throw new RabbitMechanicException(ErrorMessages.OPERATION_FAILED, e);
+        }
+
+        LOGGER.info("Retrieving repairs list");
+        return new ResponseEntity<>(repairsList, OK);
+    }
+
     /**
      * Update repair
      * @param repairId repair id we want to update
@@ -173,4 +253,10 @@ public class RepairController {
         LOGGER.info("Repair with id {} deleted successfully", repairId);
         return new ResponseEntity(HttpStatus.OK);
     }
+
+    /**
+     * Schema of the repairs list pages, which are answered already serialized to JSON
+     */
+    public static class RepairsPage extends Paginated<RepairDetailsDto> {
+    }
 }
@@ -0,0 +1,91 @@
+package com.rabbit.mechanic.converter;
+
+import com.rabbit.mechanic.command.Cursor;
+import com.rabbit.mechanic.command.CursorPaginated;
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cursor Converter
+ * Cursors are sent to clients as url safe base64 of the sort key and id, to be treated as opaque
+ */
+public class CursorConverter {
+
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * From {@link Cursor} to the opaque token sent to clients
+     * @param cursor {@link Cursor}
+     * @return the token
+     */
+    public static String fromCursorToToken(Cursor cursor) {
+        String value = (cursor.getKey() == null ? "" : cursor.getKey()) + SEPARATOR + cursor.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * From the opaque token sent by clients to {@link Cursor}
+     * @param token the token, empty for the first page
+     * @return {@link Cursor} or null for the first page
+     * @throws InvalidCursorException when the token wasn't built by us
+     */
+    public static Cursor fromTokenToCursor(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new Cursor(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(ErrorMessages.INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * From a date sort key to the key of a {@link Cursor}
+     * @param date
+     * @return the key
+     */
+    public static String fromDateToKey(Date date) {
+        return String.valueOf(date.getTime());
+    }
+
+    /**
+     * From the key of a {@link Cursor} to a date sort key
+     * @param cursor {@link Cursor}
+     * @return the date
+     * @throws InvalidCursorException when the key isn't a date
+     */
+    public static Date fromKeyToDate(Cursor cursor) {
+        try {
+            return new Date(Long.parseLong(cursor.getKey()));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(ErrorMessages.INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * From the rows of a keyset query to {@link CursorPaginated}
+     * @param rows rows fetched, one more than the page size when there is a next page
+     * @param size page size
+     * @param cursorOf function to get the {@link Cursor} of a row
+     * @return {@link CursorPaginated}
+     */
+    public static <T> CursorPaginated<T> fromRowsToCursorPaginated(List<T> rows, int size, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPaginated<>(rows, rows.size(), null);
+        }
+
+        List<T> results = rows.subList(0, size);
+        return new CursorPaginated<>(results, size, fromCursorToToken(cursorOf.apply(results.get(size - 1))));
+    }
+}
@@ -4,6 +4,7 @@ import com.rabbit.mechanic.command.auth.PrincipalDto;
 import com.rabbit.mechanic.command.employee.CreateEmployeeDto;
 import com.rabbit.mechanic.command.employee.EmployeeDetailsDto;
 import com.rabbit.mechanic.persistence.entity.EmployeeEntity;
+import com.rabbit.mechanic.security.TokenClaims;
 
 /**
  * Employee converter
@@ -51,6 +52,22 @@ public class EmployeeConverter {
                 .firstName(employeeEntity.getFirstName())
                 .lastName(employeeEntity.getLastName())
                 .employeeRole(employeeEntity.getRole())
+                .roleMask(employeeEntity.getRole().getMask())
+                .build();
+    }
+
+    /**
+     * Convert from {@link TokenClaims} to {@link PrincipalDto}
+     * @param tokenClaims
+     * @return {@link PrincipalDto}
+     */
+    public static PrincipalDto fromTokenClaimsToPrincipalDto(TokenClaims tokenClaims) {
+        return PrincipalDto.builder()
+                .employeeId(tokenClaims.getEmployeeId())
+                .firstName(tokenClaims.getFirstName())
+                .lastName(tokenClaims.getLastName())
+                .employeeRole(tokenClaims.getRole())
+                .roleMask(tokenClaims.getRole().getMask())
                 .build();
     }
 }
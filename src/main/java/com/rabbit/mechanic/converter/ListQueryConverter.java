@@ -0,0 +1,189 @@
+package com.rabbit.mechanic.converter;
+
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.InvalidListQueryException;
+import com.rabbit.mechanic.persistence.query.*;
+import org.springframework.beans.BeanWrapperImpl;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * List Query Converter
+ * Parses the filter (e.g. brand=BMW, startDate>=2021-01-01) and sort (e.g. -startDate) parameters of the list endpoints
+ * and only accepts them when one of the indexes of the list can serve them:
+ * the equality filters must cover the first columns of the index, and the range filter and the sort, when present,
+ * must be on the column right after them. Rows are then ordered by the rest of the index, ending with the id
+ */
+public class ListQueryConverter {
+
+    private static final Pattern FILTER_PATTERN = Pattern.compile("(\\w+)(>=|<=|!=|=|>|<)(.*)");
+
+    /**
+     * From the filter and sort parameters to {@link ListQuery}
+     * @param definition {@link ListDefinition} of the list
+     * @param filters filter parameters, may be null
+     * @param sort sort parameter, field name prefixed with - for descending order, may be null
+     * @return {@link ListQuery}
+     * @throws InvalidListQueryException when a parameter is invalid or no index can serve them
+     */
+    public static ListQuery fromParametersToListQuery(ListDefinition<?, ?> definition, List<String> filters, String sort) {
+
+        // Parse filters, keeping them in a stable order for the key
+        List<ListFilter> listFilters = new ArrayList<>();
+        SortedSet<String> keyParts = new TreeSet<>();
+        for (String filter : filters == null ? Collections.<String>emptyList() : filters) {
+            listFilters.add(fromParameterToListFilter(definition, filter));
+            keyParts.add(filter);
+        }
+
+        // Parse sort
+        String sortField = null;
+        boolean descending = false;
+        if (sort != null && !sort.isEmpty()) {
+            descending = sort.startsWith("-");
+            sortField = descending ? sort.substring(1) : sort;
+            if (definition.getField(sortField) == null) {
+                throw new InvalidListQueryException(String.format(ErrorMessages.INVALID_LIST_SORT, sort));
+            }
+        }
+
+        String key = keyParts.isEmpty() ? definition.getName() : definition.getName() + "?" + String.join("&", keyParts);
+        List<ListOrder> orders = fromIndexToListOrders(definition, listFilters, sortField, descending);
+        return new ListQuery(listFilters, orders, key, !listFilters.isEmpty() || sortField != null);
+    }
+
+    /**
+     * From {@link ListQuery} to the comparator of its rows, ordering them in memory as the database does,
+     * e.g. to merge the rows of several shards. Nulls go first in ascending order and text ignores case, as in MySQL
+     * @param listQuery {@link ListQuery}
+     * @return comparator of the dto rows
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Comparator<T> fromListQueryToComparator(ListQuery listQuery) {
+        Comparator<T> comparator = (first, second) -> 0;
+        for (ListOrder order : listQuery.getOrders()) {
+            Comparator<Comparable> values = Comparator.nullsFirst((first, second) -> first instanceof String
+                    ? String.CASE_INSENSITIVE_ORDER.compare((String) first, (String) second)
+                    : first.compareTo(second));
+            Comparator<T> byOrder = Comparator.comparing(
+                    row -> (Comparable) new BeanWrapperImpl(row).getPropertyValue(order.getProperty()),
+                    order.isDescending() ? values.reversed() : values);
+            comparator = comparator.thenComparing(byOrder);
+        }
+        return comparator;
+    }
+
+    /**
+     * Helper to parse a filter parameter
+     * @param definition {@link ListDefinition} of the list
+     * @param filter filter parameter
+     * @return {@link ListFilter}
+     */
+    private static ListFilter fromParameterToListFilter(ListDefinition<?, ?> definition, String filter) {
+        Matcher matcher = FILTER_PATTERN.matcher(filter);
+        if (!matcher.matches()) {
+            throw new InvalidListQueryException(String.format(ErrorMessages.INVALID_LIST_FILTER, filter));
+        }
+
+        ListField field = definition.getField(matcher.group(1));
+        ListOperator operator = ListOperator.fromSymbol(matcher.group(2));
+        if (field == null || operator == null || (operator.isRange() && !field.isRange()) || matcher.group(3).isEmpty()) {
+            throw new InvalidListQueryException(String.format(ErrorMessages.INVALID_LIST_FILTER, filter));
+        }
+
+        try {
+            return new ListFilter(field, operator, fromParameterToValue(field.getType(), matcher.group(3)));
+        } catch (RuntimeException e) {
+            throw new InvalidListQueryException(String.format(ErrorMessages.INVALID_LIST_FILTER, filter));
+        }
+    }
+
+    /**
+     * Helper to convert a filter value to the type of its field
+     * Dates are either days (2021-01-01), taken at UTC midnight, or ISO-8601 instants
+     * @param type type of the field
+     * @param value filter value
+     * @return the converted value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object fromParameterToValue(Class<?> type, String value) {
+        if (type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        }
+        if (type == Date.class) {
+            return value.length() == 10
+                    ? Date.from(LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant())
+                    : Date.from(Instant.parse(value));
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) type, value.toUpperCase());
+        }
+        return value;
+    }
+
+    /**
+     * Helper to find the first index serving the filters and sort and order by it
+     * @param definition {@link ListDefinition} of the list
+     * @param filters parsed filters
+     * @param sortField field to sort by, null for the order of the index
+     * @param descending
+     * @return the orders
+     */
+    private static List<ListOrder> fromIndexToListOrders(ListDefinition<?, ?> definition, List<ListFilter> filters,
+                                                         String sortField, boolean descending) {
+
+        Set<String> equalities = new HashSet<>();
+        Set<String> ranges = new HashSet<>();
+        boolean indexable = true;
+        for (ListFilter filter : filters) {
+            String name = filter.getField().getName();
+            if (filter.getOperator() == ListOperator.NOT_EQUAL) {
+                indexable = false;
+            } else if (filter.getOperator().isRange()) {
+                ranges.add(name);
+            } else {
+                indexable &= equalities.add(name);
+            }
+        }
+
+        // At most one field filtered by range, and not by equality as well
+        String range = ranges.isEmpty() ? null : ranges.iterator().next();
+        indexable &= ranges.size() <= 1 && Collections.disjoint(equalities, ranges);
+
+        for (List<String> index : indexable ? definition.getIndexes() : Collections.<List<String>>emptyList()) {
+            List<String> columns = new ArrayList<>(index);
+            columns.add(definition.getIdField());
+
+            int prefix = equalities.size();
+            if (prefix > columns.size() || !equalities.equals(new HashSet<>(columns.subList(0, prefix)))) {
+                continue;
+            }
+
+            String next = prefix < columns.size() ? columns.get(prefix) : null;
+            if ((range != null && !range.equals(next)) || (sortField != null && !sortField.equals(next))) {
+                continue;
+            }
+
+            return columns.subList(prefix, columns.size()).stream()
+                    .map(definition::getField)
+                    .map(field -> new ListOrder(field.getPath(), field.getProperty(), descending))
+                    .collect(Collectors.toList());
+        }
+
+        String filtered = filters.stream()
+                .map(filter -> filter.getField().getName() + filter.getOperator().getSymbol())
+                .collect(Collectors.joining(", "));
+        throw new InvalidListQueryException(String.format(ErrorMessages.UNINDEXED_LIST_QUERY,
+                filtered.isEmpty() ? "nothing" : filtered, sortField == null ? "default order" : sortField));
+    }
+}
@@ -0,0 +1,48 @@
+package com.rabbit.mechanic.converter;
+
+import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Page Converter
+ */
+public class PageConverter {
+
+    /**
+     * From {@link Slice} to {@link Paginated}, with the total of the list counted elsewhere.
+     * The total may be stale, so it's corrected with what a slice with content tells:
+     * at least up to this slice and one more when there is a next one, and exactly up to it otherwise.
+     * An empty slice past the end tells nothing about where the list ends, so the cached total is kept
+     * @param slice {@link Slice}
+     * @param totalResults cached total of the list
+     * @return {@link Paginated}
+     */
+    public static <T> Paginated<T> fromSliceToPaginated(Slice<T> slice, long totalResults) {
+        long total = totalResults;
+        if (slice.hasContent()) {
+            long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+            total = slice.hasNext() ? Math.max(totalResults, seen + 1) : seen;
+        }
+
+        return new Paginated<>(
+                slice.getContent(),
+                slice.getNumber(),
+                slice.getNumberOfElements(),
+                (int) ((total + slice.getSize() - 1) / slice.getSize()),
+                total);
+    }
+
+    /**
+     * From {@link Slice} to {@link Sliced}
+     * @param slice {@link Slice}
+     * @return {@link Sliced}
+     */
+    public static <T> Sliced<T> fromSliceToSliced(Slice<T> slice) {
+        return new Sliced<>(
+                slice.getContent(),
+                slice.getNumber(),
+                slice.getNumberOfElements(),
+                slice.hasNext());
+    }
+}
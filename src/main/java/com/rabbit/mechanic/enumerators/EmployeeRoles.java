@@ -6,5 +6,32 @@ package com.rabbit.mechanic.enumerators;
 public enum EmployeeRoles {
     ADMIN,
     MECHANIC,
-    RECEPTIONIST
+    RECEPTIONIST;
+
+    private final int mask;
+
+    EmployeeRoles() {
+        this.mask = 1 << ordinal();
+    }
+
+    /**
+     * Get the bit of this role, to be combined into role bitmasks
+     * @return the role bit
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Build the bitmask of a set of roles
+     * @param roles
+     * @return the bitmask
+     */
+    public static int maskOf(EmployeeRoles... roles) {
+        int mask = 0;
+        for (EmployeeRoles role : roles) {
+            mask |= role.mask;
+        }
+        return mask;
+    }
 }
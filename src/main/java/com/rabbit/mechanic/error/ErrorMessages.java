@@ -18,7 +18,18 @@ public class ErrorMessages {
     public static final String REPAIR_ALREADY_EXISTS = "Repair with the given name already exists";
 
     public static final String WRONG_CREDENTIALS = "The credentials inserted are wrong";
+    public static final String TOKEN_REVOKED = "The token was revoked";
+    public static final String INVALID_REFRESH_TOKEN = "The refresh token is invalid or expired";
+    public static final String ACCESS_DENIED = "Access denied";
+    public static final String INVALID_CURSOR = "The cursor is invalid";
+    public static final String PAGE_TOO_DEEP = "Pages past the first %d results aren't supported, use the cursor instead";
+    public static final String INVALID_LIST_FILTER = "The filter %s is invalid";
+    public static final String INVALID_LIST_SORT = "The sort %s is invalid";
+    public static final String UNINDEXED_LIST_QUERY = "Filtering by %s sorted by %s isn't supported, it can't be served by an index";
+    public static final String TOO_MANY_LOGIN_ATTEMPTS = "Too many login attempts, try again later";
+    public static final String PASSWORD_HASHING_UNAVAILABLE = "Too many authentication requests, please try again later";
 
     public static final String DATABASE_COMMUNICATION_ERROR = "Have some problems with Database communication";
+    public static final String DATABASE_UNAVAILABLE = "The database is unavailable, please try again later";
     public static final String OPERATION_FAILED = "Failed to process the requested operation";
 }
@@ -0,0 +1,11 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Database Unavailable Exception
+ * Thrown without going to the database while the circuit breaker around the repositories is open
+ */
+public class DatabaseUnavailableException extends RabbitMechanicException {
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+}
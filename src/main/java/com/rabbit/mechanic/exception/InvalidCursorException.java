@@ -0,0 +1,10 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Invalid Cursor Exception
+ */
+public class InvalidCursorException extends RabbitMechanicException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Invalid List Query Exception
+ */
+public class InvalidListQueryException extends RabbitMechanicException {
+    public InvalidListQueryException(String message) {
+        super(message);
+    }
+}
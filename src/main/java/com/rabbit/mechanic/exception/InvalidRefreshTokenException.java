@@ -0,0 +1,11 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Invalid Refresh Token Exception
+ * Thrown when a refresh token is unknown, expired or reused
+ */
+public class InvalidRefreshTokenException extends RabbitMechanicException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Page Too Deep Exception
+ */
+public class PageTooDeepException extends RabbitMechanicException {
+    public PageTooDeepException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Password Hashing Unavailable Exception
+ * Thrown when the password hashing pool is saturated
+ */
+public class PasswordHashingUnavailableException extends RabbitMechanicException {
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -12,6 +12,7 @@ import com.rabbit.mechanic.exception.repair.RepairNotFoundException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -67,12 +68,75 @@ public class RabbitMechanicExceptionHandler extends ResponseEntityExceptionHandl
      * @return {@link Error}
      */
     @ExceptionHandler(value = {
-            DataBaseCommunicationException.class
+            DataBaseCommunicationException.class,
+            InvalidCursorException.class,
+            InvalidListQueryException.class,
+            PageTooDeepException.class
             })
     public ResponseEntity<Error> handlerBadRequestException(Exception ex, HttpServletRequest request) {
         return buildErrorResponse(ex, request, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handle "unauthorized" exceptions
+     * @param ex exception
+     * @param request http Servlet Request
+     * @return {@link Error}
+     */
+    @ExceptionHandler(value = {
+            InvalidRefreshTokenException.class,
+            RevokedTokenException.class
+            })
+    public ResponseEntity<Error> handlerUnauthorizedException(Exception ex, HttpServletRequest request) {
+        return buildErrorResponse(ex, request, HttpStatus.UNAUTHORIZED);
+    }
+
+    /**
+     * Handle "forbidden" exceptions
+     * @param ex exception
+     * @param request http Servlet Request
+     * @return {@link Error}
+     */
+    @ExceptionHandler(value = {
+            AccessDeniedException.class
+            })
+    public ResponseEntity<Error> handlerForbiddenException(Exception ex, HttpServletRequest request) {
+        return buildErrorResponse(ex, request, HttpStatus.FORBIDDEN);
+    }
+
+    /**
+     * Handle "too many requests" exceptions
+     * @param ex exception
+     * @param request http Servlet Request
+     * @return {@link Error}
+     */
+    @ExceptionHandler(value = {
+            TooManyLoginAttemptsException.class
+            })
+    public ResponseEntity<Error> handlerTooManyRequestsException(TooManyLoginAttemptsException ex, HttpServletRequest request) {
+        ResponseEntity<Error> response = buildErrorResponse(ex, request, HttpStatus.TOO_MANY_REQUESTS);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    /**
+     * Handle "service unavailable" exceptions
+     * @param ex exception
+     * @param request http Servlet Request
+     * @return {@link Error}
+     */
+    @ExceptionHandler(value = {
+            PasswordHashingUnavailableException.class,
+            DatabaseUnavailableException.class
+            })
+    public ResponseEntity<Error> handlerServiceUnavailableException(Exception ex, HttpServletRequest request) {
+        ResponseEntity<Error> response = buildErrorResponse(ex, request, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.getBody());
+    }
+
     /**
      * Handle method argument not valid
      * @param ex exception
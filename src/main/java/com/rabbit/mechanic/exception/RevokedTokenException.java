@@ -0,0 +1,11 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Revoked Token Exception
+ * Thrown when a token was logged out or issued before the tokens of its employee were revoked
+ */
+public class RevokedTokenException extends RabbitMechanicException {
+    public RevokedTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.rabbit.mechanic.exception;
+
+/**
+ * Too Many Login Attempts Exception
+ * Thrown when the login attempts of a username or address exceed their rate
+ */
+public class TooManyLoginAttemptsException extends RabbitMechanicException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,185 @@
+package com.rabbit.mechanic.persistence.breaker;
+
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.DatabaseUnavailableException;
+import com.rabbit.mechanic.properties.CircuitBreakerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of the database
+ * After failureThreshold consecutive timeouts or connection failures it opens and every call fails fast with
+ * a {@link DatabaseUnavailableException} for openDuration milliseconds. Then it lets a single call through as a probe,
+ * closing again when the probe succeeds or opening for another openDuration when it fails.
+ * Only the probe closes it, calls let through before it opened tell nothing about the database now.
+ * Other errors, e.g. constraint violations, mean the database answered and count as successes
+ */
+@Component
+public class DatabaseCircuitBreaker {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(DatabaseCircuitBreaker.class);
+
+    // Errors telling the database is slow or unreachable, anywhere in the cause chain
+    private static final List<Class<? extends Throwable>> FAILURES = Arrays.asList(
+            QueryTimeoutException.class,
+            TransactionTimedOutException.class,
+            DataAccessResourceFailureException.class,
+            TransientDataAccessResourceException.class,
+            RecoverableDataAccessException.class,
+            CannotCreateTransactionException.class,
+            SQLTimeoutException.class,
+            SQLTransientConnectionException.class,
+            SQLNonTransientConnectionException.class
+    );
+
+    /**
+     * States of the circuit breaker, the ordinal is published as the state gauge
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDuration;
+    private final LongSupplier clock;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private final Counter rejectedCounter;
+    private volatile long openedAt;
+
+    @Autowired
+    public DatabaseCircuitBreaker(CircuitBreakerProperties circuitBreakerProperties, MeterRegistry meterRegistry) {
+        this(circuitBreakerProperties.getFailureThreshold(), circuitBreakerProperties.getOpenDuration(),
+                System::currentTimeMillis, meterRegistry);
+    }
+
+    public DatabaseCircuitBreaker(int failureThreshold, long openDuration, LongSupplier clock, MeterRegistry meterRegistry) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+        this.rejectedCounter = Counter.builder("database.circuit.rejected")
+                .description("Database calls rejected while the circuit breaker is open")
+                .register(meterRegistry);
+        Gauge.builder("database.circuit.state", state, current -> current.get().ordinal())
+                .description("State of the database circuit breaker: 0 closed, 1 half open, 2 open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the current state
+     * @return {@link State}
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Ask to call the database, moving from open to half open once openDuration has passed
+     * @return true when the call is the probe of the half open circuit breaker
+     * @throws DatabaseUnavailableException when the circuit breaker is open or another call is already probing
+     */
+    public boolean acquirePermission() {
+        if (state.get() == State.CLOSED) {
+            return false;
+        }
+
+        if (state.get() == State.OPEN && clock.getAsLong() - openedAt >= openDuration
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            LOGGER.info("Database circuit breaker half open, probing the database");
+        }
+
+        if (state.get() == State.CLOSED) {
+            return false;
+        }
+        if (state.get() == State.HALF_OPEN && probing.compareAndSet(false, true)) {
+            return true;
+        }
+
+        rejectedCounter.increment();
+        throw new DatabaseUnavailableException(ErrorMessages.DATABASE_UNAVAILABLE);
+    }
+
+    /**
+     * Record a call that got an answer from the database, closing the circuit breaker when it's the probe
+     * @param probe as returned by {@link #acquirePermission()}
+     */
+    public void onSuccess(boolean probe) {
+        if (probe) {
+            consecutiveFailures.set(0);
+            if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                probing.set(false);
+                LOGGER.info("Database circuit breaker closed");
+            }
+        } else if (state.get() == State.CLOSED) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * Record a call that failed, only timeouts and connection failures count against the database
+     * @param error
+     * @param probe as returned by {@link #acquirePermission()}
+     */
+    public void onError(Throwable error, boolean probe) {
+        if (!isFailure(error)) {
+            onSuccess(probe);
+            return;
+        }
+
+        if (probe || state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(error);
+        }
+    }
+
+    /**
+     * Helper to open the circuit breaker
+     * @param error
+     */
+    private void open(Throwable error) {
+        openedAt = clock.getAsLong();
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.OPEN) != State.OPEN) {
+            LOGGER.error("Database circuit breaker open for {} ms", openDuration, error);
+        }
+        probing.set(false);
+    }
+
+    /**
+     * Helper to check if an error tells the database is slow or unreachable
+     * @param error
+     * @return true when it's a failure
+     */
+    private static boolean isFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            for (Class<? extends Throwable> failure : FAILURES) {
+                if (failure.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
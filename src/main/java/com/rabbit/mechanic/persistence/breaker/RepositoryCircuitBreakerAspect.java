@@ -0,0 +1,41 @@
+package com.rabbit.mechanic.persistence.breaker;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Puts every repository call behind the {@link DatabaseCircuitBreaker}
+ * It wraps the repository transactions, so failures of their commits count too
+ */
+@Aspect
+@Component
+public class RepositoryCircuitBreakerAspect {
+
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    public RepositoryCircuitBreakerAspect(DatabaseCircuitBreaker databaseCircuitBreaker) {
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+    }
+
+    /**
+     * Call the repository unless the circuit breaker is open
+     * @param joinPoint
+     * @return the result of the repository
+     * @throws Throwable the error of the repository
+     */
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))"
+            + " || within(com.rabbit.mechanic.persistence.repository..*)")
+    public Object call(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean probe = databaseCircuitBreaker.acquirePermission();
+        try {
+            Object result = joinPoint.proceed();
+            databaseCircuitBreaker.onSuccess(probe);
+            return result;
+        } catch (Throwable e) {
+            databaseCircuitBreaker.onError(e, probe);
+            throw e;
+        }
+    }
+}
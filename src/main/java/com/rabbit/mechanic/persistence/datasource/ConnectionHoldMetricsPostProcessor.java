@@ -0,0 +1,68 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the pools behind the data source in a {@link ConnectionHoldTimingDataSource} to publish the connection hold time
+ * per endpoint, and puts them behind a LazyConnectionDataSourceProxy when they aren't yet, so a connection is only taken
+ * at the first statement of a transaction and transactions served from memory don't take any.
+ * The proxy it creates closes the pool it wraps, since spring closes the bean it ends up with on shutdown
+ */
+@Component
+public class ConnectionHoldMetricsPostProcessor implements BeanPostProcessor {
+
+    // Resolved on the first connection, post processors are created before the meter registry
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ConnectionHoldMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @see BeanPostProcessor#postProcessAfterInitialization(Object, String)
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+
+        // Read only transactions take their connection when they begin, unless it's deferred until the first statement
+        LazyConnectionDataSourceProxy lazyDataSource = bean instanceof LazyConnectionDataSourceProxy
+                ? (LazyConnectionDataSourceProxy) bean
+                : new ClosingLazyConnectionDataSourceProxy((DataSource) bean);
+        lazyDataSource.setTargetDataSource(
+                new ConnectionHoldTimingDataSource(lazyDataSource.getTargetDataSource(), meterRegistry::getObject));
+        return lazyDataSource;
+    }
+
+    /**
+     * LazyConnectionDataSourceProxy closing the pool it replaced as a bean
+     */
+    private static final class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy
+            implements AutoCloseable {
+
+        private final DataSource pool;
+
+        ClosingLazyConnectionDataSourceProxy(DataSource pool) {
+            super(pool);
+            this.pool = pool;
+        }
+
+        /**
+         * @see AutoCloseable#close()
+         */
+        @Override
+        public void close() throws Exception {
+            if (pool instanceof AutoCloseable) {
+                ((AutoCloseable) pool).close();
+            }
+        }
+    }
+}
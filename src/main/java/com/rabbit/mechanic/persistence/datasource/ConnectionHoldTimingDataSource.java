@@ -0,0 +1,129 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times how long each connection is held, from the moment it's handed out until it's closed,
+ * tagged with the endpoint of the request that took it.
+ * Connections taken before the handler is resolved (e.g. by the auth filter) are tagged UNKNOWN,
+ * and the ones taken outside of a request (e.g. scheduled tasks) are tagged none
+ */
+public class ConnectionHoldTimingDataSource extends DelegatingDataSource {
+
+    public static final String METRIC_NAME = "datasource.connection.hold";
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final String NONE = "none";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+
+    public ConnectionHoldTimingDataSource(DataSource targetDataSource, Supplier<MeterRegistry> meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @see DelegatingDataSource#getConnection()
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(super.getConnection());
+    }
+
+    /**
+     * @see DelegatingDataSource#getConnection(String, String)
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(super.getConnection(username, password));
+    }
+
+    /**
+     * Helper to wrap a connection so closing it records the time it was held
+     * @param connection
+     * @return {@link Connection}
+     */
+    private Connection timed(Connection connection) {
+        Timer timer = holdTimer();
+        return (Connection) Proxy.newProxyInstance(ConnectionHoldTimingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new TimedConnection(connection, timer));
+    }
+
+    /**
+     * Helper to get the hold timer of the endpoint of the current request
+     * @return {@link Timer}
+     */
+    private Timer holdTimer() {
+        String method = NONE;
+        String uri = NONE;
+
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            Object pattern = requestAttributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            method = ((ServletRequestAttributes) requestAttributes).getRequest().getMethod();
+            uri = pattern != null ? pattern.toString() : UNKNOWN;
+        }
+
+        return Timer.builder(METRIC_NAME)
+                .description("Time a connection is held, from being handed out until closed")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry.get());
+    }
+
+    /**
+     * Delegates every call to the connection and records the hold time on the first close
+     */
+    private static class TimedConnection implements InvocationHandler {
+
+        private final Connection connection;
+        private final Timer timer;
+        private final long start = System.nanoTime();
+        private boolean closed;
+
+        TimedConnection(Connection connection, Timer timer) {
+            this.connection = connection;
+            this.timer = timer;
+        }
+
+        /**
+         * @see InvocationHandler#invoke(Object, Method, Object[])
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Only the same proxy is equal to itself
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            }
+
+            if ("close".equals(method.getName()) && !closed) {
+                closed = true;
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins the reads of the current thread to the primary, read by {@link ReadWriteRoutingDataSource} when a connection
+ * is taken. Used by reads a write or a cache depends on, which must not see a replica lagging behind
+ */
+public class PrimaryContext {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryContext() {
+    }
+
+    /**
+     * Check if the current thread is pinned to the primary
+     * @return true when its reads must go to the primary
+     */
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * Run an action with its reads pinned to the primary, restoring the previous state afterwards
+     * @param action
+     * @return the result of the action
+     */
+    public static <T> T run(Supplier<T> action) {
+        if (isPinned()) {
+            return action.get();
+        }
+
+        PINNED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PINNED.remove();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * {@link JpaTransactionManager} giving transactions without a timeout of their own the read or the write timeout.
+ * Hibernate turns what is left of it into the timeout of each statement, so a slow database cancels
+ * the statement instead of blocking the request thread
+ */
+public class QueryTimeoutTransactionManager extends JpaTransactionManager {
+
+    private final int readTimeout;
+    private final int writeTimeout;
+
+    public QueryTimeoutTransactionManager(int readTimeout, int writeTimeout) {
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+    }
+
+    /**
+     * @see JpaTransactionManager#doBegin(Object, TransactionDefinition)
+     */
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        if (definition.getTimeout() == TransactionDefinition.TIMEOUT_DEFAULT) {
+            DefaultTransactionDefinition timedDefinition = new DefaultTransactionDefinition(definition);
+            timedDefinition.setTimeout(definition.isReadOnly() ? readTimeout : writeTimeout);
+            definition = timedDefinition;
+        }
+        super.doBegin(transaction, definition);
+    }
+}
@@ -0,0 +1,84 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends connections of read only transactions to the replica and everything else to the primary.
+ * Employees that wrote within the read your writes window keep reading from the primary,
+ * and so do the reads pinned by {@link PrimaryContext}.
+ * It must sit behind a LazyConnectionDataSourceProxy, otherwise the connection is taken
+ * when the transaction begins, before it's flagged as read only
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Counter writeCounter;
+    private final Counter readYourWritesCounter;
+    private final Counter pinnedCounter;
+    private final Counter readCounter;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker readYourWritesTracker,
+                                      MeterRegistry meterRegistry) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.writeCounter = routingCounter(meterRegistry, PRIMARY, "write");
+        this.readYourWritesCounter = routingCounter(meterRegistry, PRIMARY, "read-your-writes");
+        this.pinnedCounter = routingCounter(meterRegistry, PRIMARY, "pinned");
+        this.readCounter = routingCounter(meterRegistry, REPLICA, "read");
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * @see AbstractRoutingDataSource#determineCurrentLookupKey()
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWritesTracker.recordWrite();
+            writeCounter.increment();
+            return PRIMARY;
+        }
+
+        if (PrimaryContext.isPinned()) {
+            pinnedCounter.increment();
+            return PRIMARY;
+        }
+
+        if (readYourWritesTracker.wroteRecently()) {
+            readYourWritesCounter.increment();
+            return PRIMARY;
+        }
+
+        readCounter.increment();
+        return REPLICA;
+    }
+
+    /**
+     * Helper to register the routing counter
+     * @param meterRegistry
+     * @param target
+     * @param reason
+     * @return {@link Counter}
+     */
+    private static Counter routingCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("Connections handed out per pool and why")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
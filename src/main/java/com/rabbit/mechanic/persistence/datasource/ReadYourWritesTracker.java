@@ -0,0 +1,56 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rabbit.mechanic.command.auth.PrincipalDto;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which employees wrote to the primary in the last window milliseconds,
+ * so their reads keep going to the primary until the replica had time to catch up
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(long window, long maximumClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterWrite(window, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Record a write of the authenticated employee, if any
+     */
+    public void recordWrite() {
+        Long employeeId = currentEmployeeId();
+        if (employeeId != null) {
+            recentWriters.put(employeeId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Check if the authenticated employee wrote within the window
+     * @return true when its reads must go to the primary
+     */
+    public boolean wroteRecently() {
+        Long employeeId = currentEmployeeId();
+        return employeeId != null && recentWriters.getIfPresent(employeeId) != null;
+    }
+
+    /**
+     * Helper to get the employee id of the request
+     * @return the employee id or null when the request isn't authenticated
+     */
+    private static Long currentEmployeeId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof PrincipalDto)) {
+            return null;
+        }
+        return ((PrincipalDto) authentication.getPrincipal()).getEmployeeId();
+    }
+}
@@ -0,0 +1,51 @@
+package com.rabbit.mechanic.persistence.entity;
+
+import com.rabbit.mechanic.persistence.shard.ShardIdGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * The cache invalidation entity
+ * A record changed by an instance, read by the other instances polling the table to drop their cached copies.
+ * Only kept in the home database, and only until every instance had the chance to read it
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "cache_invalidations", indexes = {
+        @Index(name = "idx_cache_invalidations_published_at", columnList = "publishedAt")
+})
+public class CacheInvalidationEntity {
+
+    @Id
+    @GeneratedValue(generator = "cache_invalidations")
+    @GenericGenerator(name = "cache_invalidations", strategy = ShardIdGenerator.STRATEGY)
+    private long invalidationId;
+
+    @Column(nullable = false, length = 50)
+    private String topic;
+
+    @Column(nullable = false)
+    private long recordId;
+
+    @Column(nullable = false, length = 36)
+    private String origin;
+
+    @Column(nullable = false)
+    private Date changedAt;
+
+    @Column(nullable = false)
+    private Date publishedAt;
+}
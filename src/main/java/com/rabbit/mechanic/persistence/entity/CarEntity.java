@@ -1,10 +1,16 @@
 package com.rabbit.mechanic.persistence.entity;
 
 import com.rabbit.mechanic.enumerators.CarBrands;
+import com.rabbit.mechanic.persistence.shard.ShardIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.List;
@@ -12,20 +18,29 @@ import java.util.List;
 /**
  * The car entity
  */
-@Data
+@Getter
+@Setter
+@ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "cars")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cars")
+@Table(name = "cars", indexes = {
+        @Index(name = "idx_cars_customer", columnList = "customerId"),
+        @Index(name = "idx_cars_brand", columnList = "brand, engineType, carId")
+})
 public class CarEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "cars")
+    @GenericGenerator(name = "cars", strategy = ShardIdGenerator.STRATEGY)
     private long carId;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customerId", nullable = false)
+    @ToString.Exclude
     private CustomerEntity customerEntity;
 
     @Enumerated(EnumType.STRING)
@@ -39,5 +54,6 @@ public class CarEntity {
     private String plate;
 
     @OneToMany(mappedBy = "carEntity")
+    @ToString.Exclude
     private List<RepairEntity> repairs;
 }
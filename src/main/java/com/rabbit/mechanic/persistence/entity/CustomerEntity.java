@@ -1,9 +1,15 @@
 package com.rabbit.mechanic.persistence.entity;
 
+import com.rabbit.mechanic.persistence.shard.ShardIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.List;
@@ -11,16 +17,23 @@ import java.util.List;
 /**
  * The customer entity
  */
-@Data
+@Getter
+@Setter
+@ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "customers")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customers")
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_first_name", columnList = "firstName, customerId")
+})
 public class CustomerEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "customers")
+    @GenericGenerator(name = "customers", strategy = ShardIdGenerator.STRATEGY)
     private long customerId;
 
     @Column(nullable = false, length = 100)
@@ -39,5 +52,7 @@ public class CustomerEntity {
     private String cellNumber;
 
     @OneToMany(mappedBy = "customerEntity")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer-cars")
+    @ToString.Exclude
     private List<CarEntity> cars;
 }
\ No newline at end of file
@@ -1,26 +1,39 @@
 package com.rabbit.mechanic.persistence.entity;
 
 import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import com.rabbit.mechanic.persistence.shard.ShardIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
 /**
  * The employee entity
  */
-@Data
+@Getter
+@Setter
+@ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employees")
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_first_name", columnList = "firstName, employeeId")
+})
 public class EmployeeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "employees")
+    @GenericGenerator(name = "employees", strategy = ShardIdGenerator.STRATEGY)
     private long employeeId;
 
     @Column(nullable = false, length = 100)
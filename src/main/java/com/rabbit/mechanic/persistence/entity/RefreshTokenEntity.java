@@ -0,0 +1,55 @@
+package com.rabbit.mechanic.persistence.entity;
+
+import com.rabbit.mechanic.persistence.shard.ShardIdGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * The refresh token entity
+ * Only the SHA-256 hash of the token is stored. Tokens rotated from the same login share a family,
+ * and used tokens are kept until they expire so their reuse can be detected
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_employee", columnList = "employeeId"),
+        @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt")
+})
+public class RefreshTokenEntity {
+
+    @Id
+    @GeneratedValue(generator = "refresh_tokens")
+    @GenericGenerator(name = "refresh_tokens", strategy = ShardIdGenerator.STRATEGY)
+    private long refreshTokenId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employeeId", nullable = false)
+    @ToString.Exclude
+    private EmployeeEntity employeeEntity;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Date expiresAt;
+
+    @Column(nullable = false)
+    private boolean used;
+}
@@ -1,9 +1,13 @@
 package com.rabbit.mechanic.persistence.entity;
 
+import com.rabbit.mechanic.persistence.shard.ShardIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -12,20 +16,29 @@ import java.util.Date;
 /**
  * The repair entity
  */
-@Data
+@Getter
+@Setter
+@ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "repairs")
+@Table(name = "repairs", indexes = {
+        @Index(name = "idx_repairs_active", columnList = "endDate, startDate, repairId"),
+        @Index(name = "idx_repairs_start_date", columnList = "startDate, repairId"),
+        @Index(name = "idx_repairs_car", columnList = "carId, startDate, repairId"),
+        @Index(name = "idx_repairs_price", columnList = "price, repairId")
+})
 public class RepairEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "repairs")
+    @GenericGenerator(name = "repairs", strategy = ShardIdGenerator.STRATEGY)
     private long repairId;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "carId", nullable = false)
+    @ToString.Exclude
     private CarEntity carEntity;
 
     @Column(nullable = false)
@@ -0,0 +1,30 @@
+package com.rabbit.mechanic.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+/**
+ * The unique key entity
+ * Directory of the values that must stay unique across shards, e.g. "email:john@mail.com" or "plate:AA-00-AA",
+ * only kept in the home database
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "unique_keys")
+public class UniqueKeyEntity {
+
+    @Id
+    @Column(length = 300)
+    private String uniqueKey;
+}
@@ -0,0 +1,70 @@
+package com.rabbit.mechanic.persistence.guard;
+
+import org.hibernate.LazyInitializationException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+/**
+ * Fails whenever a lazy collection of an entity is loaded outside of {@link #allow(Supplier)},
+ * e.g. by a log line or a generated method walking the associations of an entity.
+ * It's only installed when rabbit-mechanic.lazy-load-guard.enabled is true, as in the tests,
+ * otherwise allow just runs the fetch
+ */
+@Component
+@ConditionalOnProperty(prefix = "rabbit-mechanic.lazy-load-guard", name = "enabled", havingValue = "true")
+public class LazyLoadGuard implements InitializeCollectionEventListener {
+
+    // Depth of the allowed fetches running on the current thread
+    private static final ThreadLocal<Integer> ALLOWED = ThreadLocal.withInitial(() -> 0);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public LazyLoadGuard(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Run a fetch that is allowed to load lazy collections
+     * @param fetch
+     * @return the result of the fetch
+     */
+    public static <T> T allow(Supplier<T> fetch) {
+        ALLOWED.set(ALLOWED.get() + 1);
+        try {
+            return fetch.get();
+        } finally {
+            ALLOWED.set(ALLOWED.get() - 1);
+        }
+    }
+
+    /**
+     * Register the guard before the listener that loads the collections
+     */
+    @PostConstruct
+    public void install() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    /**
+     * @see InitializeCollectionEventListener#onInitializeCollection(InitializeCollectionEvent)
+     */
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        if (ALLOWED.get() == 0) {
+            throw new LazyInitializationException("Collection " + event.getCollection().getRole()
+                    + " loaded outside of an allowed fetch");
+        }
+    }
+}
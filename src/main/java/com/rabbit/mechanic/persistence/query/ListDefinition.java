@@ -0,0 +1,44 @@
+package com.rabbit.mechanic.persistence.query;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Singular;
+
+import java.util.List;
+
+/**
+ * Whitelist of a list endpoint: the entity and the dto it's projected into,
+ * the fields clients may filter and sort by and the indexes that can serve them.
+ * Indexes are given by field name, without the id field which every index ends with
+ */
+@Data
+@Builder
+public class ListDefinition<E, T> {
+
+    private String name;
+    private Class<E> entityClass;
+    private Class<T> dtoClass;
+    @Singular
+    private List<String> selections;
+    private String idField;
+    // Entity attribute required to be null on every row of the list, e.g. the end date of active repairs
+    private String nullPath;
+    @Singular
+    private List<ListField> fields;
+    @Singular
+    private List<List<String>> indexes;
+
+    /**
+     * Get field by name
+     * @param name
+     * @return {@link ListField} or null when it's not whitelisted
+     */
+    public ListField getField(String name) {
+        for (ListField field : fields) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.rabbit.mechanic.persistence.query;
+
+import com.rabbit.mechanic.cache.ListCountCache;
+import com.rabbit.mechanic.command.car.CarDetailsDto;
+import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
+import com.rabbit.mechanic.command.repair.RepairDetailsDto;
+import com.rabbit.mechanic.enumerators.CarBrands;
+import com.rabbit.mechanic.persistence.entity.CarEntity;
+import com.rabbit.mechanic.persistence.entity.CustomerEntity;
+import com.rabbit.mechanic.persistence.entity.RepairEntity;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Definitions of the filterable lists
+ * Their indexes must match the ones declared on the entities, the first one gives the default order
+ */
+public class ListDefinitions {
+
+    public static final ListDefinition<CarEntity, CarDetailsDto> CARS = ListDefinition.<CarEntity, CarDetailsDto>builder()
+            .name(ListCountCache.CARS)
+            .entityClass(CarEntity.class)
+            .dtoClass(CarDetailsDto.class)
+            .selection("carId").selection("customerEntity.customerId").selection("brand").selection("engineType").selection("plate")
+            .idField("carId")
+            .field(ListField.ofRange("carId", "carId", Long.class))
+            .field(ListField.ofEquality("customerId", "customerEntity.customerId", "userId", Long.class))
+            .field(ListField.ofEquality("brand", "brand", CarBrands.class))
+            .field(ListField.ofEquality("engineType", "engineType", String.class))
+            .field(ListField.ofEquality("plate", "plate", String.class))
+            .index(List.of())
+            .index(List.of("customerId"))
+            .index(List.of("brand", "engineType"))
+            .index(List.of("plate"))
+            .build();
+
+    public static final ListDefinition<CustomerEntity, CustomerDetailsDto> CUSTOMERS = ListDefinition.<CustomerEntity, CustomerDetailsDto>builder()
+            .name(ListCountCache.CUSTOMERS)
+            .entityClass(CustomerEntity.class)
+            .dtoClass(CustomerDetailsDto.class)
+            .selection("customerId").selection("firstName").selection("lastName").selection("address").selection("email").selection("cellNumber")
+            .idField("customerId")
+            .field(ListField.ofRange("customerId", "customerId", Long.class))
+            .field(ListField.ofRange("firstName", "firstName", String.class))
+            .field(ListField.ofEquality("email", "email", String.class))
+            .index(List.of("firstName"))
+            .index(List.of("email"))
+            .index(List.of())
+            .build();
+
+    public static final ListDefinition<RepairEntity, RepairDetailsDto> REPAIRS = repairs()
+            .name(ListCountCache.REPAIRS)
+            .field(ListField.ofRange("endDate", "endDate", Date.class))
+            .index(List.of("startDate"))
+            .index(List.of("carId", "startDate"))
+            .index(List.of("endDate", "startDate"))
+            .index(List.of("price"))
+            .index(List.of())
+            .build();
+
+    // Active repairs are served by the index on (end_date, start_date, repair_id), end_date always being null
+    public static final ListDefinition<RepairEntity, RepairDetailsDto> ACTIVE_REPAIRS = repairs()
+            .name(ListCountCache.ACTIVE_REPAIRS)
+            .nullPath("endDate")
+            .index(List.of("startDate"))
+            .build();
+
+    /**
+     * Helper to start the definitions of the repairs lists with what they share
+     */
+    private static ListDefinition.ListDefinitionBuilder<RepairEntity, RepairDetailsDto> repairs() {
+        return ListDefinition.<RepairEntity, RepairDetailsDto>builder()
+                .entityClass(RepairEntity.class)
+                .dtoClass(RepairDetailsDto.class)
+                .selection("repairId").selection("carEntity.carId").selection("repairName").selection("repairDescription")
+                .selection("startDate").selection("endDate").selection("price")
+                .idField("repairId")
+                .field(ListField.ofRange("repairId", "repairId", Long.class))
+                .field(ListField.ofEquality("carId", "carEntity.carId", Long.class))
+                .field(ListField.ofRange("startDate", "startDate", Date.class))
+                .field(ListField.ofRange("price", "price", BigDecimal.class));
+    }
+}
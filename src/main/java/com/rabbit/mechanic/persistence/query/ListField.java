@@ -0,0 +1,41 @@
+package com.rabbit.mechanic.persistence.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Field of a list that clients may filter and sort by
+ * name is the one used in the request, path the entity attribute it maps to
+ * and property the dto property it's projected into
+ */
+@Data
+@AllArgsConstructor
+public class ListField {
+
+    private String name;
+    private String path;
+    private String property;
+    private Class<?> type;
+    private boolean range;
+
+    /**
+     * Field filtered by equality only
+     */
+    public static ListField ofEquality(String name, String path, Class<?> type) {
+        return new ListField(name, path, name, type, false);
+    }
+
+    /**
+     * Field filtered by equality only, projected into a dto property named differently
+     */
+    public static ListField ofEquality(String name, String path, String property, Class<?> type) {
+        return new ListField(name, path, property, type, false);
+    }
+
+    /**
+     * Field filtered by equality or range
+     */
+    public static ListField ofRange(String name, String path, Class<?> type) {
+        return new ListField(name, path, name, type, true);
+    }
+}
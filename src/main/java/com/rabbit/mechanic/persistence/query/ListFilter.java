@@ -0,0 +1,16 @@
+package com.rabbit.mechanic.persistence.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Parsed list filter, e.g. startDate>=2021-01-01
+ */
+@Data
+@AllArgsConstructor
+public class ListFilter {
+
+    private ListField field;
+    private ListOperator operator;
+    private Object value;
+}
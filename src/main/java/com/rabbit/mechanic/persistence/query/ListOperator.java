@@ -0,0 +1,43 @@
+package com.rabbit.mechanic.persistence.query;
+
+/**
+ * Operators of the list filters
+ */
+public enum ListOperator {
+    EQUAL("=", false),
+    NOT_EQUAL("!=", false),
+    GREATER(">", true),
+    GREATER_OR_EQUAL(">=", true),
+    LESS("<", true),
+    LESS_OR_EQUAL("<=", true);
+
+    private final String symbol;
+    private final boolean range;
+
+    ListOperator(String symbol, boolean range) {
+        this.symbol = symbol;
+        this.range = range;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public boolean isRange() {
+        return range;
+    }
+
+    /**
+     * Get operator by its symbol
+     * @param symbol
+     * @return {@link ListOperator} or null when unknown
+     */
+    public static ListOperator fromSymbol(String symbol) {
+        for (ListOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
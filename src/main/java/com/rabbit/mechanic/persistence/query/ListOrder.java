@@ -0,0 +1,16 @@
+package com.rabbit.mechanic.persistence.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Order of a list query, by entity attribute path and by the dto property it's projected into
+ */
+@Data
+@AllArgsConstructor
+public class ListOrder {
+
+    private String path;
+    private String property;
+    private boolean descending;
+}
@@ -0,0 +1,20 @@
+package com.rabbit.mechanic.persistence.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Validated query of a list, with the order of the index chosen to serve it.
+ * key identifies the list and its filters, e.g. for the cached totals
+ */
+@Data
+@AllArgsConstructor
+public class ListQuery {
+
+    private List<ListFilter> filters;
+    private List<ListOrder> orders;
+    private String key;
+    private boolean custom;
+}
@@ -0,0 +1,36 @@
+package com.rabbit.mechanic.persistence.repository;
+
+import com.rabbit.mechanic.persistence.entity.CacheInvalidationEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The cache invalidation Repository
+ */
+@Repository
+public interface CacheInvalidationRepository extends CrudRepository<CacheInvalidationEntity, Long> {
+
+    /**
+     * Get invalidations published by other instances since a date
+     * @param origin instance reading them
+     * @param date
+     * @return
+     */
+    @Query("SELECT i FROM CacheInvalidationEntity i WHERE i.publishedAt >= :date AND i.origin <> :origin")
+    List<CacheInvalidationEntity> findPublishedSince(@Param("origin") String origin, @Param("date") Date date);
+
+    /**
+     * Delete invalidations published before a date
+     * @param date
+     * @return number of deleted invalidations
+     */
+    @Modifying
+    @Query("DELETE FROM CacheInvalidationEntity i WHERE i.publishedAt < :date")
+    int deletePublishedBefore(@Param("date") Date date);
+}
@@ -1,10 +1,38 @@
 package com.rabbit.mechanic.persistence.repository;
 
+import com.rabbit.mechanic.command.car.CarDetailsDto;
 import com.rabbit.mechanic.persistence.entity.CarEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 /**
  * The Car Repository
  */
 public interface CarRepository extends PagingAndSortingRepository<CarEntity, Long> {
+
+    /**
+     * Find all cars projected straight into {@link CarDetailsDto}, without loading entities
+     * @param pageable
+     * @return cars sliced, without a count query
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.car.CarDetailsDto(" +
+            "c.carId, c.customerEntity.customerId, c.brand, c.engineType, c.plate) " +
+            "FROM CarEntity c")
+    Slice<CarDetailsDto> findAllCarDetails(Pageable pageable);
+
+    /**
+     * Find the cars after a car id, in car id order, without a count query
+     * @param carId car id of the last car of the previous page, 0 for the first page
+     * @param pageable
+     * @return cars
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.car.CarDetailsDto(" +
+            "c.carId, c.customerEntity.customerId, c.brand, c.engineType, c.plate) " +
+            "FROM CarEntity c WHERE c.carId > :carId ORDER BY c.carId")
+    List<CarDetailsDto> findCarDetailsAfter(@Param("carId") long carId, Pageable pageable);
 }
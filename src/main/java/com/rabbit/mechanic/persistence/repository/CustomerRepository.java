@@ -1,11 +1,53 @@
 package com.rabbit.mechanic.persistence.repository;
 
+import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
 import com.rabbit.mechanic.persistence.entity.CustomerEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 /**
  * The Customer Repository
  */
 public interface CustomerRepository extends PagingAndSortingRepository<CustomerEntity, Long> {
 
+    /**
+     * Find all customers projected straight into {@link CustomerDetailsDto}, without loading entities
+     * @param pageable
+     * @return customers sliced, without a count query
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.customer.CustomerDetailsDto(" +
+            "c.customerId, c.firstName, c.lastName, c.address, c.email, c.cellNumber) " +
+            "FROM CustomerEntity c")
+    Slice<CustomerDetailsDto> findAllCustomerDetails(Pageable pageable);
+
+    /**
+     * Find the first customers in first name and customer id order, without a count query
+     * @param pageable
+     * @return customers
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.customer.CustomerDetailsDto(" +
+            "c.customerId, c.firstName, c.lastName, c.address, c.email, c.cellNumber) " +
+            "FROM CustomerEntity c ORDER BY c.firstName, c.customerId")
+    List<CustomerDetailsDto> findCustomerDetailsFirst(Pageable pageable);
+
+    /**
+     * Find the customers after a first name and customer id, in that order, without a count query
+     * @param firstName first name of the last customer of the previous page
+     * @param customerId customer id of the last customer of the previous page
+     * @param pageable
+     * @return customers
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.customer.CustomerDetailsDto(" +
+            "c.customerId, c.firstName, c.lastName, c.address, c.email, c.cellNumber) " +
+            "FROM CustomerEntity c " +
+            "WHERE c.firstName > :firstName OR (c.firstName = :firstName AND c.customerId > :customerId) " +
+            "ORDER BY c.firstName, c.customerId")
+    List<CustomerDetailsDto> findCustomerDetailsAfter(@Param("firstName") String firstName,
+                                                      @Param("customerId") long customerId,
+                                                      Pageable pageable);
 }
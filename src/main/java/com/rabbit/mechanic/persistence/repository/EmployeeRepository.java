@@ -1,11 +1,20 @@
 package com.rabbit.mechanic.persistence.repository;
 
+import com.rabbit.mechanic.command.employee.EmployeeDetailsDto;
 import com.rabbit.mechanic.persistence.entity.EmployeeEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
+import java.util.List;
+
 /**
  * The employee Repository
  */
@@ -18,4 +27,56 @@ public interface EmployeeRepository extends PagingAndSortingRepository<EmployeeE
      * @return
      */
     Optional<EmployeeEntity> findByUsername(String username);
+
+    /**
+     * Replace the password hash of an employee, only if it wasn't changed since it was read
+     * Leaves every other column alone, unlike saving the entity read before the hash was computed
+     * @param employeeId
+     * @param encryptedPassword hash that was read
+     * @param newEncryptedPassword
+     * @return 1 if replaced, 0 if the password changed in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmployeeEntity e SET e.encryptedPassword = :newEncryptedPassword " +
+            "WHERE e.employeeId = :employeeId AND e.encryptedPassword = :encryptedPassword")
+    int updateEncryptedPassword(@Param("employeeId") long employeeId,
+                                @Param("encryptedPassword") String encryptedPassword,
+                                @Param("newEncryptedPassword") String newEncryptedPassword);
+
+    /**
+     * Find all employees projected straight into {@link EmployeeDetailsDto}, without loading entities
+     * @param pageable
+     * @return employees sliced, without a count query
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.employee.EmployeeDetailsDto(" +
+            "e.employeeId, e.firstName, e.lastName, e.username, e.role) " +
+            "FROM EmployeeEntity e")
+    Slice<EmployeeDetailsDto> findAllEmployeeDetails(Pageable pageable);
+
+    /**
+     * Find the first employees in first name and employee id order, without a count query
+     * @param pageable
+     * @return employees
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.employee.EmployeeDetailsDto(" +
+            "e.employeeId, e.firstName, e.lastName, e.username, e.role) " +
+            "FROM EmployeeEntity e ORDER BY e.firstName, e.employeeId")
+    List<EmployeeDetailsDto> findEmployeeDetailsFirst(Pageable pageable);
+
+    /**
+     * Find the employees after a first name and employee id, in that order, without a count query
+     * @param firstName first name of the last employee of the previous page
+     * @param employeeId employee id of the last employee of the previous page
+     * @param pageable
+     * @return employees
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.employee.EmployeeDetailsDto(" +
+            "e.employeeId, e.firstName, e.lastName, e.username, e.role) " +
+            "FROM EmployeeEntity e " +
+            "WHERE e.firstName > :firstName OR (e.firstName = :firstName AND e.employeeId > :employeeId) " +
+            "ORDER BY e.firstName, e.employeeId")
+    List<EmployeeDetailsDto> findEmployeeDetailsAfter(@Param("firstName") String firstName,
+                                                      @Param("employeeId") long employeeId,
+                                                      Pageable pageable);
 }
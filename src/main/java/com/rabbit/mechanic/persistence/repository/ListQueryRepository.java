@@ -0,0 +1,136 @@
+package com.rabbit.mechanic.persistence.repository;
+
+import com.rabbit.mechanic.persistence.query.ListDefinition;
+import com.rabbit.mechanic.persistence.query.ListFilter;
+import com.rabbit.mechanic.persistence.query.ListOrder;
+import com.rabbit.mechanic.persistence.query.ListQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs validated {@link ListQuery} against the list they were built for, with the criteria api,
+ * projecting rows straight into the dto of the list
+ */
+@Repository
+public class ListQueryRepository {
+
+    private final EntityManager entityManager;
+
+    public ListQueryRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Find a slice of a list, without a count query
+     * @param definition {@link ListDefinition} of the list
+     * @param listQuery {@link ListQuery}
+     * @param pageable page number and size, its sort is ignored for the one of the query
+     * @return rows sliced
+     */
+    @Transactional(readOnly = true)
+    public <E, T> Slice<T> findAll(ListDefinition<E, T> definition, ListQuery listQuery, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(definition.getDtoClass());
+        Root<E> root = query.from(definition.getEntityClass());
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String selection : definition.getSelections()) {
+            selections.add(path(root, selection));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (ListOrder order : listQuery.getOrders()) {
+            Path<?> path = path(root, order.getPath());
+            orders.add(order.isDescending() ? criteriaBuilder.desc(path) : criteriaBuilder.asc(path));
+        }
+
+        query.select(criteriaBuilder.construct(definition.getDtoClass(), selections.toArray(new Selection[0])))
+                .where(predicates(criteriaBuilder, root, definition, listQuery))
+                .orderBy(orders);
+
+        // One more than the page size to know if there is a next page
+        List<T> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    /**
+     * Count the rows of a list
+     * @param definition {@link ListDefinition} of the list
+     * @param listQuery {@link ListQuery}
+     * @return the total
+     */
+    @Transactional(readOnly = true)
+    public long count(ListDefinition<?, ?> definition, ListQuery listQuery) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<?> root = query.from(definition.getEntityClass());
+
+        query.select(criteriaBuilder.count(root))
+                .where(predicates(criteriaBuilder, root, definition, listQuery));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Helper to build the predicates of the filters of a query and its list
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate[] predicates(CriteriaBuilder criteriaBuilder, Root<?> root, ListDefinition<?, ?> definition, ListQuery listQuery) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (definition.getNullPath() != null) {
+            predicates.add(criteriaBuilder.isNull(path(root, definition.getNullPath())));
+        }
+
+        for (ListFilter filter : listQuery.getFilters()) {
+            Expression<Comparable> path = (Expression<Comparable>) path(root, filter.getField().getPath());
+            Comparable value = (Comparable) filter.getValue();
+
+            switch (filter.getOperator()) {
+                case EQUAL:
+                    predicates.add(criteriaBuilder.equal(path, value));
+                    break;
+                case NOT_EQUAL:
+                    predicates.add(criteriaBuilder.notEqual(path, value));
+                    break;
+                case GREATER:
+                    predicates.add(criteriaBuilder.greaterThan(path, value));
+                    break;
+                case GREATER_OR_EQUAL:
+                    predicates.add(criteriaBuilder.greaterThanOrEqualTo(path, value));
+                    break;
+                case LESS:
+                    predicates.add(criteriaBuilder.lessThan(path, value));
+                    break;
+                case LESS_OR_EQUAL:
+                    predicates.add(criteriaBuilder.lessThanOrEqualTo(path, value));
+                    break;
+            }
+        }
+
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    /**
+     * Helper to resolve an attribute path, e.g. carEntity.carId
+     */
+    private static Path<?> path(Root<?> root, String attributePath) {
+        Path<?> path = root;
+        for (String attribute : attributePath.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+}
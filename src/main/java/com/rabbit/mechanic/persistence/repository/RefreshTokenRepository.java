@@ -0,0 +1,62 @@
+package com.rabbit.mechanic.persistence.repository;
+
+import com.rabbit.mechanic.persistence.entity.RefreshTokenEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * The refresh token Repository
+ */
+@Repository
+public interface RefreshTokenRepository extends PagingAndSortingRepository<RefreshTokenEntity, Long> {
+
+    /**
+     * Get refresh token by hash, with its employee
+     * @param tokenHash
+     * @return
+     */
+    @Query("SELECT t FROM RefreshTokenEntity t JOIN FETCH t.employeeEntity WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshTokenEntity> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Mark refresh token as used, only if it wasn't used yet
+     * @param refreshTokenId
+     * @return 1 if marked, 0 if it was already used
+     */
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity t SET t.used = true WHERE t.refreshTokenId = :refreshTokenId AND t.used = false")
+    int markAsUsed(@Param("refreshTokenId") long refreshTokenId);
+
+    /**
+     * Delete all refresh tokens of a family
+     * @param familyId
+     * @return number of deleted tokens
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntity t WHERE t.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    /**
+     * Delete all refresh tokens of an employee
+     * @param employeeId
+     * @return number of deleted tokens
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntity t WHERE t.employeeEntity.employeeId = :employeeId")
+    int deleteByEmployeeId(@Param("employeeId") long employeeId);
+
+    /**
+     * Delete refresh tokens expired before a date
+     * @param date
+     * @return number of deleted tokens
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntity t WHERE t.expiresAt < :date")
+    int deleteExpiredBefore(@Param("date") Date date);
+}
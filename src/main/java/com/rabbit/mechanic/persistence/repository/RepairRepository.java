@@ -1,29 +1,82 @@
 package com.rabbit.mechanic.persistence.repository;
 
+import com.rabbit.mechanic.command.repair.RepairDetailsDto;
 import com.rabbit.mechanic.persistence.entity.RepairEntity;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * The Repair Repository
+ * Active repairs (without end date) and all repairs are separate queries, each ordered by start date and repair id
+ * so they are served by an index, active ones by (end_date, start_date, repair_id) and all by (start_date, repair_id)
  */
 public interface RepairRepository extends PagingAndSortingRepository<RepairEntity, Long> {
 
     /**
-     * Find all repairs or just active
-     * @param onlyActives
+     * Find active repairs projected straight into {@link RepairDetailsDto}, in start date and repair id order
+     * @param pageable
+     * @return repairs sliced, without a count query
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.repair.RepairDetailsDto(" +
+            "r.repairId, r.carEntity.carId, r.repairName, r.repairDescription, r.startDate, r.endDate, r.price) " +
+            "FROM RepairEntity r " +
+            "WHERE r.endDate IS NULL " +
+            "ORDER BY r.startDate, r.repairId")
+    Slice<RepairDetailsDto> findActiveRepairDetails(Pageable pageable);
+
+    /**
+     * Find all repairs projected straight into {@link RepairDetailsDto}, in start date and repair id order
+     * @param pageable
+     * @return repairs sliced, without a count query
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.repair.RepairDetailsDto(" +
+            "r.repairId, r.carEntity.carId, r.repairName, r.repairDescription, r.startDate, r.endDate, r.price) " +
+            "FROM RepairEntity r " +
+            "ORDER BY r.startDate, r.repairId")
+    Slice<RepairDetailsDto> findAllRepairDetails(Pageable pageable);
+
+    /**
+     * Count active repairs
+     * @return the total
+     */
+    long countByEndDateIsNull();
+
+    /**
+     * Find the active repairs after a start date and repair id, in that order, without a count query
+     * @param startDate start date of the last repair of the previous page
+     * @param repairId repair id of the last repair of the previous page
+     * @param pageable
+     * @return repairs
+     */
+    @Query("SELECT new com.rabbit.mechanic.command.repair.RepairDetailsDto(" +
+            "r.repairId, r.carEntity.carId, r.repairName, r.repairDescription, r.startDate, r.endDate, r.price) " +
+            "FROM RepairEntity r " +
+            "WHERE r.endDate IS NULL " +
+            "AND (r.startDate > :startDate OR (r.startDate = :startDate AND r.repairId > :repairId)) " +
+            "ORDER BY r.startDate, r.repairId")
+    List<RepairDetailsDto> findActiveRepairDetailsAfter(@Param("startDate") Date startDate,
+                                                        @Param("repairId") long repairId,
+                                                        Pageable pageable);
+
+    /**
+     * Find the repairs after a start date and repair id, in that order, without a count query
+     * @param startDate start date of the last repair of the previous page
+     * @param repairId repair id of the last repair of the previous page
      * @param pageable
-     * @return repairs paginated
+     * @return repairs
      */
-    @Query(value = "SELECT * \n" +
-            "FROM repairs t1 \n" +
-            "WHERE :onlyActives IS FALSE OR t1.end_date IS NULL",
-            countQuery = "SELECT COUNT(*) \n" +
-                    "FROM repairs t1 \n" +
-                    "WHERE :onlyActives IS FALSE OR t1.end_date IS NULL",
-            nativeQuery = true)
-    Page<RepairEntity> findAllByStatus(@Param("onlyActives") boolean onlyActives, Pageable pageable);
+    @Query("SELECT new com.rabbit.mechanic.command.repair.RepairDetailsDto(" +
+            "r.repairId, r.carEntity.carId, r.repairName, r.repairDescription, r.startDate, r.endDate, r.price) " +
+            "FROM RepairEntity r " +
+            "WHERE r.startDate > :startDate OR (r.startDate = :startDate AND r.repairId > :repairId) " +
+            "ORDER BY r.startDate, r.repairId")
+    List<RepairDetailsDto> findRepairDetailsAfter(@Param("startDate") Date startDate,
+                                                  @Param("repairId") long repairId,
+                                                  Pageable pageable);
 }
@@ -0,0 +1,37 @@
+package com.rabbit.mechanic.persistence.repository;
+
+import com.rabbit.mechanic.persistence.entity.UniqueKeyEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+
+/**
+ * The unique key Repository
+ */
+@Repository
+public interface UniqueKeyRepository extends CrudRepository<UniqueKeyEntity, String> {
+
+    /**
+     * Insert a unique key, failing if it already exists (save would update it instead).
+     * Only touches unique_keys, otherwise Hibernate clears the whole second level cache after a native statement
+     * @param uniqueKey
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "unique_keys"))
+    @Query(value = "INSERT INTO unique_keys (unique_key) VALUES (:uniqueKey)", nativeQuery = true)
+    void insert(@Param("uniqueKey") String uniqueKey);
+
+    /**
+     * Delete a unique key
+     * @param uniqueKey
+     * @return number of deleted keys
+     */
+    @Modifying
+    @Query("DELETE FROM UniqueKeyEntity u WHERE u.uniqueKey = :uniqueKey")
+    int deleteByUniqueKey(@Param("uniqueKey") String uniqueKey);
+}
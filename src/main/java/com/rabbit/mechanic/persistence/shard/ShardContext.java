@@ -0,0 +1,44 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread works on, read by {@link ShardRoutingDataSource} when a connection is taken.
+ * Shard 0, the home database, is used while none is set
+ */
+public class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Get the shard of the current thread
+     * @return the shard, 0 when none is set
+     */
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Run an action on a shard, restoring the previous one afterwards
+     * @param shard
+     * @param action
+     * @return the result of the action
+     */
+    public static <T> T run(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
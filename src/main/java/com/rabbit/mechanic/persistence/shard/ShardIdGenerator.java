@@ -0,0 +1,55 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Id generator of every entity, e.g. {@code @GenericGenerator(name = "cars", strategy = ShardIdGenerator.STRATEGY)}
+ * Values are taken in blocks of 50 from the row of the entity table in the id_generators table of the home database,
+ * so an insert doesn't need a round trip to learn its id and inserts can be sent in JDBC batches.
+ * Value v inserted on shard i gets the id (v - 1) * count + i + 1, the shard {@link Shards#shardOf(long)} reads back.
+ * The shard count is the rabbit-mechanic.sharding.count Hibernate setting, 1 when not set
+ */
+public class ShardIdGenerator extends TableGenerator {
+
+    public static final String STRATEGY = "com.rabbit.mechanic.persistence.shard.ShardIdGenerator";
+    public static final String SHARD_COUNT = "rabbit-mechanic.sharding.count";
+    public static final String TABLE = "id_generators";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private int shardCount;
+
+    /**
+     * @see TableGenerator#configure(Type, Properties, ServiceRegistry)
+     */
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        params.putIfAbsent(TABLE_PARAM, TABLE);
+        params.putIfAbsent(CONFIG_PREFER_SEGMENT_PER_ENTITY, "true");
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(ALLOCATION_SIZE));
+        // Blocks start at the value stored in the table, the last one handed out, plus one. data.sql relies on it
+        params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+
+        shardCount = ConfigurationHelper.getInt(SHARD_COUNT,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), 1);
+    }
+
+    /**
+     * @see TableGenerator#generate(SharedSessionContractImplementor, Object)
+     */
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        int shard = ShardContext.current();
+        long value = ((Number) ShardContext.run(Shards.HOME, () -> super.generate(session, object))).longValue();
+        return (value - 1) * shardCount + shard + 1;
+    }
+}
@@ -0,0 +1,33 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard set in the {@link ShardContext}.
+ * Like the read write routing, it must sit behind a LazyConnectionDataSourceProxy
+ * so the shard is picked at the first statement of the transaction
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setLenientFallback(false);
+    }
+
+    /**
+     * @see AbstractRoutingDataSource#determineCurrentLookupKey()
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,118 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import javax.sql.DataSource;
+import java.util.EnumSet;
+import java.util.function.Consumer;
+
+/**
+ * Hibernate only manages the schema of the home database, so when it manages schemas at all (ddl-auto other than
+ * none or validate) the schema of every other shard gets the same treatment at startup, before requests are served.
+ * With create and create-drop the shards are dropped and created again like the home database, otherwise the
+ * id_generators and unique_keys tables of the home database would start over while the shards keep their rows,
+ * and with create-drop they're dropped again on shutdown
+ */
+@Component
+public class ShardSchemaInitializer {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(ShardSchemaInitializer.class);
+
+    private final Shards shards;
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final HibernateProperties hibernateProperties;
+
+    public ShardSchemaInitializer(Shards shards, DataSource dataSource, EntityManagerFactory entityManagerFactory,
+                                  HibernateProperties hibernateProperties) {
+        this.shards = shards;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.hibernateProperties = hibernateProperties;
+    }
+
+    /**
+     * Create or update the schema of the shards after the home one
+     */
+    @PostConstruct
+    public void updateShardSchemas() {
+        String ddlAuto = hibernateProperties.getDdlAuto();
+        if (!shards.isSharded() || ddlAuto == null || "none".equals(ddlAuto) || "validate".equals(ddlAuto)) {
+            return;
+        }
+
+        boolean recreate = "create".equals(ddlAuto) || "create-drop".equals(ddlAuto);
+        onEveryShard(recreate ? "Recreating" : "Updating", metadata -> {
+            if (recreate) {
+                new SchemaExport().create(EnumSet.of(TargetType.DATABASE), metadata);
+            } else {
+                new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata);
+            }
+        });
+    }
+
+    /**
+     * Drop the schema of the shards on shutdown with create-drop, like the home one
+     */
+    @PreDestroy
+    public void dropShardSchemas() {
+        if (shards.isSharded() && "create-drop".equals(hibernateProperties.getDdlAuto())) {
+            onEveryShard("Dropping", metadata -> new SchemaExport().drop(EnumSet.of(TargetType.DATABASE), metadata));
+        }
+    }
+
+    /**
+     * Helper to run a schema action on the database of every shard but the home one
+     * @param description logged before each shard
+     * @param action called with the mapped entities
+     */
+    private void onEveryShard(String description, Consumer<Metadata> action) {
+        for (int shard = 1; shard < shards.count(); shard++) {
+            LOGGER.info("{} schema of shard {}", description, shard);
+            shards.on(shard, () -> {
+                runOnSchema(action);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Helper to run a schema action on the database of the current shard with the mapped entities
+     * @param action
+     */
+    private void runOnSchema(Consumer<Metadata> action) {
+        StandardServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, new SpringPhysicalNamingStrategy())
+                .applySetting(AvailableSettings.IMPLICIT_NAMING_STRATEGY, new SpringImplicitNamingStrategy())
+                .build();
+        try {
+            MetadataSources metadataSources = new MetadataSources(serviceRegistry);
+            for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+                metadataSources.addAnnotatedClass(entity.getJavaType());
+            }
+
+            action.accept(metadataSources.buildMetadata());
+        } finally {
+            StandardServiceRegistryBuilder.destroy(serviceRegistry);
+        }
+    }
+}
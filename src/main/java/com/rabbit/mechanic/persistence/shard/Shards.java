@@ -0,0 +1,189 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.PageTooDeepException;
+import com.rabbit.mechanic.persistence.datasource.PrimaryContext;
+import com.rabbit.mechanic.properties.ShardingProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Customer keyed shards
+ * A customer lives in one shard with all its cars and repairs. Shard i gets the ids i + 1, i + 1 + count, ...
+ * ({@link ShardIdGenerator}), so the shard of any customer, car or repair is known from its id.
+ * Employees, refresh tokens and the unique keys directory only live in shard 0, the home database.
+ * Lists are queried on every shard, each in its own read only transaction, and merged in memory.
+ * Without shards configured there is a single one and every call goes straight to the query
+ */
+@Component
+public class Shards {
+
+    public static final int HOME = 0;
+
+    private final int count;
+    private final long maxOffset;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final TransactionTemplate shardTransaction;
+
+    public Shards(ShardingProperties shardingProperties, PlatformTransactionManager transactionManager) {
+        this.count = 1 + shardingProperties.getUrls().size();
+        this.maxOffset = shardingProperties.getMaxOffset();
+
+        // A transaction is bound to the connection of the shard it started on, so each shard gets a new one
+        this.shardTransaction = new TransactionTemplate(transactionManager);
+        shardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        shardTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Get the number of shards
+     * @return the number of shards, 1 when sharding is off
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Check if there is more than one shard
+     * @return true when sharding is on
+     */
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    /**
+     * Get the shard of a customer, car or repair
+     * @param id
+     * @return the shard
+     */
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id - 1, (long) count);
+    }
+
+    /**
+     * Get the shard of a new customer, spreading them round robin
+     * @return the shard
+     */
+    public int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), count);
+    }
+
+    /**
+     * Run an action on a shard, without a transaction of its own
+     * It must not run inside a transaction that already used another shard
+     * @param shard
+     * @param action
+     * @return the result of the action
+     */
+    public <T> T on(int shard, Supplier<T> action) {
+        return ShardContext.run(shard, action);
+    }
+
+    /**
+     * Run an action on a shard with its reads pinned to the primary, for the reads a write is based on
+     * @param shard
+     * @param action
+     * @return the result of the action
+     */
+    public <T> T onPrimary(int shard, Supplier<T> action) {
+        return ShardContext.run(shard, () -> PrimaryContext.run(action));
+    }
+
+    /**
+     * Sum a count over every shard
+     * @param counter
+     * @return the total
+     */
+    public long sum(LongSupplier counter) {
+        if (!isSharded()) {
+            return counter.getAsLong();
+        }
+
+        long total = 0;
+        for (int shard = 0; shard < count; shard++) {
+            total += inTransaction(shard, counter::getAsLong);
+        }
+        return total;
+    }
+
+    /**
+     * Get a page of a list spread over every shard
+     * Any shard may hold every row of the page, so each one is asked for all the rows up to the end of the page
+     * and the merged rows are sliced again, which gets more expensive the deeper the page.
+     * Pages ending past the max offset are rejected, the cursor lists serve those at the cost of a single page
+     * @param pageable
+     * @param order order of the rows, the same the query sorts them by
+     * @param query query of a shard, called with a page starting at the first row
+     * @return rows sliced
+     * @throws PageTooDeepException when the page ends past the max offset
+     */
+    public <T> Slice<T> findAll(Pageable pageable, Comparator<? super T> order, Function<Pageable, Slice<T>> query) {
+        if (!isSharded()) {
+            return query.apply(pageable);
+        }
+
+        if (pageable.getOffset() + pageable.getPageSize() > maxOffset) {
+            throw new PageTooDeepException(String.format(ErrorMessages.PAGE_TOO_DEEP, maxOffset));
+        }
+
+        int offset = (int) pageable.getOffset();
+        Pageable head = PageRequest.of(0, offset + pageable.getPageSize(), pageable.getSort());
+        List<T> rows = new ArrayList<>();
+        boolean hasNext = false;
+        for (int shard = 0; shard < count; shard++) {
+            Slice<T> slice = inTransaction(shard, () -> query.apply(head));
+            rows.addAll(slice.getContent());
+            hasNext |= slice.hasNext();
+        }
+
+        rows.sort(order);
+        int from = Math.min(offset, rows.size());
+        int to = Math.min(offset + pageable.getPageSize(), rows.size());
+        return new SliceImpl<>(new ArrayList<>(rows.subList(from, to)), pageable, hasNext || rows.size() > to);
+    }
+
+    /**
+     * Get the first rows of a list spread over every shard, e.g. the ones after a cursor
+     * @param limit max rows, the query of each shard must return at most as many
+     * @param order order of the rows, the same the query sorts them by
+     * @param query query of a shard
+     * @return rows
+     */
+    public <T> List<T> findFirst(int limit, Comparator<? super T> order, Supplier<List<T>> query) {
+        if (!isSharded()) {
+            return query.get();
+        }
+
+        List<T> rows = new ArrayList<>();
+        for (int shard = 0; shard < count; shard++) {
+            rows.addAll(inTransaction(shard, query));
+        }
+
+        rows.sort(order);
+        return new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+    }
+
+    /**
+     * Helper to run an action on a shard in a read only transaction of its own
+     * @param shard
+     * @param action
+     * @return the result of the action
+     */
+    private <T> T inTransaction(int shard, Supplier<T> action) {
+        return ShardContext.run(shard, () -> shardTransaction.execute(status -> action.get()));
+    }
+}
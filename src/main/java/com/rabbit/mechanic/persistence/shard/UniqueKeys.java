@@ -0,0 +1,87 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import com.rabbit.mechanic.persistence.repository.UniqueKeyRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps emails and plates unique across shards
+ * The unique constraints of a shard only see its own rows, so values are reserved first in the
+ * unique keys directory of the home database. A failed reservation throws the same
+ * DataIntegrityViolationException a duplicate would throw in a single database.
+ * Without shards the unique constraints are enough and nothing is reserved
+ */
+@Component
+public class UniqueKeys {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(UniqueKeys.class);
+    public static final String EMAIL = "email";
+    public static final String PLATE = "plate";
+
+    private final UniqueKeyRepository uniqueKeyRepository;
+    private final Shards shards;
+    private final TransactionTemplate homeTransaction;
+
+    public UniqueKeys(UniqueKeyRepository uniqueKeyRepository, Shards shards, PlatformTransactionManager transactionManager) {
+        this.uniqueKeyRepository = uniqueKeyRepository;
+        this.shards = shards;
+        this.homeTransaction = new TransactionTemplate(transactionManager);
+        homeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserve a value
+     * @param kind e.g. {@link #EMAIL}
+     * @param value
+     * @throws org.springframework.dao.DataIntegrityViolationException when it's already reserved
+     */
+    public void reserve(String kind, String value) {
+        if (shards.isSharded()) {
+            LOGGER.debug("Reserving {} {}", kind, value);
+            onHome(() -> uniqueKeyRepository.insert(key(kind, value)));
+        }
+    }
+
+    /**
+     * Release a value, e.g. after its row was deleted or its reservation wasn't used
+     * A failure is only logged, the row change it follows is already done or undone,
+     * and the value stays reserved until released by hand
+     * @param kind e.g. {@link #EMAIL}
+     * @param value
+     */
+    public void release(String kind, String value) {
+        if (!shards.isSharded()) {
+            return;
+        }
+
+        LOGGER.debug("Releasing {} {}", kind, value);
+        try {
+            onHome(() -> uniqueKeyRepository.deleteByUniqueKey(key(kind, value)));
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to release {} {}", kind, value, e);
+        }
+    }
+
+    /**
+     * Helper to run an action in a transaction of its own on the home database
+     * @param action
+     */
+    private void onHome(Runnable action) {
+        shards.on(Shards.HOME, () -> homeTransaction.execute(status -> {
+            action.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Helper to build the key of a value
+     */
+    private static String key(String kind, String value) {
+        return kind + ":" + value;
+    }
+}
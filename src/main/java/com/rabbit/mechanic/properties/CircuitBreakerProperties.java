@@ -0,0 +1,17 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Database circuit breaker properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.circuit-breaker")
+public class CircuitBreakerProperties {
+
+    private Integer failureThreshold;
+    private Long openDuration;
+}
@@ -0,0 +1,19 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Details cache properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.details-cache")
+public class DetailsCacheProperties {
+
+    private Long maximumSize;
+    private Long refreshAfter;
+    private Long expiresIn;
+    private Integer queueCapacity;
+}
@@ -0,0 +1,20 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache invalidation bus properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.invalidation")
+public class InvalidationProperties {
+
+    private String mode;
+    private Long pollInterval;
+    private Long lookback;
+    private Long retention;
+    private Integer queueCapacity;
+}
@@ -14,4 +14,9 @@ public class JwtProperties {
 
     private String secretKey;
     private Long expiresIn;
+    private Long clockSkewSeconds;
+    private Boolean statelessPrincipal;
+    private Long revocationPurgeInterval;
+    private Long refreshExpiresIn;
+    private Long refreshPurgeInterval;
 }
\ No newline at end of file
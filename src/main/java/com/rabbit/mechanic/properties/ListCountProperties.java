@@ -0,0 +1,18 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * List count cache properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.list-count")
+public class ListCountProperties {
+
+    private Long refreshAfter;
+    private Integer queueCapacity;
+    private Long maximumSize;
+}
@@ -0,0 +1,24 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Login throttle properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.login-throttle")
+public class LoginThrottleProperties {
+
+    private Integer usernameCapacity;
+    private Long usernameRefillPeriod;
+    private Integer addressCapacity;
+    private Long addressRefillPeriod;
+    private Integer accountCapacity;
+    private Long accountRefillPeriod;
+    private Long accountMaxDelay;
+    private String trustedProxies;
+    private Long maximumBuckets;
+}
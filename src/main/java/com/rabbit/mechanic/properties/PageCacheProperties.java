@@ -0,0 +1,17 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * List page cache properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.page-cache")
+public class PageCacheProperties {
+
+    private Long maximumWeight;
+    private Long expiresIn;
+}
@@ -0,0 +1,25 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pagination properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.pagination")
+public class PaginationProperties {
+
+    private Integer maxSize;
+
+    /**
+     * Limit the page size requested to between 1 and the max size
+     * @param size page size requested
+     * @return the page size to use
+     */
+    public int limit(int size) {
+        return Math.max(1, Math.min(size, maxSize));
+    }
+}
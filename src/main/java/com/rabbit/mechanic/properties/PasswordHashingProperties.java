@@ -0,0 +1,22 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Password hashing properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.password-hashing")
+public class PasswordHashingProperties {
+
+    private Integer poolSize;
+    private Integer queueCapacity;
+    private Long timeout;
+    private Integer strength;
+    private Integer minStrength;
+    private Integer maxStrength;
+    private Long targetVerificationMillis;
+}
@@ -0,0 +1,17 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Principal cache properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.principal-cache")
+public class PrincipalCacheProperties {
+
+    private Long maximumSize;
+    private Long expiresIn;
+}
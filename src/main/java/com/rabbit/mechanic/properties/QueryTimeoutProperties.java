@@ -0,0 +1,17 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Query timeout properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.query-timeout")
+public class QueryTimeoutProperties {
+
+    private Integer read;
+    private Integer write;
+}
@@ -0,0 +1,21 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read replica properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.replica")
+public class ReplicaProperties {
+
+    private String url;
+    private String username;
+    private String password;
+    private Integer maximumPoolSize;
+    private Long readYourWritesWindow;
+    private Long maximumClients;
+}
@@ -0,0 +1,24 @@
+package com.rabbit.mechanic.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharding properties
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rabbit-mechanic.sharding")
+public class ShardingProperties {
+
+    // Urls of the shards after the home database, shard 0 being the spring.datasource one
+    private List<String> urls = new ArrayList<>();
+    private String username;
+    private String password;
+    private Integer maximumPoolSize;
+    private Integer maxOffset;
+}
@@ -0,0 +1,30 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Roles allowed to call a handler
+ * On a controller it applies to all its handlers, unless the handler has its own annotation.
+ * Resolved once at startup by {@link RoleAuthorizationInterceptor}
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AllowedRoles {
+
+    /**
+     * Roles allowed
+     */
+    EmployeeRoles[] value();
+
+    /**
+     * Name of a path variable with an employee id, when set the employee with that id is also allowed
+     */
+    String orSelf() default "";
+}
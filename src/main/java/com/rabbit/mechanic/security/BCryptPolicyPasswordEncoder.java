@@ -0,0 +1,48 @@
+package com.rabbit.mechanic.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BCryptPasswordEncoder} that asks for a rehash whenever the stored hash
+ * was created with another strength than the current one, so lowering the strength takes effect too.
+ * Every instance must hash with the same strength, otherwise they keep rehashing each other's hashes
+ */
+public class BCryptPolicyPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+
+    public BCryptPolicyPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Get the strength used for new hashes
+     * @return the strength
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * @see BCryptPasswordEncoder#upgradeEncoding(String)
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+
+        return Integer.parseInt(matcher.group(2)) != strength;
+    }
+}
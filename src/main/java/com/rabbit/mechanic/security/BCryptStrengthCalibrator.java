@@ -0,0 +1,69 @@
+package com.rabbit.mechanic.security;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt strength for the current hardware
+ * Each extra round doubles the hashing time, so the time is measured once at a base strength
+ * and the strength is moved up or down until the estimate is as close as possible to the target without exceeding it
+ */
+public class BCryptStrengthCalibrator {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(BCryptStrengthCalibrator.class);
+
+    private static final int BASE_STRENGTH = 10;
+    private static final int SAMPLES = 3;
+    private static final String CALIBRATION_PASSWORD = "rabbit-mechanic-calibration";
+
+    /**
+     * Calibrate the BCrypt strength
+     * @param minStrength lowest strength allowed
+     * @param maxStrength highest strength allowed
+     * @param targetMillis wanted verification time in milliseconds
+     * @return the strength to use
+     */
+    public static int calibrate(int minStrength, int maxStrength, long targetMillis) {
+
+        int strength = Math.max(minStrength, Math.min(maxStrength, BASE_STRENGTH));
+        double estimatedMillis = measure(strength);
+
+        // Move up while the next round still fits the target
+        while (strength < maxStrength && estimatedMillis * 2 <= targetMillis) {
+            strength++;
+            estimatedMillis *= 2;
+        }
+
+        // Move down while over the target
+        while (strength > minStrength && estimatedMillis > targetMillis) {
+            strength--;
+            estimatedMillis /= 2;
+        }
+
+        LOGGER.info("BCrypt strength calibrated to {} (estimated {} ms, target {} ms)",
+                strength, Math.round(estimatedMillis), targetMillis);
+        return strength;
+    }
+
+    /**
+     * Helper to measure the hashing time at the given strength
+     * @param strength
+     * @return fastest of the samples in milliseconds
+     */
+    private static double measure(int strength) {
+        String salt = BCrypt.gensalt(strength);
+
+        // Warm up
+        BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest / 1_000_000.0;
+    }
+}
@@ -0,0 +1,129 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.PasswordHashingUnavailableException;
+import com.rabbit.mechanic.properties.PasswordHashingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * {@link PasswordEncoder} that runs the delegate on a dedicated, size bounded pool
+ * so slow hashing (e.g. BCrypt) can't starve the request threads.
+ * When the pool and its queue are full the request fails fast with {@link PasswordHashingUnavailableException}
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeout;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties passwordHashingProperties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeout = passwordHashingProperties.getTimeout();
+        this.executor = new ThreadPoolExecutor(
+                passwordHashingProperties.getPoolSize(),
+                passwordHashingProperties.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordHashingProperties.getQueueCapacity()),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // Metrics
+        this.encodeTimer = Timer.builder("password.hashing.duration")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .register(meterRegistry);
+        meterRegistry.gauge("password.hashing.queue.size", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    /**
+     * @see PasswordEncoder#encode(CharSequence)
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    /**
+     * @see PasswordEncoder#matches(CharSequence, String)
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * @see PasswordEncoder#upgradeEncoding(String)
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stop the hashing pool, called by spring when the context is closed
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Helper to run the hashing task on the pool and wait for its result
+     * @param task the hashing task
+     * @return the result of the task
+     */
+    private <T> T execute(Supplier<T> task) {
+
+        // Submit task, failing fast when both the pool and the queue are full
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            LOGGER.warn("Password hashing pool saturated, rejecting request");
+            throw new PasswordHashingUnavailableException(ErrorMessages.PASSWORD_HASHING_UNAVAILABLE);
+        }
+
+        // Wait for the result
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            LOGGER.warn("Password hashing didn't finish in {} ms, rejecting request", timeout);
+            throw new PasswordHashingUnavailableException(ErrorMessages.PASSWORD_HASHING_UNAVAILABLE);
+
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException(ErrorMessages.PASSWORD_HASHING_UNAVAILABLE);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
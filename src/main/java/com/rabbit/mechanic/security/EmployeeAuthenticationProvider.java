@@ -24,7 +24,7 @@ public class EmployeeAuthenticationProvider {
     /**
      * Validate jwt token
      * @param token
-     * @return {@Authentication} with authenticated employee
+     * @return {@Authentication} with authenticated employee and the token as credentials
      */
     public Authentication validateToken(String token) {
 
@@ -33,7 +33,7 @@ public class EmployeeAuthenticationProvider {
 
         return new UsernamePasswordAuthenticationToken(
                 principal,
-                null,
+                token,
                 Collections.singletonList(new SimpleGrantedAuthority(principal.getEmployeeRole().name()))
         );
     }
@@ -0,0 +1,119 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import com.rabbit.mechanic.properties.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Date;
+
+/**
+ * Jwt token verifier
+ * Holds the HMAC key derived once from the configured secret and a parser configured once
+ * at startup, which is never mutated afterwards and therefore safe to share between requests
+ */
+@Component
+public class JwtTokenVerifier {
+
+    public static final String EMPLOYEE_ID_CLAIM = "employeeId";
+    public static final String FIRST_NAME_CLAIM = "firstName";
+    public static final String LAST_NAME_CLAIM = "lastName";
+    public static final String ROLE_CLAIM = "role";
+    public static final String SESSION_CLAIM = "session";
+    public static final String ISSUED_AT_MILLIS_CLAIM = "issuedAtMillis";
+
+    private final Key key;
+    private final JwtParser parser;
+    private final long clockSkewMillis;
+
+    public JwtTokenVerifier(JwtProperties jwtProperties) {
+        this.key = new SecretKeySpec(jwtProperties.getSecretKey().getBytes(), SignatureAlgorithm.HS256.getJcaName());
+        this.clockSkewMillis = jwtProperties.getClockSkewSeconds() * 1000;
+        this.parser = Jwts.parser()
+                .setSigningKey(key)
+                .setAllowedClockSkewSeconds(jwtProperties.getClockSkewSeconds());
+    }
+
+    /**
+     * Get the HMAC key used to sign and verify tokens
+     * @return {@link Key}
+     */
+    public Key getKey() {
+        return key;
+    }
+
+    /**
+     * Verify token signature, expiration and issued at and extract its claims
+     * @param token
+     * @return {@link TokenClaims} claims of the token
+     */
+    public TokenClaims verify(String token) {
+
+        // Parse token (if the token has expired or has an invalid signature it will throw an exception)
+        Claims claims = parser.parseClaimsJws(token).getBody();
+
+        // Reject tokens without issued at or issued in the future
+        Date issuedAt = getIssuedAt(claims);
+        if (issuedAt == null) {
+            throw new MalformedJwtException("Token without issued at");
+        }
+        if (issuedAt.getTime() - clockSkewMillis > System.currentTimeMillis()) {
+            throw new PrematureJwtException(null, claims, "Token issued in the future");
+        }
+
+        return TokenClaims.builder()
+                .tokenId(claims.getId())
+                .employeeId(getEmployeeId(claims))
+                .firstName(claims.get(FIRST_NAME_CLAIM, String.class))
+                .lastName(claims.get(LAST_NAME_CLAIM, String.class))
+                .role(getRole(claims))
+                .sessionId(claims.get(SESSION_CLAIM, String.class))
+                .issuedAt(issuedAt)
+                .expiresAt(claims.getExpiration())
+                .build();
+    }
+
+    /**
+     * Helper to get the employee id claim
+     * @param claims
+     * @return the employee id
+     */
+    private long getEmployeeId(Claims claims) {
+        Object employeeId = claims.get(EMPLOYEE_ID_CLAIM);
+        if (!(employeeId instanceof Number)) {
+            throw new MalformedJwtException("Token without employee id");
+        }
+        return ((Number) employeeId).longValue();
+    }
+
+    /**
+     * Helper to get the issued at in milliseconds, the standard claim only has seconds
+     * @param claims
+     * @return the issued at, truncated to seconds for tokens issued without the milliseconds claim
+     */
+    private Date getIssuedAt(Claims claims) {
+        Object issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM);
+        return issuedAtMillis instanceof Number ? new Date(((Number) issuedAtMillis).longValue()) : claims.getIssuedAt();
+    }
+
+    /**
+     * Helper to get the role claim
+     * @param claims
+     * @return {@link EmployeeRoles} the role
+     */
+    private EmployeeRoles getRole(Claims claims) {
+        String role = claims.get(ROLE_CLAIM, String.class);
+        try {
+            return EmployeeRoles.valueOf(role);
+        } catch (RuntimeException e) {
+            throw new MalformedJwtException("Token with invalid role " + role, e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.rabbit.mechanic.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.TooManyLoginAttemptsException;
+import com.rabbit.mechanic.properties.LoginThrottleProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Login throttle
+ * Token buckets per client address, per username and client address pair and per username, checked before
+ * any database or hashing work. The username bucket is larger and slows down guessing spread over many addresses,
+ * delaying the attempts instead of rejecting them, so nobody can lock the owner of an account out of it.
+ * Behind trusted proxies the client address is taken from the X-Forwarded-For header. Each bucket is a single atomic timestamp updated with compare and set (GCRA), so no lock
+ * is taken, and idle buckets expire once they are full again, which keeps memory bounded
+ */
+@Component
+public class LoginThrottle {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(LoginThrottle.class);
+
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final Limiter addressLimiter;
+    private final Limiter usernameLimiter;
+    private final Limiter accountLimiter;
+    private final long accountMaxDelay;
+    private final Pattern trustedProxies;
+    private final Counter addressThrottled;
+    private final Counter usernameThrottled;
+    private final Counter accountThrottled;
+
+    public LoginThrottle(LoginThrottleProperties loginThrottleProperties, MeterRegistry meterRegistry) {
+        this.addressLimiter = new Limiter(loginThrottleProperties.getAddressCapacity(),
+                loginThrottleProperties.getAddressRefillPeriod(), loginThrottleProperties.getMaximumBuckets());
+        this.usernameLimiter = new Limiter(loginThrottleProperties.getUsernameCapacity(),
+                loginThrottleProperties.getUsernameRefillPeriod(), loginThrottleProperties.getMaximumBuckets());
+        this.accountLimiter = new Limiter(loginThrottleProperties.getAccountCapacity(),
+                loginThrottleProperties.getAccountRefillPeriod(), loginThrottleProperties.getMaximumBuckets());
+        this.accountMaxDelay = TimeUnit.MILLISECONDS.toNanos(loginThrottleProperties.getAccountMaxDelay());
+        this.trustedProxies = StringUtils.hasText(loginThrottleProperties.getTrustedProxies())
+                ? Pattern.compile(loginThrottleProperties.getTrustedProxies())
+                : null;
+        this.addressThrottled = throttledCounter(meterRegistry, "address");
+        this.usernameThrottled = throttledCounter(meterRegistry, "username");
+        this.accountThrottled = throttledCounter(meterRegistry, "account");
+        meterRegistry.gauge("auth.login.throttle.buckets", this, throttle -> throttle.addressLimiter.buckets.estimatedSize()
+                + throttle.usernameLimiter.buckets.estimatedSize() + throttle.accountLimiter.buckets.estimatedSize());
+    }
+
+    /**
+     * Get the address of the client of a request
+     * Forwarded addresses are read right to left while the hop they came from is a trusted proxy,
+     * the ones further left are set by the client and can't be trusted
+     * @param request
+     * @return the client address
+     */
+    public String clientAddress(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (trustedProxies == null || forwardedFor == null) {
+            return address;
+        }
+
+        String[] forwarded = forwardedFor.split(",");
+        for (int i = forwarded.length - 1; i >= 0 && isTrustedProxy(address); i--) {
+            String hop = forwarded[i].trim();
+            if (!hop.isEmpty()) {
+                address = hop;
+            }
+        }
+        return address;
+    }
+
+    /**
+     * Take a login attempt from the buckets of the address, of the username from the address and of the username
+     * @param username
+     * @param remoteAddress client address, see {@link #clientAddress(HttpServletRequest)}
+     * @throws TooManyLoginAttemptsException when the bucket of the address or of the username from the address is empty
+     */
+    public void acquire(String username, String remoteAddress) {
+        long now = System.nanoTime();
+
+        long addressWait = addressLimiter.tryAcquire(remoteAddress, now);
+        if (addressWait > 0) {
+            addressThrottled.increment();
+            LOGGER.warn("Throttled login attempt from address {}", remoteAddress);
+            throw tooManyAttempts(addressWait);
+        }
+
+        String normalizedUsername = username == null ? "" : username.toLowerCase(Locale.ROOT);
+        long usernameWait = usernameLimiter.tryAcquire(normalizedUsername + '|' + remoteAddress, now);
+        if (usernameWait > 0) {
+            usernameThrottled.increment();
+            LOGGER.warn("Throttled login attempt for username {} from address {}", username, remoteAddress);
+            throw tooManyAttempts(usernameWait);
+        }
+
+        // Any address can empty the bucket of the username, so rejecting would lock its owner out, it only delays
+        long accountWait = accountLimiter.tryAcquire(normalizedUsername, now);
+        if (accountWait > 0) {
+            accountThrottled.increment();
+            LOGGER.warn("Delayed login attempt for username {} from address {}", username, remoteAddress);
+            delay(Math.min(accountWait, accountMaxDelay));
+        }
+    }
+
+    /**
+     * Helper to check if an address belongs to a trusted proxy
+     * @param address
+     * @return true when its X-Forwarded-For header is trusted
+     */
+    private boolean isTrustedProxy(String address) {
+        return address != null && trustedProxies.matcher(address).matches();
+    }
+
+    /**
+     * Helper to slow down a login attempt
+     * @param delayNanos
+     */
+    private static void delay(long delayNanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Helper to build the exception with the time to wait rounded up to seconds
+     * @param waitNanos
+     * @return {@link TooManyLoginAttemptsException}
+     */
+    private static TooManyLoginAttemptsException tooManyAttempts(long waitNanos) {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return new TooManyLoginAttemptsException(ErrorMessages.TOO_MANY_LOGIN_ATTEMPTS, retryAfterSeconds);
+    }
+
+    /**
+     * Helper to register the throttled attempts counter
+     * @param meterRegistry
+     * @param key
+     * @return {@link Counter}
+     */
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected by the throttle")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Token buckets of one kind of key
+     */
+    private static final class Limiter {
+
+        private final long emissionInterval;
+        private final long burstTolerance;
+        private final Cache<String, AtomicLong> buckets;
+
+        Limiter(int capacity, long refillPeriodMillis, long maximumBuckets) {
+            this.emissionInterval = TimeUnit.MILLISECONDS.toNanos(refillPeriodMillis);
+            this.burstTolerance = emissionInterval * (capacity - 1);
+
+            // A bucket untouched for capacity refill periods is full again, so forgetting it changes nothing
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maximumBuckets)
+                    .expireAfterAccess(emissionInterval * capacity, TimeUnit.NANOSECONDS)
+                    .build();
+        }
+
+        /**
+         * Take a token from the bucket of the key
+         * @param key
+         * @param now current {@link System#nanoTime()}
+         * @return 0 if a token was taken, otherwise the nanoseconds until the next one
+         */
+        long tryAcquire(String key, long now) {
+            // The bucket holds the theoretical arrival time of the next attempt, starting empty means a full bucket
+            AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now - emissionInterval));
+
+            while (true) {
+                long arrival = bucket.get();
+                long earliest = Math.max(arrival, now);
+                long wait = earliest - burstTolerance - now;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (bucket.compareAndSet(arrival, earliest + emissionInterval)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
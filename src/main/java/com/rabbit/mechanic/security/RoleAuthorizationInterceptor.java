@@ -0,0 +1,165 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import com.rabbit.mechanic.error.ErrorMessages;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Role authorization interceptor
+ * Resolves the {@link AllowedRoles} of every handler into a role bitmask once at startup,
+ * so each request only does a map lookup and a bitwise and against the role of the principal
+ */
+@Component
+public class RoleAuthorizationInterceptor implements HandlerInterceptor, SmartInitializingSingleton {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(RoleAuthorizationInterceptor.class);
+
+    private final ApplicationContext applicationContext;
+    private volatile Map<Method, HandlerRule> rules = Collections.emptyMap();
+
+    public RoleAuthorizationInterceptor(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Resolve the rules of all request handlers
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        RequestMappingHandlerMapping handlerMapping =
+                applicationContext.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        registerHandlers(handlerMapping.getHandlerMethods().values());
+    }
+
+    /**
+     * Resolve the rules of the given handlers, replacing the current ones
+     * @param handlerMethods
+     */
+    public void registerHandlers(Collection<HandlerMethod> handlerMethods) {
+        Map<Method, HandlerRule> resolved = new HashMap<>();
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            HandlerRule rule = resolveRule(handlerMethod);
+            if (rule != null) {
+                resolved.put(handlerMethod.getMethod(), rule);
+            }
+        }
+
+        rules = resolved;
+        LOGGER.info("Resolved allowed roles of {} handlers", resolved.size());
+    }
+
+    /**
+     * Check the role of the principal before the handler is called
+     * @see HandlerInterceptor#preHandle(HttpServletRequest, HttpServletResponse, Object)
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+
+        HandlerRule rule = rules.get(((HandlerMethod) handler).getMethod());
+        if (rule == null) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof PrincipalDto)) {
+            throw new AccessDeniedException(ErrorMessages.ACCESS_DENIED);
+        }
+
+        PrincipalDto principal = (PrincipalDto) authentication.getPrincipal();
+        if (rule.isAllowed(principal, request)) {
+            return true;
+        }
+
+        LOGGER.warn("Employee with id {} is not allowed to {} {}", principal.getEmployeeId(), request.getMethod(), request.getRequestURI());
+        throw new AccessDeniedException(ErrorMessages.ACCESS_DENIED);
+    }
+
+    /**
+     * Helper to resolve the rule of a handler, the annotation on the method wins over the one on the controller
+     * @param handlerMethod
+     * @return {@link HandlerRule} or null if the handler isn't annotated
+     */
+    private static HandlerRule resolveRule(HandlerMethod handlerMethod) {
+        AllowedRoles allowedRoles = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), AllowedRoles.class);
+        if (allowedRoles == null) {
+            allowedRoles = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), AllowedRoles.class);
+        }
+        if (allowedRoles == null) {
+            return null;
+        }
+
+        return new HandlerRule(
+                EmployeeRoles.maskOf(allowedRoles.value()),
+                allowedRoles.orSelf().isEmpty() ? null : allowedRoles.orSelf());
+    }
+
+    /**
+     * Resolved rule of a handler
+     */
+    static final class HandlerRule {
+
+        private final int roleMask;
+        private final String selfPathVariable;
+
+        HandlerRule(int roleMask, String selfPathVariable) {
+            this.roleMask = roleMask;
+            this.selfPathVariable = selfPathVariable;
+        }
+
+        /**
+         * Check if the principal is allowed
+         * @param principal
+         * @param request
+         * @return true if allowed
+         */
+        boolean isAllowed(PrincipalDto principal, HttpServletRequest request) {
+            if ((principal.getRoleMask() & roleMask) != 0) {
+                return true;
+            }
+            return selfPathVariable != null && isSelf(principal, request);
+        }
+
+        /**
+         * Helper to check if the path variable holds the id of the principal
+         * @param principal
+         * @param request
+         * @return true if the principal is the employee of the path
+         */
+        @SuppressWarnings("unchecked")
+        private boolean isSelf(PrincipalDto principal, HttpServletRequest request) {
+            Map<String, String> pathVariables =
+                    (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            if (pathVariables == null) {
+                return false;
+            }
+
+            String employeeId = pathVariables.get(selfPathVariable);
+            return employeeId != null && employeeId.equals(String.valueOf(principal.getEmployeeId()));
+        }
+    }
+}
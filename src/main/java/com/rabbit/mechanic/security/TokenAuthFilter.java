@@ -0,0 +1,205 @@
+package com.rabbit.mechanic.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.error.Error;
+import com.rabbit.mechanic.exception.DatabaseUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token authentication filter
+ * Resolves the token from the Bearer header or, when absent, from the auth cookie,
+ * so at most one token is validated per request. Public requests are not filtered at all
+ */
+public class TokenAuthFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LogManager.getLogger(TokenAuthFilter.class);
+    public final static String COOKIE_NAME = "auth_by_cookie";
+    private final static String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * Requests that don't need authentication
+     */
+    public final static RequestMatcher PUBLIC_REQUESTS = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/auth/login", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/api/auth/refresh", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/api/swagger-ui.html"),
+            new AntPathRequestMatcher("/api/swagger-ui/*"),
+            new AntPathRequestMatcher("/v3/api-docs"),
+            new AntPathRequestMatcher("/v3/api-docs/*"),
+            new AntPathRequestMatcher("/api/health")
+    );
+
+    private final EmployeeAuthenticationProvider employeeAuthenticationProvider;
+    private final ObjectMapper objectMapper;
+    private final Timer headerSuccessTimer;
+    private final Timer headerFailureTimer;
+    private final Timer cookieSuccessTimer;
+    private final Timer cookieFailureTimer;
+    private final Timer noTokenTimer;
+
+    public TokenAuthFilter(EmployeeAuthenticationProvider employeeAuthenticationProvider, MeterRegistry meterRegistry,
+                           ObjectMapper objectMapper) {
+        this.employeeAuthenticationProvider = employeeAuthenticationProvider;
+        this.objectMapper = objectMapper;
+        this.headerSuccessTimer = authTimer(meterRegistry, "header", "success");
+        this.headerFailureTimer = authTimer(meterRegistry, "header", "failure");
+        this.cookieSuccessTimer = authTimer(meterRegistry, "cookie", "success");
+        this.cookieFailureTimer = authTimer(meterRegistry, "cookie", "failure");
+        this.noTokenTimer = authTimer(meterRegistry, "none", "anonymous");
+    }
+
+    /**
+     * Skip public requests
+     * @param request
+     * @return true if the request doesn't need authentication
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PUBLIC_REQUESTS.matches(request);
+    }
+
+    /**
+     * Filter implementation to authenticate with the token if provided
+     * @param httpServletRequest
+     * @param httpServletResponse
+     * @param filterChain
+     * @throws ServletException
+     * @throws IOException
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest httpServletRequest,
+                                    HttpServletResponse httpServletResponse,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        long start = System.nanoTime();
+
+        // Resolve token, header first then cookie
+        boolean fromHeader = true;
+        String token = getBearerToken(httpServletRequest);
+        if (token == null) {
+            fromHeader = false;
+            token = getCookieToken(httpServletRequest);
+        }
+
+        if (token == null) {
+            noTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else {
+            try {
+                Authentication auth = employeeAuthenticationProvider.validateToken(token);
+                SecurityContextHolder.getContext().setAuthentication(auth);
+
+                (fromHeader ? headerSuccessTimer : cookieSuccessTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                LOGGER.debug("Employee id {} successfully authenticated via {}",
+                        ((PrincipalDto) auth.getPrincipal()).getEmployeeId(), fromHeader ? "token" : "cookie");
+            } catch (DatabaseUnavailableException e) {
+                // The token may well be valid, so answer 503 instead of leaving the request unauthenticated
+                SecurityContextHolder.clearContext();
+                (fromHeader ? headerFailureTimer : cookieFailureTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                LOGGER.error("Database unavailable while validating {}", fromHeader ? "token" : "cookie");
+                writeServiceUnavailable(httpServletRequest, httpServletResponse, e);
+                return;
+
+            } catch (RuntimeException e) {
+                // Leave the request unauthenticated so the entry point answers with 401
+                SecurityContextHolder.clearContext();
+                (fromHeader ? headerFailureTimer : cookieFailureTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                LOGGER.error("Failed to validate {}", fromHeader ? "token" : "cookie", e);
+            }
+        }
+
+        // Always call this in order to tell Spring Security to continue
+        filterChain.doFilter(httpServletRequest, httpServletResponse);
+    }
+
+    /**
+     * Helper to answer 503 with the same error body as the exception handler
+     * @param request
+     * @param response
+     * @param e
+     * @throws IOException
+     */
+    private void writeServiceUnavailable(HttpServletRequest request, HttpServletResponse response,
+                                         DatabaseUnavailableException e) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+
+        objectMapper.writeValue(
+                response.getOutputStream(),
+                Error.builder()
+                        .timestamp(new Date())
+                        .message(e.getMessage())
+                        .method(request.getMethod())
+                        .path(request.getRequestURI())
+                        .build()
+        );
+    }
+
+    /**
+     * Helper to get the token from the authorization header
+     * @param request
+     * @return the token or null if not provided
+     */
+    private String getBearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX) || header.length() == BEARER_PREFIX.length()) {
+            return null;
+        }
+        return header.substring(BEARER_PREFIX.length());
+    }
+
+    /**
+     * Helper to get the token from the auth cookie
+     * @param request
+     * @return the token or null if not provided
+     */
+    private String getCookieToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Helper to register the auth latency timer
+     * @param meterRegistry
+     * @param source
+     * @param outcome
+     * @return {@link Timer}
+     */
+    private static Timer authTimer(MeterRegistry meterRegistry, String source, String outcome) {
+        return Timer.builder("auth.filter.duration")
+                .description("Time spent authenticating a request")
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
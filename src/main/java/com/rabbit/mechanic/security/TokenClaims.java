@@ -0,0 +1,24 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Typed claims of a verified jwt token
+ */
+@Data
+@Builder
+public class TokenClaims {
+
+    private String tokenId;
+    private long employeeId;
+    private String firstName;
+    private String lastName;
+    private EmployeeRoles role;
+    private String sessionId;
+    private Date issuedAt;
+    private Date expiresAt;
+}
@@ -0,0 +1,126 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.properties.JwtProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory token revocation store
+ * Keeps the time until which the tokens of an employee are revoked, set when the role of the employee changes
+ * or the employee is deleted, and a denylist of logged out token ids that only lives until the tokens expire.
+ * Revocations are compared with the issued at of the tokens in milliseconds, so they hold whichever instance issued
+ * a token, as long as the clocks of the instances agree. Tokens are dated {@link #issuedAt(long)}, always after the
+ * revocations so far, and revocations are never dated before the last token dated, even within a millisecond.
+ * Nothing survives a restart, so only tokens issued after the store was created are tracked by it
+ */
+@Component
+public class TokenRevocationStore {
+
+    // Logger
+    private static final Logger LOGGER = LogManager.getLogger(TokenRevocationStore.class);
+
+    private final long tokenLifetime;
+    private final Map<Long, Long> revokedUntil = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong lastIssuedAt = new AtomicLong();
+    private volatile long trackingSince = System.currentTimeMillis();
+
+    public TokenRevocationStore(JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this.tokenLifetime = jwtProperties.getExpiresIn();
+        meterRegistry.gaugeMapSize("auth.revoked.tokens", Tags.empty(), revokedTokens);
+    }
+
+    /**
+     * Get the issued at of a token of an employee, after any revocation of its tokens so far
+     * Read before the principal of the token is loaded, so a role change racing with it revokes the token
+     * @param employeeId
+     * @return the issued at of the token
+     */
+    public Date issuedAt(long employeeId) {
+        long after = Math.max(trackingSince, revokedUntil.getOrDefault(employeeId, 0L));
+        long issuedAt = Math.max(System.currentTimeMillis(), after + 1);
+        lastIssuedAt.accumulateAndGet(issuedAt, Math::max);
+        return new Date(issuedAt);
+    }
+
+    /**
+     * Revoke all tokens issued so far to an employee, on this instance or another one
+     * @param employeeId
+     */
+    public void revokeEmployeeTokens(long employeeId) {
+        LOGGER.info("Revoking tokens of employee with id {}", employeeId);
+        revokedUntil.merge(employeeId, now(), Math::max);
+    }
+
+    /**
+     * Stop tracking all tokens issued so far, after revocations of other instances may have been missed
+     */
+    public void untrackIssuedTokens() {
+        LOGGER.warn("Untracking all issued tokens");
+        trackingSince = now();
+    }
+
+    /**
+     * Revoke a single token until it expires
+     * @param tokenId
+     * @param expiresAt
+     */
+    public void revokeToken(String tokenId, Date expiresAt) {
+        revokedTokens.put(tokenId, expiresAt.getTime());
+    }
+
+    /**
+     * Revoke a single token logged out on another instance, until any token issued now would expire
+     * @param tokenId
+     */
+    public void revokePeerToken(String tokenId) {
+        revokeToken(tokenId, new Date(System.currentTimeMillis() + tokenLifetime));
+    }
+
+    /**
+     * Check if a token was revoked
+     * @param tokenClaims
+     * @return true when revoked
+     */
+    public boolean isRevoked(TokenClaims tokenClaims) {
+        return tokenClaims.getIssuedAt().getTime() <= revokedUntil.getOrDefault(tokenClaims.getEmployeeId(), 0L)
+                || (tokenClaims.getTokenId() != null && revokedTokens.containsKey(tokenClaims.getTokenId()));
+    }
+
+    /**
+     * Check if a token was issued while this store was tracking revocations,
+     * which is required to trust its claims without going to the database
+     * @param tokenClaims
+     * @return true when tracked
+     */
+    public boolean isTracked(TokenClaims tokenClaims) {
+        return tokenClaims.getIssuedAt().getTime() > trackingSince;
+    }
+
+    /**
+     * Remove expired tokens from the denylist, and the revocations older than any token that isn't expired
+     */
+    @Scheduled(fixedDelayString = "${rabbit-mechanic.jwt.revocationPurgeInterval}")
+    public void purgeExpiredTokens() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        revokedUntil.values().removeIf(until -> until < now - tokenLifetime);
+    }
+
+    /**
+     * Helper to get the current time, or the last issued at when a token was dated ahead of it
+     * @return the time in milliseconds
+     */
+    private long now() {
+        return Math.max(System.currentTimeMillis(), lastIssuedAt.get());
+    }
+}
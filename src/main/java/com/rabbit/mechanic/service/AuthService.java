@@ -3,6 +3,7 @@ package com.rabbit.mechanic.service;
 import com.rabbit.mechanic.command.auth.CredentialsDto;
 import com.rabbit.mechanic.command.auth.LoggedInDto;
 import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.command.auth.RefreshTokenDto;
 
 /**
  * Common interface for authorization operations
@@ -22,4 +23,17 @@ public interface AuthService {
      * @return {@link PrincipalDto} principal authenticated
      */
     PrincipalDto validateToken(String token);
+
+    /**
+     * Refresh access token, rotating the refresh token
+     * @param refreshTokenDto
+     * @return {@link LoggedInDto} logged in employee details with the new tokens
+     */
+    LoggedInDto refreshToken(RefreshTokenDto refreshTokenDto);
+
+    /**
+     * Logout employee, revoking the token until it expires and the refresh tokens of its session
+     * @param token
+     */
+    void logoutEmployee(String token);
 }
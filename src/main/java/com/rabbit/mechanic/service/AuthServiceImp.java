@@ -1,29 +1,43 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.cache.InvalidationBus;
+import com.rabbit.mechanic.cache.InvalidationListener;
+import com.rabbit.mechanic.cache.PrincipalCache;
 import com.rabbit.mechanic.command.auth.CredentialsDto;
 import com.rabbit.mechanic.command.auth.LoggedInDto;
 import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.command.auth.RefreshTokenDto;
 import com.rabbit.mechanic.converter.EmployeeConverter;
 import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.InvalidRefreshTokenException;
+import com.rabbit.mechanic.exception.RevokedTokenException;
 import com.rabbit.mechanic.exception.WrongCredentialsException;
 import com.rabbit.mechanic.exception.employee.EmployeeNotFoundException;
+import com.rabbit.mechanic.persistence.datasource.PrimaryContext;
 import com.rabbit.mechanic.persistence.entity.EmployeeEntity;
+import com.rabbit.mechanic.persistence.entity.RefreshTokenEntity;
 import com.rabbit.mechanic.persistence.repository.EmployeeRepository;
+import com.rabbit.mechanic.persistence.repository.RefreshTokenRepository;
 import com.rabbit.mechanic.properties.JwtProperties;
+import com.rabbit.mechanic.security.JwtTokenVerifier;
+import com.rabbit.mechanic.security.RefreshTokens;
+import com.rabbit.mechanic.security.TokenClaims;
+import com.rabbit.mechanic.security.TokenRevocationStore;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.annotation.PostConstruct;
-import java.util.Base64;
+import java.security.SecureRandom;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * An {@link AuthService} implementation
@@ -34,22 +48,32 @@ public class AuthServiceImp implements AuthService {
     //Logger
     private static final Logger LOGGER = LogManager.getLogger(AuthServiceImp.class);
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtProperties jwtProperties;
+    private final PrincipalCache principalCache;
+    private final JwtTokenVerifier jwtTokenVerifier;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final InvalidationBus invalidationBus;
 
-    private String secretKey;
-
-    public AuthServiceImp(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder, JwtProperties jwtProperties) {
+    public AuthServiceImp(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder, JwtProperties jwtProperties,
+                          PrincipalCache principalCache, JwtTokenVerifier jwtTokenVerifier, TokenRevocationStore tokenRevocationStore,
+                          RefreshTokenRepository refreshTokenRepository, InvalidationBus invalidationBus) {
         this.employeeRepository = employeeRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtProperties = jwtProperties;
-    }
-
+        this.principalCache = principalCache;
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.invalidationBus = invalidationBus;
 
-    @PostConstruct
-    protected void init() {
-        secretKey = Base64.getEncoder().encodeToString(jwtProperties.getSecretKey().getBytes());
+        // Revoke the tokens logged out on other instances
+        invalidationBus.subscribe(InvalidationBus.TOKENS, InvalidationListener.of(
+                tokenId -> tokenRevocationStore.revokePeerToken(Long.toString(tokenId)), tokenRevocationStore::untrackIssuedTokens));
     }
 
     /**
@@ -73,17 +97,76 @@ public class AuthServiceImp implements AuthService {
             throw new WrongCredentialsException(ErrorMessages.WRONG_CREDENTIALS);
         }
 
-        // Build principal for the logged in employee
-        PrincipalDto principal = EmployeeConverter.fromEmployeeEntityToPrincipalDto(employeeEntity);
+        // Rehash password when it was hashed with a lower strength than the current one
+        if (passwordEncoder.upgradeEncoding(employeeEntity.getEncryptedPassword())) {
+            rehashPassword(employeeEntity, credentialsDto.getPassword());
+        }
+
+        // Date the token before the principal is read, so a role change racing with this login revokes the new token
+        Date issuedAt = tokenRevocationStore.issuedAt(employeeEntity.getEmployeeId());
+
+        // Build principal for the logged in employee (reloaded in stateless mode since its claims will be trusted)
+        PrincipalDto principal = jwtProperties.getStatelessPrincipal()
+                ? loadPrincipal(employeeEntity.getEmployeeId())
+                : EmployeeConverter.fromEmployeeEntityToPrincipalDto(employeeEntity);
 
-        // Get JWT token
+        // Get JWT token and refresh token of a new session
         LOGGER.info("Generating JWT token for the employee with id {}...", employeeEntity.getEmployeeId());
-        String token = createJwtToken(principal);
+        String familyId = UUID.randomUUID().toString();
+        String token = createJwtToken(principal, issuedAt, familyId);
+        String refreshToken = createRefreshToken(employeeEntity, familyId);
+
+        // Build LoggedInDto for the response
+        return LoggedInDto.builder()
+                .principal(principal)
+                .token(token)
+                .refreshToken(refreshToken)
+                .build();
+    }
+
+    /**
+     * @see AuthService#refreshToken(RefreshTokenDto)
+     */
+    @Override
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public LoggedInDto refreshToken(RefreshTokenDto refreshTokenDto) {
+
+        // Get refresh token by its hash
+        RefreshTokenEntity refreshTokenEntity =
+                refreshTokenRepository.findByTokenHash(RefreshTokens.hash(refreshTokenDto.getRefreshToken()))
+                        .orElseThrow(() -> {
+                            LOGGER.error("Refresh token not found on database");
+                            return new InvalidRefreshTokenException(ErrorMessages.INVALID_REFRESH_TOKEN);
+                        });
+
+        if (refreshTokenEntity.getExpiresAt().before(new Date())) {
+            LOGGER.error("Refresh token with id {} expired", refreshTokenEntity.getRefreshTokenId());
+            throw new InvalidRefreshTokenException(ErrorMessages.INVALID_REFRESH_TOKEN);
+        }
+
+        // Mark token as used, if it was already used it's being replayed so the whole session is revoked
+        if (refreshTokenEntity.isUsed() || refreshTokenRepository.markAsUsed(refreshTokenEntity.getRefreshTokenId()) == 0) {
+            LOGGER.warn("Reuse of refresh token with id {}, revoking session of employee with id {}",
+                    refreshTokenEntity.getRefreshTokenId(), refreshTokenEntity.getEmployeeEntity().getEmployeeId());
+            refreshTokenRepository.deleteByFamilyId(refreshTokenEntity.getFamilyId());
+            throw new InvalidRefreshTokenException(ErrorMessages.INVALID_REFRESH_TOKEN);
+        }
+
+        // Build principal from the current employee, so role changes are picked up
+        EmployeeEntity employeeEntity = refreshTokenEntity.getEmployeeEntity();
+        Date issuedAt = tokenRevocationStore.issuedAt(employeeEntity.getEmployeeId());
+        PrincipalDto principal = EmployeeConverter.fromEmployeeEntityToPrincipalDto(employeeEntity);
+
+        // Get JWT token and the next refresh token of the session
+        LOGGER.info("Refreshing JWT token for the employee with id {}...", employeeEntity.getEmployeeId());
+        String token = createJwtToken(principal, issuedAt, refreshTokenEntity.getFamilyId());
+        String refreshToken = createRefreshToken(employeeEntity, refreshTokenEntity.getFamilyId());
 
         // Build LoggedInDto for the response
         return LoggedInDto.builder()
                 .principal(principal)
                 .token(token)
+                .refreshToken(refreshToken)
                 .build();
     }
 
@@ -93,48 +176,148 @@ public class AuthServiceImp implements AuthService {
     @Override
     public PrincipalDto validateToken(String token) {
 
-        // Parse token (if the token is has expired or has an invalid signature it will throw an exception)
-        Jws<Claims> jwtClaims = Jwts.parser()
-                .setSigningKey(secretKey)
-                .parseClaimsJws(token);
+        // Verify token (if the token has expired or has an invalid signature it will throw an exception)
+        TokenClaims tokenClaims = jwtTokenVerifier.verify(token);
+
+        // Reject tokens revoked by a logout or by a role change or removal of the employee
+        if (tokenRevocationStore.isRevoked(tokenClaims)) {
+            LOGGER.warn("Revoked token used by employee with id {}", tokenClaims.getEmployeeId());
+            throw new RevokedTokenException(ErrorMessages.TOKEN_REVOKED);
+        }
+
+        // In stateless mode trust the claims of tokens whose revocations are tracked
+        if (jwtProperties.getStatelessPrincipal() && tokenRevocationStore.isTracked(tokenClaims)) {
+            return EmployeeConverter.fromTokenClaimsToPrincipalDto(tokenClaims);
+        }
+
+        // Get principal from cache, only going to the database on a miss
+        return principalCache.get(tokenClaims.getEmployeeId(), this::loadPrincipal);
+    }
+
+    /**
+     * @see AuthService#logoutEmployee(String)
+     */
+    @Override
+    @Transactional
+    public void logoutEmployee(String token) {
+
+        // Verify token to get its id and expiration
+        TokenClaims tokenClaims = jwtTokenVerifier.verify(token);
+        if (tokenClaims.getTokenId() == null) {
+            LOGGER.warn("Token of employee with id {} has no id and can't be revoked", tokenClaims.getEmployeeId());
+            return;
+        }
+
+        // Revoke token until it expires
+        LOGGER.debug("Revoking token of employee with id {}", tokenClaims.getEmployeeId());
+        tokenRevocationStore.revokeToken(tokenClaims.getTokenId(), tokenClaims.getExpiresAt());
+        try {
+            invalidationBus.publish(InvalidationBus.TOKENS, Long.parseLong(tokenClaims.getTokenId()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Token of employee with id {} has an id from before it could be broadcast and is only revoked locally",
+                    tokenClaims.getEmployeeId());
+        }
+
+        // Revoke refresh tokens of the session
+        if (tokenClaims.getSessionId() != null) {
+            refreshTokenRepository.deleteByFamilyId(tokenClaims.getSessionId());
+        }
+    }
+
+    /**
+     * Remove expired refresh tokens
+     */
+    @Scheduled(fixedDelayString = "${rabbit-mechanic.jwt.refreshPurgeInterval}")
+    @Transactional
+    public void purgeExpiredRefreshTokens() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(new Date());
+        LOGGER.debug("Purged {} expired refresh tokens", deleted);
+    }
 
-        // Get employeeId from payload/body
-        Long employeeId = jwtClaims.getBody()
-                .get("employeeId", Long.class);
+    /**
+     * Helper to load the principal of an employee from database
+     * @param employeeId
+     * @return {@link PrincipalDto} principal of the employee
+     */
+    private PrincipalDto loadPrincipal(Long employeeId) {
 
-        // Get employee from database
-        EmployeeEntity employeeEntity = employeeRepository.findById(employeeId)
+        // Get employee from the primary database, a replica lagging behind would cache a revoked role
+        LOGGER.debug("Loading principal of employee with id {} from database", employeeId);
+        EmployeeEntity employeeEntity = PrimaryContext.run(() -> employeeRepository.findById(employeeId))
                 .orElseThrow(() -> new EmployeeNotFoundException(ErrorMessages.EMPLOYEE_NOT_FOUND));
 
         // Build principalDto
         return EmployeeConverter.fromEmployeeEntityToPrincipalDto(employeeEntity);
     }
 
+    /**
+     * Helper to rehash the password of an employee with the current strength
+     * Failures are only logged since the employee is already authenticated and the next login will try again
+     * @param employeeEntity
+     * @param rawPassword
+     */
+    private void rehashPassword(EmployeeEntity employeeEntity, String rawPassword) {
+        LOGGER.info("Rehashing password of employee with id {}", employeeEntity.getEmployeeId());
+        try {
+            int updated = employeeRepository.updateEncryptedPassword(employeeEntity.getEmployeeId(),
+                    employeeEntity.getEncryptedPassword(), passwordEncoder.encode(rawPassword));
+            if (updated == 0) {
+                LOGGER.info("Password of employee with id {} changed meanwhile, keeping it", employeeEntity.getEmployeeId());
+            }
+
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to rehash password of employee with id {}", employeeEntity.getEmployeeId(), e);
+        }
+    }
+
+    /**
+     * Helper to create and store a refresh token, only its hash is stored
+     * @param employeeEntity
+     * @param familyId session the token belongs to
+     * @return the refresh token as {@link String}
+     */
+    private String createRefreshToken(EmployeeEntity employeeEntity, String familyId) {
+        String refreshToken = RefreshTokens.generate();
+
+        refreshTokenRepository.save(RefreshTokenEntity.builder()
+                .employeeEntity(employeeEntity)
+                .tokenHash(RefreshTokens.hash(refreshToken))
+                .familyId(familyId)
+                .expiresAt(new Date(System.currentTimeMillis() + jwtProperties.getRefreshExpiresIn()))
+                .build());
+
+        return refreshToken;
+    }
+
     /**
      * Helper to create JWT Token
      * @param principalDto
+     * @param issuedAt issued at of the token, see {@link TokenRevocationStore#issuedAt(long)}
+     * @param sessionId session of the refresh tokens
      * @return the token as {@link String}
      */
-    private String createJwtToken(PrincipalDto principalDto) {
+    private String createJwtToken(PrincipalDto principalDto, Date issuedAt, String sessionId) {
         // Set claims
         Map<String, Object> claimsMap = new HashMap<>();
-        claimsMap.put("employeeId", principalDto.getEmployeeId());
-        claimsMap.put("firstName", principalDto.getFirstName());
-        claimsMap.put("lastName", principalDto.getLastName());
-        claimsMap.put("role", principalDto.getEmployeeRole());
+        claimsMap.put(JwtTokenVerifier.EMPLOYEE_ID_CLAIM, principalDto.getEmployeeId());
+        claimsMap.put(JwtTokenVerifier.FIRST_NAME_CLAIM, principalDto.getFirstName());
+        claimsMap.put(JwtTokenVerifier.LAST_NAME_CLAIM, principalDto.getLastName());
+        claimsMap.put(JwtTokenVerifier.ROLE_CLAIM, principalDto.getEmployeeRole());
+        claimsMap.put(JwtTokenVerifier.SESSION_CLAIM, sessionId);
+        claimsMap.put(JwtTokenVerifier.ISSUED_AT_MILLIS_CLAIM, issuedAt.getTime());
 
         Claims claims = Jwts.claims(claimsMap);
 
-        // Calculate issued at and expire at
-        Date issuedAt = new Date();
+        // Calculate expire at
         Date expiresAt = new Date(issuedAt.getTime() + jwtProperties.getExpiresIn());
 
         // Build jwt token and compact as string
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(Long.toString(RANDOM.nextLong() & Long.MAX_VALUE))
                 .setIssuedAt(issuedAt)
                 .setExpiration(expiresAt)
-                .signWith(SignatureAlgorithm.HS256, secretKey)
+                .signWith(SignatureAlgorithm.HS256, jwtTokenVerifier.getKey())
                 .compact();
     }
 }
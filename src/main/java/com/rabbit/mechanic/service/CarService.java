@@ -1,11 +1,16 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.car.CarDetailsDto;
 import com.rabbit.mechanic.command.car.CreateOrUpdateCarDto;
+import com.rabbit.mechanic.exception.InvalidListQueryException;
 import com.rabbit.mechanic.exception.car.CarAlreadyExistsException;
 import com.rabbit.mechanic.exception.car.CarNotFoundException;
 
+import java.util.List;
+
 /**
  * Common interface for car services, provides methods to manage cars
  */
@@ -29,9 +34,33 @@ public interface CarService {
 
     /**
      * Get all cars
+     * @param page page number
+     * @param size page size
+     * @param filters filters on indexed fields, e.g. brand=BMW, may be null
+     * @param sort field to sort by, prefixed with - for descending order, may be null
      * @return {@link CarDetailsDto} the cars obtained
+     * @throws InvalidListQueryException when the filters or sort are invalid or can't be served by an index
+     */
+    Paginated<CarDetailsDto> getCarsList(int page, int size, List<String> filters, String sort) throws InvalidListQueryException;
+
+    /**
+     * Get cars without counting them
+     * @param page page number
+     * @param size page size
+     * @param filters filters on indexed fields, e.g. brand=BMW, may be null
+     * @param sort field to sort by, prefixed with - for descending order, may be null
+     * @return {@link Sliced} the cars obtained and if there is a next page
+     * @throws InvalidListQueryException when the filters or sort are invalid or can't be served by an index
+     */
+    Sliced<CarDetailsDto> getCarsListWithoutTotals(int page, int size, List<String> filters, String sort) throws InvalidListQueryException;
+
+    /**
+     * Get cars after a cursor, with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @return {@link CursorPaginated} the cars obtained and the cursor of the next page
      */
-    Paginated<CarDetailsDto> getCarsList(int page, int size);
+    CursorPaginated<CarDetailsDto> getCarsListAfter(String cursor, int size);
 
     /**
      * Update car details
@@ -1,9 +1,20 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.cache.DetailsCache;
+import com.rabbit.mechanic.cache.DetailsCaches;
+import com.rabbit.mechanic.cache.InvalidationBus;
+import com.rabbit.mechanic.cache.ListCountCache;
+import com.rabbit.mechanic.cache.TableVersions;
+import com.rabbit.mechanic.command.Cursor;
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.car.CarDetailsDto;
 import com.rabbit.mechanic.command.car.CreateOrUpdateCarDto;
+import com.rabbit.mechanic.converter.PageConverter;
 import com.rabbit.mechanic.converter.CarConverter;
+import com.rabbit.mechanic.converter.CursorConverter;
+import com.rabbit.mechanic.converter.ListQueryConverter;
 import com.rabbit.mechanic.error.ErrorMessages;
 import com.rabbit.mechanic.exception.*;
 import com.rabbit.mechanic.exception.car.CarAlreadyExistsException;
@@ -11,17 +22,24 @@ import com.rabbit.mechanic.exception.car.CarNotFoundException;
 import com.rabbit.mechanic.exception.customer.CustomerNotFoundException;
 import com.rabbit.mechanic.persistence.entity.CarEntity;
 import com.rabbit.mechanic.persistence.entity.CustomerEntity;
+import com.rabbit.mechanic.persistence.query.ListDefinitions;
+import com.rabbit.mechanic.persistence.query.ListQuery;
 import com.rabbit.mechanic.persistence.repository.CarRepository;
 import com.rabbit.mechanic.persistence.repository.CustomerRepository;
+import com.rabbit.mechanic.persistence.repository.ListQueryRepository;
+import com.rabbit.mechanic.persistence.shard.Shards;
+import com.rabbit.mechanic.persistence.shard.UniqueKeys;
+import com.rabbit.mechanic.properties.PaginationProperties;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -31,12 +49,35 @@ import java.util.List;
 public class CarServiceImp implements CarService {
 
     private static final Logger LOGGER = LogManager.getLogger(CustomerService.class);
+    // Order of the cars lists, to merge the rows of several shards
+    private static final Comparator<CarDetailsDto> CAR_ORDER = Comparator.comparingLong(CarDetailsDto::getCarId);
     private final CarRepository carRepository;
     private final CustomerRepository customerRepository;
+    private final PaginationProperties paginationProperties;
+    private final ListCountCache listCountCache;
+    private final ListQueryRepository listQueryRepository;
+    private final Shards shards;
+    private final UniqueKeys uniqueKeys;
+    private final DetailsCache<CarDetailsDto> carDetailsCache;
+    private final InvalidationBus invalidationBus;
+    private final TableVersions tableVersions;
 
-    public CarServiceImp(CarRepository carRepository, CustomerRepository customerRepository) {
+    public CarServiceImp(CarRepository carRepository, CustomerRepository customerRepository, PaginationProperties paginationProperties,
+                         ListCountCache listCountCache, ListQueryRepository listQueryRepository, Shards shards, UniqueKeys uniqueKeys,
+                         DetailsCaches detailsCaches, InvalidationBus invalidationBus, TableVersions tableVersions) {
         this.carRepository = carRepository;
         this.customerRepository = customerRepository;
+        this.paginationProperties = paginationProperties;
+        this.listCountCache = listCountCache;
+        this.listQueryRepository = listQueryRepository;
+        this.shards = shards;
+        this.uniqueKeys = uniqueKeys;
+        this.carDetailsCache = detailsCaches.create(DetailsCaches.CARS, this::loadCar);
+        this.invalidationBus = invalidationBus;
+        this.tableVersions = tableVersions;
+
+        // Evict the cars changed by other instances
+        invalidationBus.subscribe(InvalidationBus.CARS, carDetailsCache);
     }
 
     /**
@@ -49,9 +90,10 @@ public class CarServiceImp implements CarService {
         LOGGER.debug("Creating car - {}", createCarDto);
         CarEntity carEntity = CarConverter.fromCreateOrUpdateCarDtoToCarEntity(createCarDto);
 
-        // Get user from database
+        // Get user from the primary database of its shard, where its cars live too
         LOGGER.debug("Getting user with id {} from database", createCarDto.getUserId());
-        CustomerEntity customerEntity = customerRepository.findById(createCarDto.getUserId())
+        int shard = shards.shardOf(createCarDto.getUserId());
+        CustomerEntity customerEntity = shards.onPrimary(shard, () -> customerRepository.findById(createCarDto.getUserId()))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get user with {} from database", createCarDto.getUserId());
                     throw new CustomerNotFoundException(ErrorMessages.CUSTOMER_NOT_FOUND);
@@ -59,20 +101,36 @@ public class CarServiceImp implements CarService {
 
         carEntity.setCustomerEntity(customerEntity);
 
-        // Persist car into database
+        // Persist car into database, once its plate is reserved across shards
         LOGGER.info("Persisting car into database");
+        boolean reserved = false;
         try {
+            uniqueKeys.reserve(UniqueKeys.PLATE, carEntity.getPlate());
+            reserved = true;
+
             LOGGER.info("Saving car on database");
-            carRepository.save(carEntity);
+            shards.on(shard, () -> carRepository.save(carEntity));
 
         } catch (DataIntegrityViolationException sqlException) {
             LOGGER.error("Duplicated plate - {}", carEntity, sqlException);
+            releasePlate(reserved, carEntity.getPlate());
             throw new CarAlreadyExistsException(ErrorMessages.CAR_ALREADY_EXISTS);
 
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            releasePlate(reserved, carEntity.getPlate());
+            throw e;
+
         } catch (Exception e) {
             LOGGER.error("Failed while saving car into database {}", carEntity, e);
+            releasePlate(reserved, carEntity.getPlate());
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
+        listCountCache.invalidate(ListCountCache.CARS);
+        tableVersions.bump(TableVersions.CARS);
+
+        // Other instances keep the cars of the customer, the car list pages and totals cached
+        invalidationBus.publish(InvalidationBus.CARS, carEntity.getCarId());
 
         // Convert to CarDetailsDto and return created car
         LOGGER.debug("Retrieving created car");
@@ -84,54 +142,104 @@ public class CarServiceImp implements CarService {
      */
     @Override
     public CarDetailsDto getCarById(long carId) {
+        // Get car from the cache, loaded from the primary database of its shard on a miss
+        LOGGER.debug("Getting car with id {}", carId);
+        CarDetailsDto carDetailsDto = carDetailsCache.get(carId);
+        if (carDetailsDto == null) {
+            LOGGER.error("Failed to get car with {} from database", carId);
+            throw new CarNotFoundException(ErrorMessages.CAR_NOT_FOUND);
+        }
+        return carDetailsDto;
+    }
 
-        // Get car from database
-        LOGGER.debug("Getting car with id {} from database", carId);
-        CarEntity carEntity = carRepository.findById(carId)
-                .orElseThrow(() -> {
-                    LOGGER.error("Failed to get car with {} from database", carId);
-                    throw new CarNotFoundException(ErrorMessages.CAR_NOT_FOUND);
-                });
+    /**
+     * @see CarService#getCarsList(int, int, List, String)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Paginated<CarDetailsDto> getCarsList(int page, int size, List<String> filters, String sort) {
 
-        // Convert to CarDetailsDto and return car
-        LOGGER.debug("Retrieving got car");
-        return CarConverter.fromCarEntityToCarDetailsDto(carEntity);
+        // Parse filters and sort, rejecting the ones no index can serve
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(ListDefinitions.CARS, filters, sort);
+
+        // Get cars from database
+        LOGGER.debug("Getting cars from database - {}", listQuery.getKey());
+        Slice<CarDetailsDto> carsList;
+        long totalResults;
+
+        try {
+            carsList = findCars(listQuery, page, size);
+            totalResults = listCountCache.get(listQuery.getKey(), () -> countCars(listQuery));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting cars from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
+        }
+
+        // Build custom paginated object with the cached total and return list of CarDetailsDto
+        return PageConverter.fromSliceToPaginated(carsList, totalResults);
     }
 
     /**
-     * @see CarService#getCarsList(int, int)
+     * @see CarService#getCarsListWithoutTotals(int, int, List, String)
      */
     @Override
-    public Paginated<CarDetailsDto> getCarsList(int page, int size) {
+    @Transactional(readOnly = true)
+    public Sliced<CarDetailsDto> getCarsListWithoutTotals(int page, int size, List<String> filters, String sort) {
+
+        // Parse filters and sort, rejecting the ones no index can serve
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(ListDefinitions.CARS, filters, sort);
 
-        // Get all cars from database
-        LOGGER.debug("Getting all cars from database");
-        Page<CarEntity> carsList = null;
+        // Get cars from database, without counting them
+        LOGGER.debug("Getting cars from database - {}", listQuery.getKey());
+        Slice<CarDetailsDto> carsList;
 
         try {
-            carsList = carRepository.findAll(PageRequest.of(page, size, Sort.by("carId")));
+            carsList = findCars(listQuery, page, size);
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
         } catch (Exception e) {
-            LOGGER.error("Failed while getting all cars from database", e);
+            LOGGER.error("Failed while getting cars from database", e);
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
 
-        // Convert list items from CarEntity to CarDetailsDto
-        LOGGER.debug("Convert list items from CarEntity to CarDetailsDto");
-        List<CarDetailsDto> carsListResponse = new ArrayList<>();
-        for (CarEntity carEntity : carsList.getContent()) {
-            carsListResponse.add(CarConverter.fromCarEntityToCarDetailsDto(carEntity));
-        }
+        // Build sliced object and return list of CarDetailsDto
+        return PageConverter.fromSliceToSliced(carsList);
+    }
+
+    /**
+     * @see CarService#getCarsListAfter(String, int)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginated<CarDetailsDto> getCarsListAfter(String cursor, int size) {
+
+        // Decode cursor and limit page size
+        Cursor after = CursorConverter.fromTokenToCursor(cursor);
+        int pageSize = paginationProperties.limit(size);
 
-        // Build custom paginated object
-        Paginated<CarDetailsDto> results = new Paginated<>(
-                carsListResponse,
-                page,
-                carsListResponse.size(),
-                carsList.getTotalPages(),
-                carsList.getTotalElements());
+        // Get cars after the cursor from database, one more than the page size to know if there is a next page
+        LOGGER.debug("Getting cars after cursor {} from database", cursor);
+        List<CarDetailsDto> carsList;
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
 
-        // Return list of CarDetailsDto
-        return results;
+        try {
+            long afterCarId = after == null ? 0L : after.getId();
+            carsList = shards.findFirst(pageSize + 1, CAR_ORDER, () -> carRepository.findCarDetailsAfter(afterCarId, pageRequest));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting cars from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
+        }
+
+        // Build cursor paginated object
+        return CursorConverter.fromRowsToCursorPaginated(carsList, pageSize,
+                car -> new Cursor(null, car.getCarId()));
     }
 
     /**
@@ -140,26 +248,49 @@ public class CarServiceImp implements CarService {
     @Override
     public CarDetailsDto updateCarDetails(long carId, CreateOrUpdateCarDto carDetails) {
 
-        // Get car from database
+        // Get car from the primary database of its shard
         LOGGER.debug("Getting car with id {} from database", carId);
-        CarEntity carEntity = carRepository.findById(carId)
+        int shard = shards.shardOf(carId);
+        CarEntity carEntity = shards.onPrimary(shard, () -> carRepository.findById(carId))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get car with {} from database", carId);
                     throw new CarNotFoundException(ErrorMessages.CAR_NOT_FOUND);
                 });
 
+        // Reserve the new plate across shards before saving it
+        String previousPlate = carEntity.getPlate();
+        boolean plateChanged = !previousPlate.equals(carDetails.getPlate());
+        if (plateChanged) {
+            try {
+                uniqueKeys.reserve(UniqueKeys.PLATE, carDetails.getPlate());
+            } catch (DataIntegrityViolationException sqlException) {
+                LOGGER.error("Duplicated plate - {}", carDetails.getPlate(), sqlException);
+                throw new CarAlreadyExistsException(ErrorMessages.CAR_ALREADY_EXISTS);
+            }
+        }
+
         // Update data with carDetails received
         carEntity.setBrand(carDetails.getBrand());
         carEntity.setEngineType(carDetails.getEngineType());
         carEntity.setPlate(carDetails.getPlate());
 
-        // Save changes
+        // Save changes, then release the previous plate
         LOGGER.info("Saving updates from car with id {}", carId);
-        carRepository.save(carEntity);
+        try {
+            shards.on(shard, () -> carRepository.save(carEntity));
+        } catch (RuntimeException e) {
+            releasePlate(plateChanged, carDetails.getPlate());
+            throw e;
+        }
+        releasePlate(plateChanged, previousPlate);
+        tableVersions.bump(TableVersions.CARS);
 
-        // Convert to CarDetailsDto and return updated car
+        // Convert to CarDetailsDto, cache it and return updated car
         LOGGER.debug("Retrieving updated car");
-        return CarConverter.fromCarEntityToCarDetailsDto(carEntity);
+        CarDetailsDto carDetailsDto = CarConverter.fromCarEntityToCarDetailsDto(carEntity);
+        carDetailsCache.put(carId, carDetailsDto);
+        invalidationBus.publish(InvalidationBus.CARS, carId);
+        return carDetailsDto;
     }
 
     /**
@@ -168,17 +299,75 @@ public class CarServiceImp implements CarService {
     @Override
     public void deleteCar(long carId) {
 
-        // Get car from database
+        // Get car from the primary database of its shard
         LOGGER.debug("Getting car with id {} from database", carId);
-        CarEntity carEntity = carRepository.findById(carId)
+        int shard = shards.shardOf(carId);
+        CarEntity carEntity = shards.onPrimary(shard, () -> carRepository.findById(carId))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get car with {} from database", carId);
                     throw new CarNotFoundException(ErrorMessages.CAR_NOT_FOUND);
                 });
 
-        // Delete car from database
+        // Delete car from database and release its plate
         LOGGER.debug("Deleting car with id {}", carId);
-        carRepository.delete(carEntity);
+        shards.on(shard, () -> {
+            carRepository.delete(carEntity);
+            return null;
+        });
+        releasePlate(true, carEntity.getPlate());
+        listCountCache.invalidate(ListCountCache.CARS);
+        tableVersions.bump(TableVersions.CARS);
+        carDetailsCache.invalidate(carId);
+        invalidationBus.publish(InvalidationBus.CARS, carId);
+    }
+
+    /**
+     * Helper to get a page of cars, through the list query when filtered or sorted
+     * @param listQuery {@link ListQuery}
+     * @param page page number
+     * @param size page size
+     * @return cars sliced
+     */
+    private Slice<CarDetailsDto> findCars(ListQuery listQuery, int page, int size) {
+        int pageSize = paginationProperties.limit(size);
+        if (listQuery.isCustom()) {
+            return shards.findAll(PageRequest.of(page, pageSize), ListQueryConverter.fromListQueryToComparator(listQuery),
+                    pageable -> listQueryRepository.findAll(ListDefinitions.CARS, listQuery, pageable));
+        }
+        return shards.findAll(PageRequest.of(page, pageSize, Sort.by("carId")), CAR_ORDER, carRepository::findAllCarDetails);
+    }
+
+    /**
+     * Helper to count cars over every shard, through the list query when filtered
+     * @param listQuery {@link ListQuery}
+     * @return the total
+     */
+    private long countCars(ListQuery listQuery) {
+        return shards.sum(() -> listQuery.isCustom()
+                ? listQueryRepository.count(ListDefinitions.CARS, listQuery)
+                : carRepository.count());
     }
-}
 
+    /**
+     * Helper to release a plate reserved across shards
+     * @param reserved false when there is nothing to release
+     * @param plate
+     */
+    private void releasePlate(boolean reserved, String plate) {
+        if (reserved) {
+            uniqueKeys.release(UniqueKeys.PLATE, plate);
+        }
+    }
+
+    /**
+     * Helper to load the details of a car from the primary database of its shard, for the details cache
+     * @param carId
+     * @return {@link CarDetailsDto}, null when there is no such car
+     */
+    private CarDetailsDto loadCar(long carId) {
+        LOGGER.debug("Getting car with id {} from database", carId);
+        return shards.on(shards.shardOf(carId), () -> carRepository.findById(carId))
+                .map(CarConverter::fromCarEntityToCarDetailsDto)
+                .orElse(null);
+    }
+}
@@ -1,10 +1,15 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.customer.CreateOrUpdateCustomerDto;
 import com.rabbit.mechanic.exception.customer.CustomerAlreadyExistsException;
 import com.rabbit.mechanic.exception.customer.CustomerNotFoundException;
 import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
+import com.rabbit.mechanic.exception.InvalidListQueryException;
+
+import java.util.List;
 
 /**
  * Common interface for customer services, provides methods to manage customers
@@ -29,9 +34,33 @@ public interface CustomerService {
 
     /**
      * Get all users
+     * @param page page number
+     * @param size page size
+     * @param filters filters on indexed fields, e.g. firstName>=M, may be null
+     * @param sort field to sort by, prefixed with - for descending order, may be null
      * @return {@link CustomerDetailsDto} the users obtained
+     * @throws InvalidListQueryException when the filters or sort are invalid or can't be served by an index
+     */
+    Paginated<CustomerDetailsDto> getCustomerList(int page, int size, List<String> filters, String sort) throws InvalidListQueryException;
+
+    /**
+     * Get customers without counting them
+     * @param page page number
+     * @param size page size
+     * @param filters filters on indexed fields, e.g. firstName>=M, may be null
+     * @param sort field to sort by, prefixed with - for descending order, may be null
+     * @return {@link Sliced} the customers obtained and if there is a next page
+     * @throws InvalidListQueryException when the filters or sort are invalid or can't be served by an index
+     */
+    Sliced<CustomerDetailsDto> getCustomerListWithoutTotals(int page, int size, List<String> filters, String sort) throws InvalidListQueryException;
+
+    /**
+     * Get customers after a cursor, with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @return {@link CursorPaginated} the customers obtained and the cursor of the next page
      */
-    Paginated<CustomerDetailsDto> getCustomerList(int page, int size);
+    CursorPaginated<CustomerDetailsDto> getCustomerListAfter(String cursor, int size);
 
     /**
      * Update User
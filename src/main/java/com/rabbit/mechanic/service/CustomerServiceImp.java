@@ -1,24 +1,43 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.cache.DetailsCache;
+import com.rabbit.mechanic.cache.DetailsCaches;
+import com.rabbit.mechanic.cache.InvalidationBus;
+import com.rabbit.mechanic.cache.ListCountCache;
+import com.rabbit.mechanic.cache.TableVersions;
+import com.rabbit.mechanic.command.Cursor;
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.customer.CreateOrUpdateCustomerDto;
+import com.rabbit.mechanic.converter.PageConverter;
 import com.rabbit.mechanic.converter.CustomerConverter;
+import com.rabbit.mechanic.converter.CursorConverter;
+import com.rabbit.mechanic.converter.ListQueryConverter;
 import com.rabbit.mechanic.error.ErrorMessages;
 import com.rabbit.mechanic.exception.customer.CustomerNotFoundException;
 import com.rabbit.mechanic.exception.DataBaseCommunicationException;
+import com.rabbit.mechanic.exception.RabbitMechanicException;
 import com.rabbit.mechanic.exception.customer.CustomerAlreadyExistsException;
 import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
 import com.rabbit.mechanic.persistence.entity.CustomerEntity;
+import com.rabbit.mechanic.persistence.query.ListDefinitions;
+import com.rabbit.mechanic.persistence.query.ListQuery;
 import com.rabbit.mechanic.persistence.repository.CustomerRepository;
+import com.rabbit.mechanic.persistence.repository.ListQueryRepository;
+import com.rabbit.mechanic.persistence.shard.Shards;
+import com.rabbit.mechanic.persistence.shard.UniqueKeys;
+import com.rabbit.mechanic.properties.PaginationProperties;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -29,10 +48,36 @@ public class CustomerServiceImp implements CustomerService {
 
     // Logger
     private static final Logger LOGGER = LogManager.getLogger(CustomerService.class);
+    // Order of the customers lists, to merge the rows of several shards
+    private static final Comparator<CustomerDetailsDto> CUSTOMER_ORDER = Comparator
+            .comparing(CustomerDetailsDto::getFirstName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(CustomerDetailsDto::getCustomerId);
     private final CustomerRepository customerRepository;
+    private final PaginationProperties paginationProperties;
+    private final ListCountCache listCountCache;
+    private final ListQueryRepository listQueryRepository;
+    private final Shards shards;
+    private final UniqueKeys uniqueKeys;
+    private final DetailsCache<CustomerDetailsDto> customerDetailsCache;
+    private final InvalidationBus invalidationBus;
+    private final TableVersions tableVersions;
 
-    public CustomerServiceImp(CustomerRepository customerRepository) {
+    public CustomerServiceImp(CustomerRepository customerRepository, PaginationProperties paginationProperties,
+                              ListCountCache listCountCache, ListQueryRepository listQueryRepository,
+                              Shards shards, UniqueKeys uniqueKeys,
+                              DetailsCaches detailsCaches, InvalidationBus invalidationBus, TableVersions tableVersions) {
         this.customerRepository = customerRepository;
+        this.paginationProperties = paginationProperties;
+        this.listCountCache = listCountCache;
+        this.listQueryRepository = listQueryRepository;
+        this.shards = shards;
+        this.uniqueKeys = uniqueKeys;
+        this.customerDetailsCache = detailsCaches.create(DetailsCaches.CUSTOMERS, this::loadCustomer);
+        this.invalidationBus = invalidationBus;
+        this.tableVersions = tableVersions;
+
+        // Evict the customers changed by other instances
+        invalidationBus.subscribe(InvalidationBus.CUSTOMERS, customerDetailsCache);
     }
 
     /**
@@ -45,20 +90,36 @@ public class CustomerServiceImp implements CustomerService {
         LOGGER.debug("Creating customer - {}", createUserDto);
         CustomerEntity customerEntity = CustomerConverter.fromCreateOrUpdateCustomerDtoToCustomerEntity(createUserDto);
 
-        // Persist user into database
+        // Persist user into database, on the shard of the new customer once its email is reserved across shards
         LOGGER.info("Persisting customer into database");
+        boolean reserved = false;
         try {
+            uniqueKeys.reserve(UniqueKeys.EMAIL, customerEntity.getEmail());
+            reserved = true;
+
             LOGGER.info("Saving customer on database");
-            customerRepository.save(customerEntity);
+            shards.on(shards.nextShard(), () -> customerRepository.save(customerEntity));
 
         } catch (DataIntegrityViolationException sqlException) {
             LOGGER.error("Duplicated email - {}", customerEntity, sqlException);
+            releaseEmail(reserved, customerEntity.getEmail());
             throw new CustomerAlreadyExistsException(ErrorMessages.CUSTOMER_ALREADY_EXISTS);
 
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            releaseEmail(reserved, customerEntity.getEmail());
+            throw e;
+
         } catch (Exception e) {
             LOGGER.error("Failed while saving customer into database {}", customerEntity, e);
+            releaseEmail(reserved, customerEntity.getEmail());
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
+        listCountCache.invalidate(ListCountCache.CUSTOMERS);
+        tableVersions.bump(TableVersions.CUSTOMERS);
+
+        // Other instances keep the customer list pages and totals cached
+        invalidationBus.publish(InvalidationBus.CUSTOMERS, customerEntity.getCustomerId());
 
         // Build CustomerDetailsDto to return to the client
         LOGGER.debug("Retrieving created customer");
@@ -70,53 +131,105 @@ public class CustomerServiceImp implements CustomerService {
      */
     @Override
     public CustomerDetailsDto getCustomerById(long customerId) {
+        // Get customer from the cache, loaded from the primary database of its shard on a miss
+        LOGGER.debug("Getting customer with id {}", customerId);
+        CustomerDetailsDto customerDetailsDto = customerDetailsCache.get(customerId);
+        if (customerDetailsDto == null) {
+            LOGGER.error("Failed to get customer with {} from database", customerId);
+            throw new CustomerNotFoundException(ErrorMessages.CUSTOMER_NOT_FOUND);
+        }
+        return customerDetailsDto;
+    }
 
-        // Get user from database
-        LOGGER.debug("Getting customer with id {} from database", customerId);
-        CustomerEntity customerEntity = customerRepository.findById(customerId)
-                .orElseThrow(() -> {
-                    LOGGER.error("Failed to get customer with {} from database", customerId);
-                    throw new CustomerNotFoundException(ErrorMessages.CUSTOMER_NOT_FOUND);
-                });
+    /**
+     * @see CustomerService#getCustomerList(int, int, List, String)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Paginated<CustomerDetailsDto> getCustomerList(int page, int size, List<String> filters, String sort) {
 
-        // Convert CustomerDetailsDto to return to the client
-        LOGGER.debug("Retrieving got customer");
-        return CustomerConverter.fromCustomerEntityToCustomerDetailsDto(customerEntity);
+        // Parse filters and sort, rejecting the ones no index can serve
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(ListDefinitions.CUSTOMERS, filters, sort);
+
+        // Get customers from database
+        LOGGER.debug("Getting customers from database - {}", listQuery.getKey());
+        Slice<CustomerDetailsDto> usersList;
+        long totalResults;
+
+        try {
+            usersList = findCustomers(listQuery, page, size);
+            totalResults = listCountCache.get(listQuery.getKey(), () -> countCustomers(listQuery));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting customers from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
+        }
+
+        // Build custom paginated object with the cached total and return list of CustomerDetailsDto
+        return PageConverter.fromSliceToPaginated(usersList, totalResults);
     }
 
     /**
-     * @see CustomerService#getCustomerList(int, int)
+     * @see CustomerService#getCustomerListWithoutTotals(int, int, List, String)
      */
     @Override
-    public Paginated<CustomerDetailsDto> getCustomerList(int page, int size) {
+    @Transactional(readOnly = true)
+    public Sliced<CustomerDetailsDto> getCustomerListWithoutTotals(int page, int size, List<String> filters, String sort) {
+
+        // Parse filters and sort, rejecting the ones no index can serve
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(ListDefinitions.CUSTOMERS, filters, sort);
 
-        // Get all users from database
-        LOGGER.debug("Getting all customers from database");
-        Page<CustomerEntity> usersList = null;
+        // Get customers from database, without counting them
+        LOGGER.debug("Getting customers from database - {}", listQuery.getKey());
+        Slice<CustomerDetailsDto> usersList;
 
         try {
-            usersList = customerRepository.findAll(PageRequest.of(page, size, Sort.by("firstName")));
+            usersList = findCustomers(listQuery, page, size);
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
         } catch (Exception e) {
-            LOGGER.error("Failed while getting all customers from database", e);
+            LOGGER.error("Failed while getting customers from database", e);
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
 
-        // Convert list items from CustomerEntity to CustomerDetailsDto
-        LOGGER.debug("Convert list items from CustomerEntity to CustomerDetailsDto");
-        List<CustomerDetailsDto> usersListResponse = new ArrayList<>();
-        for (CustomerEntity customerEntity : usersList.getContent()) {
-            usersListResponse.add(CustomerConverter.fromCustomerEntityToCustomerDetailsDto(customerEntity));
-        }
+        // Build sliced object and return list of CustomerDetailsDto
+        return PageConverter.fromSliceToSliced(usersList);
+    }
+
+    /**
+     * @see CustomerService#getCustomerListAfter(String, int)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginated<CustomerDetailsDto> getCustomerListAfter(String cursor, int size) {
+
+        // Decode cursor and limit page size
+        Cursor after = CursorConverter.fromTokenToCursor(cursor);
+        int pageSize = paginationProperties.limit(size);
 
-        //Build custom paginated object
-        Paginated<CustomerDetailsDto> results = new Paginated<>(
-                usersListResponse,
-                page,
-                usersListResponse.size(),
-                usersList.getTotalPages(),
-                usersList.getTotalElements());
+        // Get customers after the cursor from database, one more than the page size to know if there is a next page
+        LOGGER.debug("Getting customers after cursor {} from database", cursor);
+        List<CustomerDetailsDto> customersList;
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
 
-        return results;
+        try {
+            customersList = shards.findFirst(pageSize + 1, CUSTOMER_ORDER, () -> after == null
+                    ? customerRepository.findCustomerDetailsFirst(pageRequest)
+                    : customerRepository.findCustomerDetailsAfter(after.getKey(), after.getId(), pageRequest));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting customers from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
+        }
+
+        // Build cursor paginated object
+        return CursorConverter.fromRowsToCursorPaginated(customersList, pageSize,
+                customer -> new Cursor(customer.getFirstName(), customer.getCustomerId()));
     }
 
     /**
@@ -125,14 +238,27 @@ public class CustomerServiceImp implements CustomerService {
     @Override
     public CustomerDetailsDto updateCustomer(long customerId, CreateOrUpdateCustomerDto updateUserDto) {
 
-        // Get user from database
+        // Get user from the primary database of its shard
         LOGGER.debug("Getting customer with id {} from database", customerId);
-        CustomerEntity customerEntity = customerRepository.findById(customerId)
+        int shard = shards.shardOf(customerId);
+        CustomerEntity customerEntity = shards.onPrimary(shard, () -> customerRepository.findById(customerId))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get customer with {} from database", customerId);
                     throw new CustomerNotFoundException(ErrorMessages.CUSTOMER_NOT_FOUND);
                 });
 
+        // Reserve the new email across shards before saving it
+        String previousEmail = customerEntity.getEmail();
+        boolean emailChanged = !previousEmail.equals(updateUserDto.getEmail());
+        if (emailChanged) {
+            try {
+                uniqueKeys.reserve(UniqueKeys.EMAIL, updateUserDto.getEmail());
+            } catch (DataIntegrityViolationException sqlException) {
+                LOGGER.error("Duplicated email - {}", updateUserDto.getEmail(), sqlException);
+                throw new CustomerAlreadyExistsException(ErrorMessages.CUSTOMER_ALREADY_EXISTS);
+            }
+        }
+
         // Update data with userDetails received
         customerEntity.setFirstName(updateUserDto.getFirstName());
         customerEntity.setLastName(updateUserDto.getLastName());
@@ -140,13 +266,23 @@ public class CustomerServiceImp implements CustomerService {
         customerEntity.setEmail(updateUserDto.getEmail());
         customerEntity.setCellNumber(updateUserDto.getCellNumber());
 
-        // Save changes
+        // Save changes, then release the previous email
         LOGGER.info("Saving updates from customer with id {}", customerId);
-        customerRepository.save(customerEntity);
+        try {
+            shards.on(shard, () -> customerRepository.save(customerEntity));
+        } catch (RuntimeException e) {
+            releaseEmail(emailChanged, updateUserDto.getEmail());
+            throw e;
+        }
+        releaseEmail(emailChanged, previousEmail);
+        tableVersions.bump(TableVersions.CUSTOMERS);
 
-        // Convert to CustomerDetailsDto and return updated customer
+        // Convert to CustomerDetailsDto, cache it and return updated customer
         LOGGER.debug("Retrieving updated customer");
-        return CustomerConverter.fromCustomerEntityToCustomerDetailsDto(customerEntity);
+        CustomerDetailsDto customerDetailsDto = CustomerConverter.fromCustomerEntityToCustomerDetailsDto(customerEntity);
+        customerDetailsCache.put(customerId, customerDetailsDto);
+        invalidationBus.publish(InvalidationBus.CUSTOMERS, customerId);
+        return customerDetailsDto;
     }
 
     /**
@@ -155,16 +291,76 @@ public class CustomerServiceImp implements CustomerService {
     @Override
     public void deleteCustomer(long customerId) {
 
-        // Get customer from database
+        // Get customer from the primary database of its shard
         LOGGER.debug("Getting customer with id {} from database", customerId);
-        CustomerEntity customerEntity = customerRepository.findById(customerId)
+        int shard = shards.shardOf(customerId);
+        CustomerEntity customerEntity = shards.onPrimary(shard, () -> customerRepository.findById(customerId))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get customer with {} from database", customerId);
                     throw new CustomerNotFoundException(ErrorMessages.CUSTOMER_NOT_FOUND);
                 });
 
-        // Delete customer from database
+        // Delete customer from database and release its email
         LOGGER.debug("Deleting customer with id {}", customerId);
-        customerRepository.delete(customerEntity);
+        shards.on(shard, () -> {
+            customerRepository.delete(customerEntity);
+            return null;
+        });
+        releaseEmail(true, customerEntity.getEmail());
+        listCountCache.invalidate(ListCountCache.CUSTOMERS);
+        tableVersions.bump(TableVersions.CUSTOMERS);
+        customerDetailsCache.invalidate(customerId);
+        invalidationBus.publish(InvalidationBus.CUSTOMERS, customerId);
+    }
+
+    /**
+     * Helper to get a page of customers, through the list query when filtered or sorted
+     * @param listQuery {@link ListQuery}
+     * @param page page number
+     * @param size page size
+     * @return customers sliced
+     */
+    private Slice<CustomerDetailsDto> findCustomers(ListQuery listQuery, int page, int size) {
+        int pageSize = paginationProperties.limit(size);
+        if (listQuery.isCustom()) {
+            return shards.findAll(PageRequest.of(page, pageSize), ListQueryConverter.fromListQueryToComparator(listQuery),
+                    pageable -> listQueryRepository.findAll(ListDefinitions.CUSTOMERS, listQuery, pageable));
+        }
+        return shards.findAll(PageRequest.of(page, pageSize, Sort.by("firstName", "customerId")), CUSTOMER_ORDER,
+                customerRepository::findAllCustomerDetails);
+    }
+
+    /**
+     * Helper to count customers over every shard, through the list query when filtered
+     * @param listQuery {@link ListQuery}
+     * @return the total
+     */
+    private long countCustomers(ListQuery listQuery) {
+        return shards.sum(() -> listQuery.isCustom()
+                ? listQueryRepository.count(ListDefinitions.CUSTOMERS, listQuery)
+                : customerRepository.count());
+    }
+
+    /**
+     * Helper to release an email reserved across shards
+     * @param reserved false when there is nothing to release
+     * @param email
+     */
+    private void releaseEmail(boolean reserved, String email) {
+        if (reserved) {
+            uniqueKeys.release(UniqueKeys.EMAIL, email);
+        }
+    }
+
+    /**
+     * Helper to load the details of a customer from the primary database of its shard, for the details cache
+     * @param customerId
+     * @return {@link CustomerDetailsDto}, null when there is no such customer
+     */
+    private CustomerDetailsDto loadCustomer(long customerId) {
+        LOGGER.debug("Getting customer with id {} from database", customerId);
+        return shards.on(shards.shardOf(customerId), () -> customerRepository.findById(customerId))
+                .map(CustomerConverter::fromCustomerEntityToCustomerDetailsDto)
+                .orElse(null);
     }
 }
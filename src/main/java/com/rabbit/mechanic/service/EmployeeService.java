@@ -1,6 +1,8 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.employee.CreateEmployeeDto;
 import com.rabbit.mechanic.command.employee.EmployeeDetailsDto;
 import com.rabbit.mechanic.command.employee.UpdateEmployeeDto;
@@ -34,6 +36,22 @@ public interface EmployeeService {
      */
     Paginated<EmployeeDetailsDto> getEmployeesList(int page, int size);
 
+    /**
+     * Get employees without counting them
+     * @param page page number
+     * @param size page size
+     * @return {@link Sliced} the employees obtained and if there is a next page
+     */
+    Sliced<EmployeeDetailsDto> getEmployeesListWithoutTotals(int page, int size);
+
+    /**
+     * Get employees after a cursor, with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @return {@link CursorPaginated} the employees obtained and the cursor of the next page
+     */
+    CursorPaginated<EmployeeDetailsDto> getEmployeesListAfter(String cursor, int size);
+
     /**
      * Update employee
      * @param employeeId employee id we want to update
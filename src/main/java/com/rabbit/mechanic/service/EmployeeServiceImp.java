@@ -1,27 +1,43 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.cache.DetailsCache;
+import com.rabbit.mechanic.cache.DetailsCaches;
+import com.rabbit.mechanic.cache.InvalidationBus;
+import com.rabbit.mechanic.cache.InvalidationListener;
+import com.rabbit.mechanic.cache.ListCountCache;
+import com.rabbit.mechanic.cache.PrincipalCache;
+import com.rabbit.mechanic.command.Cursor;
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.employee.CreateEmployeeDto;
 import com.rabbit.mechanic.command.employee.EmployeeDetailsDto;
 import com.rabbit.mechanic.command.employee.UpdateEmployeeDto;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import com.rabbit.mechanic.converter.PageConverter;
 import com.rabbit.mechanic.converter.EmployeeConverter;
+import com.rabbit.mechanic.converter.CursorConverter;
 import com.rabbit.mechanic.error.ErrorMessages;
 import com.rabbit.mechanic.exception.*;
 import com.rabbit.mechanic.exception.customer.CustomerNotFoundException;
 import com.rabbit.mechanic.exception.employee.EmployeeAlreadyExistsException;
 import com.rabbit.mechanic.exception.employee.EmployeeNotFoundException;
+import com.rabbit.mechanic.persistence.datasource.PrimaryContext;
 import com.rabbit.mechanic.persistence.entity.EmployeeEntity;
 import com.rabbit.mechanic.persistence.repository.EmployeeRepository;
+import com.rabbit.mechanic.persistence.repository.RefreshTokenRepository;
+import com.rabbit.mechanic.properties.PaginationProperties;
+import com.rabbit.mechanic.security.TokenRevocationStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,11 +50,34 @@ public class EmployeeServiceImp implements EmployeeService {
     private static final Logger LOGGER = LogManager.getLogger(EmployeeService.class);
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final PaginationProperties paginationProperties;
+    private final ListCountCache listCountCache;
+    private final DetailsCache<EmployeeDetailsDto> employeeDetailsCache;
+    private final InvalidationBus invalidationBus;
 
 
-    public EmployeeServiceImp(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder) {
+    public EmployeeServiceImp(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder, PrincipalCache principalCache,
+                              TokenRevocationStore tokenRevocationStore, RefreshTokenRepository refreshTokenRepository,
+                              PaginationProperties paginationProperties, ListCountCache listCountCache,
+                              DetailsCaches detailsCaches, InvalidationBus invalidationBus) {
         this.employeeRepository = employeeRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.paginationProperties = paginationProperties;
+        this.listCountCache = listCountCache;
+        this.employeeDetailsCache = detailsCaches.create(DetailsCaches.EMPLOYEES, this::loadEmployee);
+        this.invalidationBus = invalidationBus;
+
+        // Evict the employees changed by other instances and revoke the tokens they revoked
+        invalidationBus.subscribe(InvalidationBus.EMPLOYEES, employeeDetailsCache);
+        invalidationBus.subscribe(InvalidationBus.EMPLOYEES, principalCache);
+        invalidationBus.subscribe(InvalidationBus.EMPLOYEE_TOKENS, InvalidationListener.of(
+                tokenRevocationStore::revokeEmployeeTokens, tokenRevocationStore::untrackIssuedTokens));
     }
 
     /**
@@ -66,10 +105,18 @@ public class EmployeeServiceImp implements EmployeeService {
             LOGGER.error("Duplicated username - {}", employeeEntity, sqlException);
             throw new EmployeeAlreadyExistsException(ErrorMessages.EMPLOYEE_ALREADY_EXISTS);
 
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
         } catch (Exception e) {
             LOGGER.error("Failed while saving employee into database {}", employeeEntity, e);
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
+        listCountCache.invalidate(ListCountCache.EMPLOYEES);
+
+        // Other instances keep the employee totals cached
+        invalidationBus.publish(InvalidationBus.EMPLOYEES, employeeEntity.getEmployeeId());
 
         // Build EmployeeDetailsDto to return to the client
         LOGGER.debug("Retrieving created employee");
@@ -81,53 +128,99 @@ public class EmployeeServiceImp implements EmployeeService {
      */
     @Override
     public EmployeeDetailsDto getEmployeeById(long employeeId) throws EmployeeNotFoundException {
-
-        // Get employee from database
-        LOGGER.debug("Getting employee with id {} from database", employeeId);
-        EmployeeEntity employeeEntity = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> {
-                    LOGGER.error("Failed to get employee with {} from database", employeeId);
-                    throw new EmployeeNotFoundException(ErrorMessages.EMPLOYEE_NOT_FOUND);
-                });
-
-        // Convert EmployeeDetailsDto to return to the client
-        LOGGER.debug("Retrieving got employee");
-        return EmployeeConverter.fromEmployeeEntityToEmployeeDetailsDto(employeeEntity);
+        // Get employee from the cache, loaded from the database on a miss
+        LOGGER.debug("Getting employee with id {}", employeeId);
+        EmployeeDetailsDto employeeDetailsDto = employeeDetailsCache.get(employeeId);
+        if (employeeDetailsDto == null) {
+            LOGGER.error("Failed to get employee with {} from database", employeeId);
+            throw new EmployeeNotFoundException(ErrorMessages.EMPLOYEE_NOT_FOUND);
+        }
+        return employeeDetailsDto;
     }
 
     /**
      * @see EmployeeService#getEmployeesList(int, int)
      */
     @Override
+    @Transactional(readOnly = true)
     public Paginated<EmployeeDetailsDto> getEmployeesList(int page, int size) {
 
         // Get all employees from database
         LOGGER.debug("Getting all employees from database");
-        Page<EmployeeEntity> employeesList = null;
+        Slice<EmployeeDetailsDto> employeesList;
+        long totalResults;
 
         try {
-            employeesList = employeeRepository.findAll(PageRequest.of(page, size, Sort.by("firstName")));
+            employeesList = employeeRepository.findAllEmployeeDetails(PageRequest.of(page, paginationProperties.limit(size), Sort.by("firstName", "employeeId")));
+            totalResults = listCountCache.get(ListCountCache.EMPLOYEES, employeeRepository::count);
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
         } catch (Exception e) {
             LOGGER.error("Failed while getting all employees from database", e);
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
 
-        // Convert list items from EmployeeEntity to EmployeeDetailsDto
-        LOGGER.debug("Convert list items from EmployeeEntity to EmployeeDetailsDto");
-        List<EmployeeDetailsDto> employeesListResponse = new ArrayList<>();
-        for (EmployeeEntity employeeEntity : employeesList.getContent()) {
-            employeesListResponse.add(EmployeeConverter.fromEmployeeEntityToEmployeeDetailsDto(employeeEntity));
+        // Build custom paginated object with the cached total and return list of EmployeeDetailsDto
+        return PageConverter.fromSliceToPaginated(employeesList, totalResults);
+    }
+
+    /**
+     * @see EmployeeService#getEmployeesListWithoutTotals(int, int)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Sliced<EmployeeDetailsDto> getEmployeesListWithoutTotals(int page, int size) {
+
+        // Get all employees from database, without counting them
+        LOGGER.debug("Getting all employees from database");
+        Slice<EmployeeDetailsDto> employeesList;
+
+        try {
+            employeesList = employeeRepository.findAllEmployeeDetails(PageRequest.of(page, paginationProperties.limit(size), Sort.by("firstName", "employeeId")));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting all employees from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
 
-        //Build custom paginated object
-        Paginated<EmployeeDetailsDto> results = new Paginated<>(
-                employeesListResponse,
-                page,
-                employeesListResponse.size(),
-                employeesList.getTotalPages(),
-                employeesList.getTotalElements());
+        // Build sliced object and return list of EmployeeDetailsDto
+        return PageConverter.fromSliceToSliced(employeesList);
+    }
+
+    /**
+     * @see EmployeeService#getEmployeesListAfter(String, int)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginated<EmployeeDetailsDto> getEmployeesListAfter(String cursor, int size) {
+
+        // Decode cursor and limit page size
+        Cursor after = CursorConverter.fromTokenToCursor(cursor);
+        int pageSize = paginationProperties.limit(size);
+
+        // Get employees after the cursor from database, one more than the page size to know if there is a next page
+        LOGGER.debug("Getting employees after cursor {} from database", cursor);
+        List<EmployeeDetailsDto> employeesList;
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        try {
+            employeesList = after == null
+                    ? employeeRepository.findEmployeeDetailsFirst(pageRequest)
+                    : employeeRepository.findEmployeeDetailsAfter(after.getKey(), after.getId(), pageRequest);
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting employees from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
+        }
 
-        return results;
+        // Build cursor paginated object
+        return CursorConverter.fromRowsToCursorPaginated(employeesList, pageSize,
+                employee -> new Cursor(employee.getFirstName(), employee.getEmployeeId()));
     }
 
     /**
@@ -136,15 +229,16 @@ public class EmployeeServiceImp implements EmployeeService {
     @Override
     public EmployeeDetailsDto updateEmployee(long employeeId, UpdateEmployeeDto updateEmployeeDto) throws EmployeeNotFoundException {
 
-        // Get user from database
+        // Get user from the primary database, the update is based on it
         LOGGER.debug("Getting employee with id {} from database", employeeId);
-        EmployeeEntity employeeEntity = employeeRepository.findById(employeeId)
+        EmployeeEntity employeeEntity = PrimaryContext.run(() -> employeeRepository.findById(employeeId))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get employee with {} from database", employeeId);
                     throw new EmployeeNotFoundException(ErrorMessages.EMPLOYEE_NOT_FOUND);
                 });
 
         // Update data with employeeDetails received
+        EmployeeRoles previousRole = employeeEntity.getRole();
         employeeEntity.setFirstName(updateEmployeeDto.getFirstName());
         employeeEntity.setLastName(updateEmployeeDto.getLastName());
         employeeEntity.setRole(updateEmployeeDto.getRole());
@@ -153,15 +247,28 @@ public class EmployeeServiceImp implements EmployeeService {
         LOGGER.info("Saving updates from employee with id {}", employeeId);
         employeeRepository.save(employeeEntity);
 
-        // Convert to EmployeeDetailsDto and return updated employee
+        // Evict cached principal so the new role is used on the next request
+        principalCache.invalidate(employeeId);
+
+        // Revoke issued tokens when the role changed, since their claims carry the previous role
+        if (previousRole != employeeEntity.getRole()) {
+            tokenRevocationStore.revokeEmployeeTokens(employeeId);
+            invalidationBus.publish(InvalidationBus.EMPLOYEE_TOKENS, employeeId);
+        }
+
+        // Convert to EmployeeDetailsDto, cache it and return updated employee
         LOGGER.debug("Retrieving updated employee");
-        return EmployeeConverter.fromEmployeeEntityToEmployeeDetailsDto(employeeEntity);
+        EmployeeDetailsDto employeeDetailsDto = EmployeeConverter.fromEmployeeEntityToEmployeeDetailsDto(employeeEntity);
+        employeeDetailsCache.put(employeeId, employeeDetailsDto);
+        invalidationBus.publish(InvalidationBus.EMPLOYEES, employeeId);
+        return employeeDetailsDto;
     }
 
     /**
      * @see EmployeeService#deleteEmployee(long)
      */
     @Override
+    @Transactional
     public void deleteEmployee(long employeeId) throws EmployeeNotFoundException {
 
         // Get employee from database
@@ -172,8 +279,29 @@ public class EmployeeServiceImp implements EmployeeService {
                     throw new CustomerNotFoundException(ErrorMessages.EMPLOYEE_NOT_FOUND);
                 });
 
-        // Delete employee from database
+        // Delete refresh tokens and employee from database
         LOGGER.debug("Deleting employee with id {}", employeeId);
+        refreshTokenRepository.deleteByEmployeeId(employeeId);
         employeeRepository.delete(employeeEntity);
+        listCountCache.invalidate(ListCountCache.EMPLOYEES);
+        employeeDetailsCache.invalidate(employeeId);
+        invalidationBus.publish(InvalidationBus.EMPLOYEES, employeeId);
+
+        // Evict cached principal and revoke issued tokens so the deleted employee can't authenticate anymore
+        principalCache.invalidate(employeeId);
+        tokenRevocationStore.revokeEmployeeTokens(employeeId);
+        invalidationBus.publish(InvalidationBus.EMPLOYEE_TOKENS, employeeId);
+    }
+
+    /**
+     * Helper to load the details of an employee from the database, for the details cache
+     * @param employeeId
+     * @return {@link EmployeeDetailsDto}, null when there is no such employee
+     */
+    private EmployeeDetailsDto loadEmployee(long employeeId) {
+        LOGGER.debug("Getting employee with id {} from database", employeeId);
+        return employeeRepository.findById(employeeId)
+                .map(EmployeeConverter::fromEmployeeEntityToEmployeeDetailsDto)
+                .orElse(null);
     }
 }
@@ -1,11 +1,16 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.repair.CreateOrUpdateRepairDto;
 import com.rabbit.mechanic.command.repair.RepairDetailsDto;
+import com.rabbit.mechanic.exception.InvalidListQueryException;
 import com.rabbit.mechanic.exception.repair.RepairAlreadyExistsException;
 import com.rabbit.mechanic.exception.repair.RepairNotFoundException;
 
+import java.util.List;
+
 /**
  * Common interface for repair services, provides methods to manage repairs
  */
@@ -29,9 +34,38 @@ public interface RepairService {
 
     /**
      * Get Repairs List by status
+     * @param page page number
+     * @param size page size
+     * @param onlyActives
+     * @param filters filters on indexed fields, e.g. startDate>=2021-01-01, may be null
+     * @param sort field to sort by, prefixed with - for descending order, may be null
      * @return {@link RepairDetailsDto} the repairs obtained
+     * @throws InvalidListQueryException when the filters or sort are invalid or can't be served by an index
+     */
+    Paginated<RepairDetailsDto> getRepairsListByStatus(int page, int size, boolean onlyActives, List<String> filters, String sort)
+            throws InvalidListQueryException;
+
+    /**
+     * Get repairs by status without counting them
+     * @param page page number
+     * @param size page size
+     * @param onlyActives
+     * @param filters filters on indexed fields, e.g. startDate>=2021-01-01, may be null
+     * @param sort field to sort by, prefixed with - for descending order, may be null
+     * @return {@link Sliced} the repairs obtained and if there is a next page
+     * @throws InvalidListQueryException when the filters or sort are invalid or can't be served by an index
+     */
+    Sliced<RepairDetailsDto> getRepairsListByStatusWithoutTotals(int page, int size, boolean onlyActives, List<String> filters, String sort)
+            throws InvalidListQueryException;
+
+    /**
+     * Get repairs after a cursor, with keyset pagination
+     * @param cursor cursor of the page, empty for the first page
+     * @param size page size
+     * @param onlyActives
+     * @return {@link CursorPaginated} the repairs obtained and the cursor of the next page
      */
-    Paginated<RepairDetailsDto> getRepairsListByStatus(int page, int size, boolean onlyActives);
+    CursorPaginated<RepairDetailsDto> getRepairsListByStatusAfter(String cursor, int size, boolean onlyActives);
 
     /**
      * Get Repairs List
@@ -1,9 +1,20 @@
 package com.rabbit.mechanic.service;
 
+import com.rabbit.mechanic.cache.DetailsCache;
+import com.rabbit.mechanic.cache.DetailsCaches;
+import com.rabbit.mechanic.cache.InvalidationBus;
+import com.rabbit.mechanic.cache.ListCountCache;
+import com.rabbit.mechanic.cache.TableVersions;
+import com.rabbit.mechanic.command.Cursor;
+import com.rabbit.mechanic.command.CursorPaginated;
 import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.Sliced;
 import com.rabbit.mechanic.command.repair.CreateOrUpdateRepairDto;
 import com.rabbit.mechanic.command.repair.RepairDetailsDto;
+import com.rabbit.mechanic.converter.PageConverter;
 import com.rabbit.mechanic.converter.RepairConverter;
+import com.rabbit.mechanic.converter.CursorConverter;
+import com.rabbit.mechanic.converter.ListQueryConverter;
 import com.rabbit.mechanic.error.ErrorMessages;
 import com.rabbit.mechanic.exception.*;
 import com.rabbit.mechanic.exception.customer.CustomerNotFoundException;
@@ -11,16 +22,24 @@ import com.rabbit.mechanic.exception.repair.RepairAlreadyExistsException;
 import com.rabbit.mechanic.exception.repair.RepairNotFoundException;
 import com.rabbit.mechanic.persistence.entity.CarEntity;
 import com.rabbit.mechanic.persistence.entity.RepairEntity;
+import com.rabbit.mechanic.persistence.query.ListDefinitions;
+import com.rabbit.mechanic.persistence.query.ListQuery;
 import com.rabbit.mechanic.persistence.repository.CarRepository;
+import com.rabbit.mechanic.persistence.repository.ListQueryRepository;
+import com.rabbit.mechanic.persistence.shard.Shards;
 import com.rabbit.mechanic.persistence.repository.RepairRepository;
+import com.rabbit.mechanic.properties.PaginationProperties;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -30,12 +49,35 @@ import java.util.List;
 public class RepairServiceImp implements RepairService {
 
     private static final Logger LOGGER = LogManager.getLogger(RepairService.class);
+    // Order of the repairs lists, to merge the rows of several shards
+    private static final Comparator<RepairDetailsDto> REPAIR_ORDER = Comparator
+            .comparing(RepairDetailsDto::getStartDate)
+            .thenComparingLong(RepairDetailsDto::getRepairId);
     private final RepairRepository repairRepository;
     private final CarRepository carRepository;
-
-    public RepairServiceImp(RepairRepository repairRepository, CarRepository carRepository) {
+    private final PaginationProperties paginationProperties;
+    private final ListCountCache listCountCache;
+    private final ListQueryRepository listQueryRepository;
+    private final Shards shards;
+    private final DetailsCache<RepairDetailsDto> repairDetailsCache;
+    private final InvalidationBus invalidationBus;
+    private final TableVersions tableVersions;
+
+    public RepairServiceImp(RepairRepository repairRepository, CarRepository carRepository, PaginationProperties paginationProperties,
+                            ListCountCache listCountCache, ListQueryRepository listQueryRepository, Shards shards,
+                            DetailsCaches detailsCaches, InvalidationBus invalidationBus, TableVersions tableVersions) {
         this.repairRepository = repairRepository;
         this.carRepository = carRepository;
+        this.paginationProperties = paginationProperties;
+        this.listCountCache = listCountCache;
+        this.listQueryRepository = listQueryRepository;
+        this.shards = shards;
+        this.repairDetailsCache = detailsCaches.create(DetailsCaches.REPAIRS, this::loadRepair);
+        this.invalidationBus = invalidationBus;
+        this.tableVersions = tableVersions;
+
+        // Evict the repairs changed by other instances
+        invalidationBus.subscribe(InvalidationBus.REPAIRS, repairDetailsCache);
     }
 
     /**
@@ -48,9 +90,10 @@ public class RepairServiceImp implements RepairService {
         LOGGER.debug("Creating repair - {}", createRepairDto);
         RepairEntity repairEntity = RepairConverter.fromCreateOrUpdateRepairDtoToRepairEntity(createRepairDto);
 
-        // Get car from database
+        // Get car from the primary database of its shard, where its repairs live too
         LOGGER.debug("Getting car with id {} from database", createRepairDto.getCarId());
-        CarEntity carEntity = carRepository.findById(createRepairDto.getCarId())
+        int shard = shards.shardOf(createRepairDto.getCarId());
+        CarEntity carEntity = shards.onPrimary(shard, () -> carRepository.findById(createRepairDto.getCarId()))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get car with {} from database", createRepairDto.getCarId());
                     throw new CustomerNotFoundException(ErrorMessages.CAR_NOT_FOUND);
@@ -62,16 +105,25 @@ public class RepairServiceImp implements RepairService {
         LOGGER.info("Persisting repair into database");
         try {
             LOGGER.info("Saving repair on database");
-            repairRepository.save(repairEntity);
+            shards.on(shard, () -> repairRepository.save(repairEntity));
 
         } catch (DataIntegrityViolationException sqlException) {
             LOGGER.error("Duplicated name - {}", repairEntity, sqlException);
             throw new RepairAlreadyExistsException(ErrorMessages.REPAIR_ALREADY_EXISTS);
 
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+
         } catch (Exception e) {
             LOGGER.error("Failed while saving repair into database {}", repairEntity, e);
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
+        listCountCache.invalidate(ListCountCache.REPAIRS, ListCountCache.ACTIVE_REPAIRS);
+        tableVersions.bump(TableVersions.REPAIRS);
+
+        // Other instances keep the repair list pages and totals cached
+        invalidationBus.publish(InvalidationBus.REPAIRS, repairEntity.getRepairId());
 
         // Convert to RepairDetailsDto and return created repair
         LOGGER.debug("Retrieving created repair");
@@ -83,92 +135,141 @@ public class RepairServiceImp implements RepairService {
      */
     @Override
     public RepairDetailsDto getRepairById(long repairId) throws RepairNotFoundException {
+        // Get repair from the cache, loaded from the primary database of its shard on a miss
+        LOGGER.debug("Getting repair with id {}", repairId);
+        RepairDetailsDto repairDetailsDto = repairDetailsCache.get(repairId);
+        if (repairDetailsDto == null) {
+            LOGGER.error("Failed to get repair with {} from database", repairId);
+            throw new RepairNotFoundException(ErrorMessages.REPAIR_NOT_FOUND);
+        }
+        return repairDetailsDto;
+    }
 
-        // Get repair from database
-        LOGGER.debug("Getting repair with id {} from database", repairId);
-        RepairEntity repairEntity = repairRepository.findById(repairId)
-                .orElseThrow(() -> {
-                    LOGGER.error("Failed to get repair with {} from database", repairId);
-                    throw new RepairNotFoundException(ErrorMessages.REPAIR_NOT_FOUND);
-                });
+    /**
+     * @see RepairService#getRepairsListByStatus(int, int, boolean, List, String)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Paginated<RepairDetailsDto> getRepairsListByStatus(int page, int size, boolean onlyActives, List<String> filters, String sort) {
 
-        // Convert to RepairDetailsDto and return repair
-        LOGGER.debug("Retrieving got repair");
-        return RepairConverter.fromRepairEntityToRepairDetailsDto(repairEntity);
+        // Parse filters and sort, rejecting the ones no index can serve
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(
+                onlyActives ? ListDefinitions.ACTIVE_REPAIRS : ListDefinitions.REPAIRS, filters, sort);
+
+        // Get repairs from database
+        LOGGER.debug("Getting repairs from database - {}", listQuery.getKey());
+        Slice<RepairDetailsDto> repairList;
+        long totalResults;
+
+        try {
+            repairList = findRepairsByStatus(onlyActives, listQuery, PageRequest.of(page, paginationProperties.limit(size)));
+            totalResults = listCountCache.get(listQuery.getKey(), () -> countRepairsByStatus(onlyActives, listQuery));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting all repairs from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
+        }
+
+        // Build custom paginated object with the cached total and return list of RepairDetailsDto
+        return PageConverter.fromSliceToPaginated(repairList, totalResults);
     }
 
     /**
-     * @see RepairService#getRepairsListByStatus(int, int, boolean)
+     * @see RepairService#getRepairsListByStatusWithoutTotals(int, int, boolean, List, String)
      */
     @Override
-    public Paginated<RepairDetailsDto> getRepairsListByStatus(int page, int size, boolean onlyActives) {
+    @Transactional(readOnly = true)
+    public Sliced<RepairDetailsDto> getRepairsListByStatusWithoutTotals(int page, int size, boolean onlyActives, List<String> filters, String sort) {
 
-        // Get all repairs from database
-        LOGGER.debug("Getting all repairs from database");
-        Page<RepairEntity> repairList = null;
+        // Parse filters and sort, rejecting the ones no index can serve
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(
+                onlyActives ? ListDefinitions.ACTIVE_REPAIRS : ListDefinitions.REPAIRS, filters, sort);
 
-        try {
-            repairList = repairRepository.findAllByStatus(onlyActives, PageRequest.of(page, size));
+        // Get repairs from database, without counting them
+        LOGGER.debug("Getting repairs from database - {}", listQuery.getKey());
+        Slice<RepairDetailsDto> repairList;
 
+        try {
+            repairList = findRepairsByStatus(onlyActives, listQuery, PageRequest.of(page, paginationProperties.limit(size)));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
         } catch (Exception e) {
             LOGGER.error("Failed while getting all repairs from database", e);
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
 
-        // Convert list items from RepairEntity to RepairDetailsDto
-        LOGGER.debug("Convert list items from RepairEntity to RepairDetailsDto");
-        List<RepairDetailsDto> repairListResponse = new ArrayList<>();
-        for (RepairEntity repairEntity : repairList.getContent()) {
-            repairListResponse.add(RepairConverter.fromRepairEntityToRepairDetailsDto(repairEntity));
-        }
+        // Build sliced object and return list of RepairDetailsDto
+        return PageConverter.fromSliceToSliced(repairList);
+    }
+
+    /**
+     * @see RepairService#getRepairsListByStatusAfter(String, int, boolean)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginated<RepairDetailsDto> getRepairsListByStatusAfter(String cursor, int size, boolean onlyActives) {
+
+        // Decode cursor and limit page size
+        Cursor after = CursorConverter.fromTokenToCursor(cursor);
+        Date afterStartDate = after == null ? null : CursorConverter.fromKeyToDate(after);
+        int pageSize = paginationProperties.limit(size);
+
+        // Get repairs after the cursor from database, one more than the page size to know if there is a next page
+        LOGGER.debug("Getting repairs after cursor {} from database", cursor);
+        List<RepairDetailsDto> repairsList;
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
 
-        // Build custom paginated object
-        Paginated<RepairDetailsDto> results = new Paginated<>(
-                repairListResponse,
-                page,
-                repairListResponse.size(),
-                repairList.getTotalPages(),
-                repairList.getTotalElements());
+        try {
+            repairsList = shards.findFirst(pageSize + 1, REPAIR_ORDER, () -> {
+                if (after == null) {
+                    return findRepairsByStatus(onlyActives, pageRequest).getContent();
+                } else if (onlyActives) {
+                    return repairRepository.findActiveRepairDetailsAfter(afterStartDate, after.getId(), pageRequest);
+                }
+                return repairRepository.findRepairDetailsAfter(afterStartDate, after.getId(), pageRequest);
+            });
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Failed while getting repairs from database", e);
+            throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
+        }
 
-        // Return list of RepairDetailsDto
-        return results;
+        // Build cursor paginated object
+        return CursorConverter.fromRowsToCursorPaginated(repairsList, pageSize,
+                repair -> new Cursor(CursorConverter.fromDateToKey(repair.getStartDate()), repair.getRepairId()));
     }
 
     /**
      * @see RepairService#getRepairsListByStatus(int, int, boolean)
      */
     @Override
+    @Transactional(readOnly = true)
     public Paginated<RepairDetailsDto> getRepairsList(int page, int size) {
 
         // Get all repairs from database
         LOGGER.debug("Getting all repairs from database");
-        Page<RepairEntity> repairList = null;
+        Slice<RepairDetailsDto> repairList;
+        long totalResults;
 
         try {
-            repairList = repairRepository.findAll(PageRequest.of(page, size));
-
+            repairList = shards.findAll(PageRequest.of(page, paginationProperties.limit(size)), REPAIR_ORDER,
+                    repairRepository::findAllRepairDetails);
+            totalResults = listCountCache.get(ListCountCache.REPAIRS, () -> shards.sum(repairRepository::count));
+        } catch (RabbitMechanicException e) {
+            // Since RabbitMechanicException exceptions are thrown by us, we just throw them
+            throw e;
         } catch (Exception e) {
             LOGGER.error("Failed while getting all repairs from database", e);
             throw new DataBaseCommunicationException(ErrorMessages.DATABASE_COMMUNICATION_ERROR, e);
         }
 
-        // Convert list items from RepairEntity to RepairDetailsDto
-        LOGGER.debug("Convert list items from RepairEntity to RepairDetailsDto");
-        List<RepairDetailsDto> repairListResponse = new ArrayList<>();
-        for (RepairEntity repairEntity : repairList.getContent()) {
-            repairListResponse.add(RepairConverter.fromRepairEntityToRepairDetailsDto(repairEntity));
-        }
-
-        // Build custom paginated object
-        Paginated<RepairDetailsDto> results = new Paginated<>(
-                repairListResponse,
-                page,
-                repairListResponse.size(),
-                repairList.getTotalPages(),
-                repairList.getTotalElements());
-
-        // Return list of RepairDetailsDto
-        return results;
+        // Build custom paginated object with the cached total and return list of RepairDetailsDto
+        return PageConverter.fromSliceToPaginated(repairList, totalResults);
     }
 
     /**
@@ -177,9 +278,10 @@ public class RepairServiceImp implements RepairService {
     @Override
     public RepairDetailsDto updateRepairDetails(long repairId, CreateOrUpdateRepairDto updateRepairDto) throws RepairNotFoundException {
 
-        // Get repair from database
+        // Get repair from the primary database of its shard
         LOGGER.debug("Getting repair with id {} from database", repairId);
-        RepairEntity repairEntity = repairRepository.findById(repairId)
+        int shard = shards.shardOf(repairId);
+        RepairEntity repairEntity = shards.onPrimary(shard, () -> repairRepository.findById(repairId))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get repair with {} from database", repairId);
                     throw new RepairNotFoundException(ErrorMessages.REPAIR_NOT_FOUND);
@@ -192,11 +294,16 @@ public class RepairServiceImp implements RepairService {
 
         // Save changes
         LOGGER.info("Saving updates from repair with id {}", repairId);
-        repairRepository.save(repairEntity);
+        shards.on(shard, () -> repairRepository.save(repairEntity));
+        listCountCache.invalidate(ListCountCache.ACTIVE_REPAIRS);
+        tableVersions.bump(TableVersions.REPAIRS);
 
-        // Convert to RepairDetailsDto and return updated repair
+        // Convert to RepairDetailsDto, cache it and return updated repair
         LOGGER.debug("Retrieving updated repair");
-        return RepairConverter.fromRepairEntityToRepairDetailsDto(repairEntity);
+        RepairDetailsDto repairDetailsDto = RepairConverter.fromRepairEntityToRepairDetailsDto(repairEntity);
+        repairDetailsCache.put(repairId, repairDetailsDto);
+        invalidationBus.publish(InvalidationBus.REPAIRS, repairId);
+        return repairDetailsDto;
     }
 
     /**
@@ -205,9 +312,10 @@ public class RepairServiceImp implements RepairService {
     @Override
     public void deleteRepair(long repairId) throws RepairNotFoundException {
 
-        // Get repair from database
+        // Get repair from the primary database of its shard
         LOGGER.debug("Getting repair with id {} from database", repairId);
-        RepairEntity repairEntity = repairRepository.findById(repairId)
+        int shard = shards.shardOf(repairId);
+        RepairEntity repairEntity = shards.onPrimary(shard, () -> repairRepository.findById(repairId))
                 .orElseThrow(() -> {
                     LOGGER.error("Failed to get repair with {} from database", repairId);
                     throw new RepairNotFoundException(ErrorMessages.REPAIR_NOT_FOUND);
@@ -215,6 +323,67 @@ public class RepairServiceImp implements RepairService {
 
         // Delete repair from database
         LOGGER.debug("Deleting repair with id {}", repairId);
-        repairRepository.delete(repairEntity);
+        shards.on(shard, () -> {
+            repairRepository.delete(repairEntity);
+            return null;
+        });
+        listCountCache.invalidate(ListCountCache.REPAIRS, ListCountCache.ACTIVE_REPAIRS);
+        tableVersions.bump(TableVersions.REPAIRS);
+        repairDetailsCache.invalidate(repairId);
+        invalidationBus.publish(InvalidationBus.REPAIRS, repairId);
+    }
+
+    /**
+     * Helper to get active or all repairs, each through its own indexed query
+     * @param onlyActives
+     * @param pageable
+     * @return repairs sliced
+     */
+    private Slice<RepairDetailsDto> findRepairsByStatus(boolean onlyActives, Pageable pageable) {
+        return onlyActives
+                ? repairRepository.findActiveRepairDetails(pageable)
+                : repairRepository.findAllRepairDetails(pageable);
+    }
+
+    /**
+     * Helper to get active or all repairs over every shard, through the list query when filtered or sorted
+     * @param onlyActives
+     * @param listQuery {@link ListQuery}
+     * @param pageable
+     * @return repairs sliced
+     */
+    private Slice<RepairDetailsDto> findRepairsByStatus(boolean onlyActives, ListQuery listQuery, Pageable pageable) {
+        if (!listQuery.isCustom()) {
+            return shards.findAll(pageable, REPAIR_ORDER, head -> findRepairsByStatus(onlyActives, head));
+        }
+        return shards.findAll(pageable, ListQueryConverter.fromListQueryToComparator(listQuery), head -> listQueryRepository.findAll(
+                onlyActives ? ListDefinitions.ACTIVE_REPAIRS : ListDefinitions.REPAIRS, listQuery, head));
+    }
+
+    /**
+     * Helper to count active or all repairs over every shard, through the list query when filtered
+     * @param onlyActives
+     * @param listQuery {@link ListQuery}
+     * @return the total
+     */
+    private long countRepairsByStatus(boolean onlyActives, ListQuery listQuery) {
+        return shards.sum(() -> {
+            if (listQuery.isCustom()) {
+                return listQueryRepository.count(onlyActives ? ListDefinitions.ACTIVE_REPAIRS : ListDefinitions.REPAIRS, listQuery);
+            }
+            return onlyActives ? repairRepository.countByEndDateIsNull() : repairRepository.count();
+        });
+    }
+
+    /**
+     * Helper to load the details of a repair from the primary database of its shard, for the details cache
+     * @param repairId
+     * @return {@link RepairDetailsDto}, null when there is no such repair
+     */
+    private RepairDetailsDto loadRepair(long repairId) {
+        LOGGER.debug("Getting repair with id {} from database", repairId);
+        return shards.on(shards.shardOf(repairId), () -> repairRepository.findById(repairId))
+                .map(RepairConverter::fromRepairEntityToRepairDetailsDto)
+                .orElse(null);
     }
 }
@@ -1,89 +1,94 @@
 INSERT INTO employees
-(first_name, last_name, username, encrypted_password, role)
+(employee_id, first_name, last_name, username, encrypted_password, role)
 VALUES
-("Mr.Rabbit", "Mechanic", "admin", "$2a$12$H70KfbIyV2kYSWt8hu8Cu.cYb8yTIyRBBOdTW8mFpnZ/xGF0Bmgn2", "ADMIN");
+("1", "Mr.Rabbit", "Mechanic", "admin", "$2a$12$H70KfbIyV2kYSWt8hu8Cu.cYb8yTIyRBBOdTW8mFpnZ/xGF0Bmgn2", "ADMIN");
 
 INSERT INTO employees
-(first_name, last_name, username, encrypted_password, role)
+(employee_id, first_name, last_name, username, encrypted_password, role)
 VALUES
-("João", "Faustino", "joao.faustino", "$2a$12$H70KfbIyV2kYSWt8hu8Cu.cYb8yTIyRBBOdTW8mFpnZ/xGF0Bmgn2", "MECHANIC");
+("2", "João", "Faustino", "joao.faustino", "$2a$12$H70KfbIyV2kYSWt8hu8Cu.cYb8yTIyRBBOdTW8mFpnZ/xGF0Bmgn2", "MECHANIC");
 
 INSERT INTO employees
-(first_name, last_name, username, encrypted_password, role)
+(employee_id, first_name, last_name, username, encrypted_password, role)
 VALUES
-("Rafael", "Miranda", "rafa.miranda", "$2a$12$H70KfbIyV2kYSWt8hu8Cu.cYb8yTIyRBBOdTW8mFpnZ/xGF0Bmgn2", "RECEPTIONIST");
+("3", "Rafael", "Miranda", "rafa.miranda", "$2a$12$H70KfbIyV2kYSWt8hu8Cu.cYb8yTIyRBBOdTW8mFpnZ/xGF0Bmgn2", "RECEPTIONIST");
 
 INSERT INTO customers
-(first_name, last_name, address, email, cell_Number)
+(customer_id, first_name, last_name, address, email, cell_Number)
 VALUES
-("David", "Peter", "Gang Street", "david.peter@gmail.com", "925816696");
+("1", "David", "Peter", "Gang Street", "david.peter@gmail.com", "925816696");
 
 INSERT INTO customers
-(first_name, last_name, address, email, cell_Number)
+(customer_id, first_name, last_name, address, email, cell_Number)
 VALUES
-("Peter", "Parker", "Spidy Street", "peter.parker@gmail.com", "911452362");
+("2", "Peter", "Parker", "Spidy Street", "peter.parker@gmail.com", "911452362");
 
 INSERT INTO customers
-(first_name, last_name, address, email, cell_Number)
+(customer_id, first_name, last_name, address, email, cell_Number)
 VALUES
-("Sara", "Cardoso", "Mindera Street", "sara.cardoso@gmail.com", "958256325");
+("3", "Sara", "Cardoso", "Mindera Street", "sara.cardoso@gmail.com", "958256325");
 
 INSERT INTO customers
-(first_name, last_name, address, email, cell_Number)
+(customer_id, first_name, last_name, address, email, cell_Number)
 VALUES
-("Roger", "Jane", "Yder Street", "roger.Jane@gmail.com", "958256325");
+("4", "Roger", "Jane", "Yder Street", "roger.Jane@gmail.com", "958256325");
 
 INSERT INTO cars
-(customer_id, brand, engine_type, plate)
+(car_id, customer_id, brand, engine_type, plate)
 VALUES
-("1", "ABARTH", "Petrol", "El-Rei");
+("1", "1", "ABARTH", "Petrol", "El-Rei");
 
 INSERT INTO cars
-(customer_id, brand, engine_type, plate)
+(car_id, customer_id, brand, engine_type, plate)
 VALUES
-("2", "SEAT", "Diesel", "Fumarento");
+("2", "2", "SEAT", "Diesel", "Fumarento");
 
 INSERT INTO cars
-(customer_id, brand, engine_type, plate)
+(car_id, customer_id, brand, engine_type, plate)
 VALUES
-("3", "LAMBORGHINI", "Petrol", "Queen");
+("3", "3", "LAMBORGHINI", "Petrol", "Queen");
 
 INSERT INTO cars
-(customer_id, brand, engine_type, plate)
+(car_id, customer_id, brand, engine_type, plate)
 VALUES
-("4", "MITSUBISHI", "Petrol", "Gangsta");
+("4", "4", "MITSUBISHI", "Petrol", "Gangsta");
 
 INSERT INTO repairs
-(car_id, repair_name, repair_description, start_date, end_date, price)
+(repair_id, car_id, repair_name, repair_description, start_date, end_date, price)
 VALUES
-("1", "Change Tires", "Continental tyres x4", "2021-01-01", "2021-01-01", "100");
+("1", "1", "Change Tires", "Continental tyres x4", "2021-01-01", "2021-01-01", "100");
 
 INSERT INTO repairs
-(car_id, repair_name, repair_description, start_date, end_date, price)
+(repair_id, car_id, repair_name, repair_description, start_date, end_date, price)
 VALUES
-("2", "Oil Leak", "Oil 15W-40", "2021-01-15", "2021-01-30", "80");
+("2", "2", "Oil Leak", "Oil 15W-40", "2021-01-15", "2021-01-30", "80");
 
 INSERT INTO repairs
-(car_id, repair_name, repair_description, start_date)
+(repair_id, car_id, repair_name, repair_description, start_date)
 VALUES
-("3", "New Glass", "front glass changed", "2021-05-07");
+("3", "3", "New Glass", "front glass changed", "2021-05-07");
 
 INSERT INTO repairs
-(car_id, repair_name, repair_description, start_date)
+(repair_id, car_id, repair_name, repair_description, start_date)
 VALUES
-("4", "Electric", "some problems with control unit", "2021-04-10");
+("4", "4", "Electric", "some problems with control unit", "2021-04-10");
 
 INSERT INTO repairs
-(car_id, repair_name, repair_description, start_date)
+(repair_id, car_id, repair_name, repair_description, start_date)
 VALUES
-("2", "New Motor", "motor breaked, new motor coming", "2021-03-01");
+("5", "2", "New Motor", "motor breaked, new motor coming", "2021-03-01");
 
 INSERT INTO repairs
-(car_id, repair_name, repair_description, start_date, end_date, price)
+(repair_id, car_id, repair_name, repair_description, start_date, end_date, price)
 VALUES
-("3", "New Color", "full car pink", "2021-04-10", "2021-04-20", "200");
+("6", "3", "New Color", "full car pink", "2021-04-10", "2021-04-20", "200");
 
 INSERT INTO repairs
-(car_id, repair_name, repair_description, start_date, end_date, price)
+(repair_id, car_id, repair_name, repair_description, start_date, end_date, price)
 VALUES
-("3", "New Color", "full car pink", "2021-04-10", "2021-04-20", "200");
\ No newline at end of file
+("7", "3", "New Color", "full car pink", "2021-04-10", "2021-04-20", "200");
+
+UPDATE id_generators SET next_val = "3" WHERE sequence_name = "employees";
+UPDATE id_generators SET next_val = "4" WHERE sequence_name = "customers";
+UPDATE id_generators SET next_val = "4" WHERE sequence_name = "cars";
+UPDATE id_generators SET next_val = "7" WHERE sequence_name = "repairs";
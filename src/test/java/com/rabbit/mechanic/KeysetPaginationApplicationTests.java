@@ -0,0 +1,130 @@
+package com.rabbit.mechanic;
+
+import com.rabbit.mechanic.command.CursorPaginated;
+import com.rabbit.mechanic.command.car.CarDetailsDto;
+import com.rabbit.mechanic.command.car.CreateOrUpdateCarDto;
+import com.rabbit.mechanic.command.customer.CreateOrUpdateCustomerDto;
+import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
+import com.rabbit.mechanic.command.repair.CreateOrUpdateRepairDto;
+import com.rabbit.mechanic.command.repair.RepairDetailsDto;
+import com.rabbit.mechanic.enumerators.CarBrands;
+import com.rabbit.mechanic.service.CarService;
+import com.rabbit.mechanic.service.CustomerService;
+import com.rabbit.mechanic.service.RepairService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks the keyset paginated lists on an in memory database, through rows tied on their sort key
+ */
+@SpringBootTest(properties = {
+        "rabbit-mechanic.lazy-load-guard.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:rabbit-mechanic;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.initialization-mode=never",
+        "rabbit-mechanic.jwt.secretKey=0123456789012345678901234567890123456789",
+        "rabbit-mechanic.password-hashing.strength=10"
+})
+class KeysetPaginationApplicationTests {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private RepairService repairService;
+
+    @Test
+    void walksCustomersTiedOnFirstName() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(customer("Keyset", i).getCustomerId());
+        }
+        created.add(customer("Keyset-last", 5).getCustomerId());
+
+        List<Long> walked = walk(cursor -> customerService.getCustomerListAfter(cursor, PAGE_SIZE),
+                CustomerDetailsDto::getCustomerId);
+
+        assertEquals(created, walked.stream().filter(created::contains).collect(Collectors.toList()));
+    }
+
+    @Test
+    void walksRepairsTiedOnStartDate() {
+        CustomerDetailsDto customer = customer("Repairs", 0);
+        CarDetailsDto car = carService.createCar(CreateOrUpdateCarDto.builder()
+                .userId(customer.getCustomerId())
+                .brand(CarBrands.BMW)
+                .engineType("diesel")
+                .plate("KS-00-00")
+                .build());
+
+        Date startDate = new Date(4102444800000L);
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(repair(car, startDate).getRepairId());
+        }
+        created.add(repair(car, new Date(startDate.getTime() + 86400000L)).getRepairId());
+
+        List<Long> walked = walk(cursor -> repairService.getRepairsListByStatusAfter(cursor, PAGE_SIZE, true),
+                RepairDetailsDto::getRepairId);
+
+        assertEquals(created, walked.stream().filter(created::contains).collect(Collectors.toList()));
+    }
+
+    /**
+     * Helper to follow the next cursors until the last page, which has none
+     * @param page page after a cursor
+     * @param idOf id of a row
+     * @return the ids of every row, checking none is returned twice
+     */
+    private static <T> List<Long> walk(Function<String, CursorPaginated<T>> page, ToLongFunction<T> idOf) {
+        List<Long> walked = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorPaginated<T> current = page.apply(cursor);
+            assertTrue(current.getResults().size() <= PAGE_SIZE);
+            assertEquals(current.getResults().size(), current.getResultsCurrentPage());
+            current.getResults().forEach(row -> walked.add(idOf.applyAsLong(row)));
+            cursor = current.getNext();
+        } while (cursor != null);
+
+        assertEquals(walked.size(), walked.stream().distinct().count());
+        return walked;
+    }
+
+    private CustomerDetailsDto customer(String firstName, int number) {
+        return customerService.createCustomer(CreateOrUpdateCustomerDto.builder()
+                .firstName(firstName)
+                .lastName("Customer " + number)
+                .address("Street")
+                .email("keyset" + firstName.length() + number + "@rabbit-mechanic.com")
+                .cellNumber("91234567" + number)
+                .build());
+    }
+
+    private RepairDetailsDto repair(CarDetailsDto car, Date startDate) {
+        return repairService.createRepair(CreateOrUpdateRepairDto.builder()
+                .carId(car.getCarId())
+                .repairName("Brakes")
+                .repairDescription("Change the brake pads")
+                .startDate(startDate)
+                .price(new BigDecimal("120.00"))
+                .build());
+    }
+}
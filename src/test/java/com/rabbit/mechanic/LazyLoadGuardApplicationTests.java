@@ -0,0 +1,102 @@
+package com.rabbit.mechanic;
+
+import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.command.car.CarDetailsDto;
+import com.rabbit.mechanic.command.car.CreateOrUpdateCarDto;
+import com.rabbit.mechanic.command.customer.CreateOrUpdateCustomerDto;
+import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
+import com.rabbit.mechanic.command.repair.CreateOrUpdateRepairDto;
+import com.rabbit.mechanic.command.repair.RepairDetailsDto;
+import com.rabbit.mechanic.enumerators.CarBrands;
+import com.rabbit.mechanic.exception.customer.CustomerNotFoundException;
+import com.rabbit.mechanic.persistence.guard.LazyLoadGuard;
+import com.rabbit.mechanic.service.CarService;
+import com.rabbit.mechanic.service.CustomerService;
+import com.rabbit.mechanic.service.RepairService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the services on an in memory database with the lazy load guard on,
+ * so any lazy collection loaded on the way fails the test
+ */
+@SpringBootTest(properties = {
+        "rabbit-mechanic.lazy-load-guard.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:rabbit-mechanic;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.initialization-mode=never",
+        "rabbit-mechanic.jwt.secretKey=0123456789012345678901234567890123456789",
+        "rabbit-mechanic.password-hashing.strength=10"
+})
+class LazyLoadGuardApplicationTests {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private RepairService repairService;
+
+    @Test
+    void servesDetailsAndListsWithoutLazyLoads() {
+        assertNotNull(applicationContext.getBean(LazyLoadGuard.class));
+
+        CustomerDetailsDto customer = customerService.createCustomer(CreateOrUpdateCustomerDto.builder()
+                .firstName("Ada")
+                .lastName("Lovelace")
+                .address("Street")
+                .email("ada@rabbit-mechanic.com")
+                .cellNumber("912345678")
+                .build());
+        CarDetailsDto car = carService.createCar(CreateOrUpdateCarDto.builder()
+                .userId(customer.getCustomerId())
+                .brand(CarBrands.BMW)
+                .engineType("diesel")
+                .plate("AA-00-AA")
+                .build());
+        RepairDetailsDto repair = repairService.createRepair(CreateOrUpdateRepairDto.builder()
+                .carId(car.getCarId())
+                .repairName("Brakes")
+                .repairDescription("Change the brake pads")
+                .startDate(new Date())
+                .price(new BigDecimal("120.00"))
+                .build());
+
+        assertEquals("Ada", customerService.getCustomerById(customer.getCustomerId()).getFirstName());
+        assertEquals("AA-00-AA", carService.getCarById(car.getCarId()).getPlate());
+        assertEquals("Brakes", repairService.getRepairById(repair.getRepairId()).getRepairName());
+
+        Paginated<CarDetailsDto> cars = carService.getCarsList(0, 20,
+                Collections.singletonList("customerId=" + customer.getCustomerId()), null);
+        assertEquals(1, cars.getTotalResults());
+        assertEquals(1, repairService.getRepairsListByStatus(0, 20, true, null, null).getResults().size());
+        assertEquals(1, customerService.getCustomerList(0, 20, null, null).getResults().size());
+
+        // Updates and deletes go through the entities and their associations
+        carService.updateCarDetails(car.getCarId(), CreateOrUpdateCarDto.builder()
+                .userId(customer.getCustomerId())
+                .brand(CarBrands.BMW)
+                .engineType("electric")
+                .plate("AA-00-AA")
+                .build());
+        assertEquals("electric", carService.getCarById(car.getCarId()).getEngineType());
+        repairService.deleteRepair(repair.getRepairId());
+        carService.deleteCar(car.getCarId());
+        customerService.deleteCustomer(customer.getCustomerId());
+        assertThrows(CustomerNotFoundException.class, () -> customerService.getCustomerById(customer.getCustomerId()));
+    }
+}
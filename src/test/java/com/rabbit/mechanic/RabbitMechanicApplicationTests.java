@@ -3,7 +3,7 @@ package com.rabbit.mechanic;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "rabbit-mechanic.lazy-load-guard.enabled=true")
 class RabbitMechanicApplicationTests {
 
     @Test
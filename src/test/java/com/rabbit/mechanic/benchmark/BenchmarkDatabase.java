@@ -0,0 +1,91 @@
+package com.rabbit.mechanic.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In memory H2 database (MySQL mode) with the application entities, for benchmarks
+ * that need repositories without starting the whole application
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    private final JdbcDataSource dataSource;
+    private final LocalContainerEntityManagerFactoryBean factoryBean;
+    private final EntityManager entityManager;
+    private final JpaRepositoryFactory repositoryFactory;
+    private final JpaTransactionManager transactionManager;
+    private final JpaRepositoryFactory transactionalRepositoryFactory;
+
+    public BenchmarkDatabase(String name) {
+        this(name, new HashMap<>());
+    }
+
+    public BenchmarkDatabase(String name, Map<String, Object> jpaProperties) {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        // Same naming strategies as the application, so tables and columns are snake case
+        Map<String, Object> properties = new HashMap<>(jpaProperties);
+        properties.put("hibernate.hbm2ddl.auto", "create-drop");
+        properties.put("hibernate.physical_naming_strategy", SpringPhysicalNamingStrategy.class.getName());
+        properties.put("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.rabbit.mechanic.persistence.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+
+        EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        repositoryFactory = new JpaRepositoryFactory(entityManager);
+        transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactionalRepositoryFactory = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public <T> T getRepository(Class<T> repositoryInterface) {
+        return repositoryFactory.getRepository(repositoryInterface);
+    }
+
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    /**
+     * Get a repository joining the transactions of {@link #getTransactionManager()}, as in the application
+     * @param repositoryInterface
+     * @return the repository
+     */
+    public <T> T getTransactionalRepository(Class<T> repositoryInterface) {
+        return transactionalRepositoryFactory.getRepository(repositoryInterface);
+    }
+
+    @Override
+    public void close() {
+        entityManager.close();
+        factoryBean.destroy();
+    }
+}
@@ -0,0 +1,102 @@
+package com.rabbit.mechanic.benchmark;
+
+import com.rabbit.mechanic.persistence.entity.CarEntity;
+import com.rabbit.mechanic.persistence.entity.RepairEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to insert 10k repairs in one transaction, one statement per repair (batchSize 0, as when ids were
+ * generated by the database and each insert ran on its own) against JDBC batches of 50.
+ * The database is in memory, against MySQL each saved round trip also saves the network latency
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InsertBatchingBenchmark {
+
+    private static final int CARS = 100;
+    private static final int REPAIRS = 10_000;
+
+    @Param({"0", "50"})
+    private int batchSize;
+
+    private BenchmarkDatabase database;
+
+    @Setup
+    public void setup() throws SQLException {
+        database = new BenchmarkDatabase("insert_batching",
+                Collections.singletonMap("hibernate.jdbc.batch_size", batchSize));
+
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO customers (customer_id, first_name, last_name, address, email, cell_number) " +
+                    "VALUES (1, 'First', 'Last', 'Street', 'customer@mail.com', '900000000')");
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO cars (car_id, customer_id, brand, engine_type, plate) VALUES (?, 1, 'BMW', 'DIESEL', ?)")) {
+                for (int i = 1; i <= CARS; i++) {
+                    insert.setLong(1, i);
+                    insert.setString(2, String.format("P%07d", i));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteRepairs() {
+        EntityManager entityManager = database.getEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("DELETE FROM RepairEntity").executeUpdate();
+        entityManager.getTransaction().commit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public void insertRepairs() {
+        EntityManager entityManager = database.getEntityManager();
+        entityManager.getTransaction().begin();
+
+        Date now = new Date();
+        for (int i = 0; i < REPAIRS; i++) {
+            entityManager.persist(RepairEntity.builder()
+                    .carEntity(entityManager.getReference(CarEntity.class, (long) (i % CARS) + 1))
+                    .repairName("Repair " + i)
+                    .repairDescription("Description of the repair number " + i)
+                    .startDate(now)
+                    .price(BigDecimal.valueOf(i % 1000, 2))
+                    .build());
+        }
+
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(InsertBatchingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.rabbit.mechanic.benchmark;
+
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import com.rabbit.mechanic.properties.JwtProperties;
+import com.rabbit.mechanic.security.JwtTokenVerifier;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verified per second with a parser built per request (previous path)
+ * against the shared {@link JwtTokenVerifier}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "rabbit-mechanic-benchmark-secret-key";
+
+    private String base64Secret;
+    private JwtTokenVerifier jwtTokenVerifier;
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecretKey(SECRET);
+        jwtProperties.setExpiresIn(3600000L);
+        jwtProperties.setClockSkewSeconds(30L);
+
+        base64Secret = Base64.getEncoder().encodeToString(SECRET.getBytes());
+        jwtTokenVerifier = new JwtTokenVerifier(jwtProperties);
+
+        Date issuedAt = new Date();
+        token = Jwts.builder()
+                .claim(JwtTokenVerifier.EMPLOYEE_ID_CLAIM, 1L)
+                .claim(JwtTokenVerifier.FIRST_NAME_CLAIM, "Mr.Rabbit")
+                .claim(JwtTokenVerifier.LAST_NAME_CLAIM, "Mechanic")
+                .claim(JwtTokenVerifier.ROLE_CLAIM, EmployeeRoles.ADMIN)
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + jwtProperties.getExpiresIn()))
+                .signWith(SignatureAlgorithm.HS256, jwtTokenVerifier.getKey())
+                .compact();
+    }
+
+    @Benchmark
+    public Long parserPerRequest() {
+        return Jwts.parser()
+                .setSigningKey(base64Secret)
+                .parseClaimsJws(token)
+                .getBody()
+                .get(JwtTokenVerifier.EMPLOYEE_ID_CLAIM, Long.class);
+    }
+
+    @Benchmark
+    public long sharedVerifier() {
+        return jwtTokenVerifier.verify(token).getEmployeeId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
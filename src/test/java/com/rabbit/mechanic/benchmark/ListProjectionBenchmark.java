@@ -0,0 +1,145 @@
+package com.rabbit.mechanic.benchmark;
+
+import com.rabbit.mechanic.command.repair.RepairDetailsDto;
+import com.rabbit.mechanic.converter.RepairConverter;
+import com.rabbit.mechanic.persistence.entity.RepairEntity;
+import com.rabbit.mechanic.persistence.repository.RepairRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one repairs page over 100k rows, loading entities and converting them (previous path)
+ * against selecting straight into {@link RepairDetailsDto}.
+ * Run with {@code -prof gc} to compare the allocation per page
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListProjectionBenchmark {
+
+    private static final int CUSTOMERS = 1_000;
+    private static final int CARS = 10_000;
+    private static final int REPAIRS = 100_000;
+
+    @Param({"50", "200"})
+    private int size;
+
+    private BenchmarkDatabase database;
+    private RepairRepository repairRepository;
+    private PageRequest pageRequest;
+
+    @Setup
+    public void setup() throws SQLException {
+        database = new BenchmarkDatabase("list_projection");
+        repairRepository = database.getRepository(RepairRepository.class);
+        pageRequest = PageRequest.of(100, size, Sort.by("repairId"));
+
+        try (Connection connection = database.getDataSource().getConnection()) {
+            insertDataset(connection);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<RepairDetailsDto> entities() {
+        Page<RepairEntity> page = repairRepository.findAll(pageRequest);
+
+        List<RepairDetailsDto> repairs = new ArrayList<>();
+        for (RepairEntity repairEntity : page.getContent()) {
+            repairs.add(RepairConverter.fromRepairEntityToRepairDetailsDto(repairEntity));
+        }
+
+        // Requests get a new persistence context, so don't let entities pile up between calls
+        database.getEntityManager().clear();
+        return repairs;
+    }
+
+    @Benchmark
+    public List<RepairDetailsDto> projection() {
+        List<RepairDetailsDto> repairs = repairRepository.findAllRepairDetails(pageRequest).getContent();
+        database.getEntityManager().clear();
+        return repairs;
+    }
+
+    private static void insertDataset(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO customers (customer_id, first_name, last_name, address, email, cell_number) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= CUSTOMERS; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "First" + i);
+                statement.setString(3, "Last" + i);
+                statement.setString(4, "Street " + i);
+                statement.setString(5, "customer" + i + "@mail.com");
+                statement.setString(6, String.format("9%08d", i));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO cars (car_id, customer_id, brand, engine_type, plate) VALUES (?, ?, 'BMW', 'DIESEL', ?)")) {
+            for (int i = 1; i <= CARS; i++) {
+                statement.setLong(1, i);
+                statement.setLong(2, (i % CUSTOMERS) + 1);
+                statement.setString(3, String.format("P%07d", i));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        long now = System.currentTimeMillis();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO repairs (repair_id, car_id, repair_name, repair_description, start_date, end_date, price) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= REPAIRS; i++) {
+                statement.setLong(1, i);
+                statement.setLong(2, (i % CARS) + 1);
+                statement.setString(3, "Repair " + i);
+                statement.setString(4, "Description of the repair number " + i);
+                statement.setTimestamp(5, new Timestamp(now - i * 60_000L));
+                statement.setTimestamp(6, i % 10 == 0 ? null : new Timestamp(now - i * 30_000L));
+                statement.setBigDecimal(7, BigDecimal.valueOf(i % 1000, 2));
+                statement.addBatch();
+                if (i % 10_000 == 0) {
+                    statement.executeBatch();
+                }
+            }
+        }
+
+        connection.commit();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ListProjectionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
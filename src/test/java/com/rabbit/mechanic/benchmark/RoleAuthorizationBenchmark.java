@@ -0,0 +1,130 @@
+package com.rabbit.mechanic.benchmark;
+
+import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.controller.CarController;
+import com.rabbit.mechanic.controller.RepairController;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import com.rabbit.mechanic.security.RoleAuthorizationInterceptor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorization checks per second on the repair and car hot paths with the previous
+ * {@code @PreAuthorize} SpEL expressions against the precomputed role bitmasks.
+ * The principal is a receptionist, the last role of the expressions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleAuthorizationBenchmark {
+
+    private static final String REPAIR_EXPRESSION = "@authorized.hasRole(\"MECHANIC\") ||" +
+            "@authorized.hasRole(\"RECEPTIONIST\") ||" +
+            "@authorized.hasRole(\"ADMIN\")";
+    private static final String CAR_EXPRESSION = "@authorized.hasRole(\"RECEPTIONIST\") ||" +
+            "@authorized.hasRole(\"MECHANIC\") ||" +
+            "@authorized.hasRole(\"ADMIN\")";
+
+    private Expression repairExpression;
+    private Expression carExpression;
+    private LegacyAuthorizationValidator authorized;
+
+    private RoleAuthorizationInterceptor interceptor;
+    private HandlerMethod repairHandler;
+    private HandlerMethod carHandler;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        PrincipalDto principal = PrincipalDto.builder()
+                .employeeId(1L)
+                .employeeRole(EmployeeRoles.RECEPTIONIST)
+                .roleMask(EmployeeRoles.RECEPTIONIST.getMask())
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                principal, null, Collections.singletonList(new SimpleGrantedAuthority(EmployeeRoles.RECEPTIONIST.name()))));
+
+        // Spring Security parses the expressions once and evaluates them per call in a new context
+        SpelExpressionParser parser = new SpelExpressionParser();
+        repairExpression = parser.parseExpression(REPAIR_EXPRESSION);
+        carExpression = parser.parseExpression(CAR_EXPRESSION);
+        authorized = new LegacyAuthorizationValidator();
+
+        repairHandler = new HandlerMethod(new RepairController(null, null), RepairController.class.getMethod("getRepairById", long.class));
+        carHandler = new HandlerMethod(new CarController(null, null), CarController.class.getMethod("getCarById", long.class));
+        interceptor = new RoleAuthorizationInterceptor(null);
+        interceptor.registerHandlers(Arrays.asList(repairHandler, carHandler));
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean spelRepair() {
+        return evaluate(repairExpression);
+    }
+
+    @Benchmark
+    public boolean spelCar() {
+        return evaluate(carExpression);
+    }
+
+    @Benchmark
+    public boolean bitmaskRepair() {
+        return interceptor.preHandle(request, response, repairHandler);
+    }
+
+    @Benchmark
+    public boolean bitmaskCar() {
+        return interceptor.preHandle(request, response, carHandler);
+    }
+
+    private boolean evaluate(Expression expression) {
+        StandardEvaluationContext context = new StandardEvaluationContext(
+                SecurityContextHolder.getContext().getAuthentication());
+        context.setBeanResolver((evaluationContext, beanName) -> authorized);
+        return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+    }
+
+    /**
+     * The removed AuthorizationValidatorService, used by the expressions
+     */
+    public static class LegacyAuthorizationValidator {
+
+        public boolean hasRole(String role) {
+            return role.equals(((PrincipalDto) SecurityContextHolder.getContext()
+                    .getAuthentication().getPrincipal()).getEmployeeRole().name());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RoleAuthorizationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,132 @@
+package com.rabbit.mechanic.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbit.mechanic.benchmark.BenchmarkDatabase;
+import com.rabbit.mechanic.persistence.repository.CacheInvalidationRepository;
+import com.rabbit.mechanic.properties.InvalidationProperties;
+import com.rabbit.mechanic.properties.PageCacheProperties;
+import com.rabbit.mechanic.properties.PaginationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseInvalidationBusTest {
+
+    private final SimpleMeterRegistry firstRegistry = new SimpleMeterRegistry();
+    private final SimpleMeterRegistry secondRegistry = new SimpleMeterRegistry();
+    private BenchmarkDatabase database;
+
+    @BeforeEach
+    void setUp() {
+        database = new BenchmarkDatabase("invalidation-bus");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void deliversCommittedInvalidationsToOtherInstancesOnce() {
+        DatabaseInvalidationBus first = bus(properties(60000L), firstRegistry);
+        DatabaseInvalidationBus second = bus(properties(60000L), secondRegistry);
+        List<Long> firstCars = subscribe(first, InvalidationBus.CARS);
+        List<Long> secondCars = subscribe(second, InvalidationBus.CARS);
+        List<Long> secondCustomers = subscribe(second, InvalidationBus.CUSTOMERS);
+
+        // Queued once the change commits
+        new TransactionTemplate(database.getTransactionManager()).executeWithoutResult(status -> {
+            first.publish(InvalidationBus.CARS, 7);
+            assertEquals(0.0, firstRegistry.get("cache.invalidation.pending").gauge().value());
+        });
+        first.publish(InvalidationBus.CARS, 8);
+        assertEquals(2.0, firstRegistry.get("cache.invalidation.pending").gauge().value());
+
+        first.poll();
+        second.poll();
+        second.poll();
+        first.poll();
+
+        assertEquals(Arrays.asList(7L, 8L), sorted(secondCars));
+        assertTrue(firstCars.isEmpty());
+        assertTrue(secondCustomers.isEmpty());
+        assertEquals(2, secondRegistry.get("cache.invalidation.lag").tag("topic", InvalidationBus.CARS).timer().count());
+        assertTrue(secondRegistry.get("cache.invalidation.lag").timer().max(TimeUnit.SECONDS) < 5);
+    }
+
+    @Test
+    void reloadsListPagesAfterACreateOnAnotherInstance() {
+        DatabaseInvalidationBus first = bus(properties(60000L), firstRegistry);
+        DatabaseInvalidationBus second = bus(properties(60000L), secondRegistry);
+        PageCacheProperties pageCacheProperties = new PageCacheProperties();
+        pageCacheProperties.setMaximumWeight(1024 * 1024L);
+        pageCacheProperties.setExpiresIn(60000L);
+        PageCache pageCache = new PageCache(pageCacheProperties, new TableVersions(second), new ObjectMapper(),
+                new PaginationProperties(), secondRegistry);
+        AtomicInteger customers = new AtomicInteger(1);
+
+        assertEquals("1", new String(pageCache.get(TableVersions.CUSTOMERS, "customers?page=0", customers::get)));
+
+        // A customer is created on the first instance
+        customers.incrementAndGet();
+        first.publish(InvalidationBus.CUSTOMERS, 2);
+        assertEquals("1", new String(pageCache.get(TableVersions.CUSTOMERS, "customers?page=0", customers::get)));
+
+        first.poll();
+        second.poll();
+        assertEquals("2", new String(pageCache.get(TableVersions.CUSTOMERS, "customers?page=0", customers::get)));
+    }
+
+    @Test
+    void clearsListenersAfterMissingPollsForLongerThanTheRetention() throws InterruptedException {
+        DatabaseInvalidationBus bus = bus(properties(100L), firstRegistry);
+        AtomicInteger cleared = new AtomicInteger();
+        bus.subscribe(InvalidationBus.EMPLOYEES, InvalidationListener.of(id -> { }, cleared::incrementAndGet));
+
+        bus.poll();
+        assertEquals(0, cleared.get());
+
+        Thread.sleep(150);
+        bus.poll();
+        assertEquals(1, cleared.get());
+        assertEquals(1.0, firstRegistry.get("cache.invalidation.resyncs").counter().count());
+    }
+
+    private DatabaseInvalidationBus bus(InvalidationProperties properties, SimpleMeterRegistry meterRegistry) {
+        return new DatabaseInvalidationBus(database.getTransactionalRepository(CacheInvalidationRepository.class),
+                properties, database.getTransactionManager(), meterRegistry);
+    }
+
+    private static List<Long> subscribe(DatabaseInvalidationBus bus, String topic) {
+        List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe(topic, InvalidationListener.of(ids::add, ids::clear));
+        return ids;
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        List<Long> copy = new ArrayList<>(ids);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static InvalidationProperties properties(long retention) {
+        InvalidationProperties properties = new InvalidationProperties();
+        properties.setMode("database");
+        properties.setPollInterval(1000L);
+        properties.setLookback(50L);
+        properties.setRetention(retention);
+        properties.setQueueCapacity(10);
+        return properties;
+    }
+}
@@ -0,0 +1,131 @@
+package com.rabbit.mechanic.cache;
+
+import com.rabbit.mechanic.properties.DetailsCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetailsCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(
+            new DriverManagerDataSource("jdbc:h2:mem:details-cache;DB_CLOSE_DELAY=-1", "sa", ""));
+    private DetailsCaches detailsCaches;
+
+    @AfterEach
+    void shutdown() {
+        detailsCaches.shutdown();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        detailsCaches = new DetailsCaches(properties(60000L), transactionManager, meterRegistry);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        DetailsCache<String> cache = detailsCaches.create(DetailsCaches.CARS, id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "car " + id;
+        });
+
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(requests.submit(() -> cache.get(1)));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("car 1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            requests.shutdown();
+        }
+    }
+
+    @Test
+    void servesStaleDetailsWhileReloading() throws InterruptedException {
+        detailsCaches = new DetailsCaches(properties(1L), transactionManager, meterRegistry);
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        DetailsCache<String> cache = detailsCaches.create(DetailsCaches.CUSTOMERS, id -> {
+            // The first reload hangs, as a slow database would
+            int load = loads.incrementAndGet();
+            if (load == 2) {
+                reloading.countDown();
+                await(release);
+            }
+            return "customer " + load;
+        });
+
+        assertEquals("customer 1", cache.get(1));
+        Thread.sleep(5);
+        assertEquals("customer 1", cache.get(1));
+        assertTrue(reloading.await(5, TimeUnit.SECONDS));
+        assertEquals("customer 1", cache.get(1));
+        release.countDown();
+
+        for (int i = 0; i < 100 && "customer 1".equals(cache.get(1)); i++) {
+            Thread.sleep(20);
+        }
+        assertNotEquals("customer 1", cache.get(1));
+    }
+
+    @Test
+    void appliesUpdatesAndDeletesOnceCommitted() {
+        detailsCaches = new DetailsCaches(properties(60000L), transactionManager, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        DetailsCache<String> cache = detailsCaches.create(DetailsCaches.REPAIRS, id -> {
+            loads.incrementAndGet();
+            return id == 1 ? "repair" : null;
+        });
+        assertEquals("repair", cache.get(1));
+        assertNull(cache.get(2));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cache.put(1, "updated repair");
+            assertEquals("repair", cache.get(1));
+        });
+        assertEquals("updated repair", cache.get(1));
+
+        cache.invalidate(1);
+        assertEquals("repair", cache.get(1));
+        assertEquals(3, loads.get());
+        assertEquals(3.0, meterRegistry.get("cache.gets").tag("cache", DetailsCaches.REPAIRS)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static DetailsCacheProperties properties(long refreshAfter) {
+        DetailsCacheProperties properties = new DetailsCacheProperties();
+        properties.setMaximumSize(100L);
+        properties.setRefreshAfter(refreshAfter);
+        properties.setExpiresIn(60000L);
+        properties.setQueueCapacity(10);
+        return properties;
+    }
+}
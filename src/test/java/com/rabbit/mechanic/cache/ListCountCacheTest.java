@@ -0,0 +1,68 @@
+package com.rabbit.mechanic.cache;
+
+import com.rabbit.mechanic.properties.ListCountProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListCountCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ListCountCache listCountCache;
+
+    @AfterEach
+    void shutdown() {
+        listCountCache.shutdown();
+    }
+
+    @Test
+    void countsOnceAndRecountsInBackgroundAfterWrites() throws InterruptedException {
+        listCountCache = new ListCountCache(properties(60000L), meterRegistry, new LocalInvalidationBus());
+        AtomicLong total = new AtomicLong(5);
+        AtomicLong queries = new AtomicLong();
+
+        assertEquals(5, listCountCache.get(ListCountCache.CARS, () -> count(total, queries)));
+        total.set(6);
+        assertEquals(5, listCountCache.get(ListCountCache.CARS, () -> count(total, queries)));
+        assertEquals(1, queries.get());
+
+        listCountCache.invalidate(ListCountCache.CARS);
+        awaitTotal(ListCountCache.CARS, 6, total, queries);
+    }
+
+    @Test
+    void servesStaleTotalWhileRecounting() throws InterruptedException {
+        listCountCache = new ListCountCache(properties(0L), meterRegistry, new LocalInvalidationBus());
+        AtomicLong total = new AtomicLong(5);
+        AtomicLong queries = new AtomicLong();
+
+        assertEquals(5, listCountCache.get(ListCountCache.REPAIRS, () -> count(total, queries)));
+        total.set(7);
+        awaitTotal(ListCountCache.REPAIRS, 7, total, queries);
+        assertEquals(1.0, meterRegistry.get("list.count.entries").gauge().value());
+    }
+
+    private void awaitTotal(String list, long expected, AtomicLong total, AtomicLong queries) throws InterruptedException {
+        for (int i = 0; i < 100 && listCountCache.get(list, () -> count(total, queries)) != expected; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, listCountCache.get(list, () -> count(total, queries)));
+    }
+
+    private static long count(AtomicLong total, AtomicLong queries) {
+        queries.incrementAndGet();
+        return total.get();
+    }
+
+    private static ListCountProperties properties(long refreshAfter) {
+        ListCountProperties properties = new ListCountProperties();
+        properties.setRefreshAfter(refreshAfter);
+        properties.setQueueCapacity(4);
+        properties.setMaximumSize(100L);
+        return properties;
+    }
+}
@@ -0,0 +1,108 @@
+package com.rabbit.mechanic.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbit.mechanic.command.Paginated;
+import com.rabbit.mechanic.properties.PageCacheProperties;
+import com.rabbit.mechanic.properties.PaginationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TableVersions tableVersions = new TableVersions(new LocalInvalidationBus());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesSerializedPageUntilItsTableIsWritten() {
+        PageCache pageCache = pageCache(1024 * 1024);
+
+        assertEquals("{\"results\":[\"car 1\"],\"currentPage\":0,\"resultsCurrentPage\":1,\"totalPages\":1,\"totalResults\":1}",
+                new String(pageCache.get(TableVersions.CARS, "cars?page=0", this::loadPage), StandardCharsets.UTF_8));
+        pageCache.get(TableVersions.CARS, "cars?page=0", this::loadPage);
+        assertEquals(1, loads.get());
+
+        // Other tables and pages are cached apart
+        pageCache.get(TableVersions.CUSTOMERS, "cars?page=0", this::loadPage);
+        pageCache.get(TableVersions.CARS, "cars?page=1", this::loadPage);
+        assertEquals(3, loads.get());
+
+        // Bumped once the write commits
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(
+                new DriverManagerDataSource("jdbc:h2:mem:page-cache;DB_CLOSE_DELAY=-1", "sa", ""));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            tableVersions.bump(TableVersions.CARS);
+            pageCache.get(TableVersions.CARS, "cars?page=0", this::loadPage);
+            assertEquals(3, loads.get());
+        });
+
+        assertTrue(new String(pageCache.get(TableVersions.CARS, "cars?page=0", this::loadPage), StandardCharsets.UTF_8)
+                .contains("car 4"));
+        pageCache.get(TableVersions.CUSTOMERS, "cars?page=0", this::loadPage);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void keepsPagesWithinTheMaximumWeight() throws InterruptedException {
+        PageCache pageCache = pageCache(1000);
+
+        for (int i = 0; i < 50; i++) {
+            pageCache.get(TableVersions.REPAIRS, "repairs?page=" + i, this::loadPage);
+        }
+
+        // Evictions run in the background
+        double size = 0;
+        for (int i = 0; i < 100 && (size = cachedPages()) >= 15; i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(size > 0 && size < 15, "pages kept: " + size);
+    }
+
+    @Test
+    void normalizesPageKeys() {
+        PageCache pageCache = pageCache(1024 * 1024);
+
+        // Sizes over the max size and filters in another order or repeated read the same page
+        assertEquals(pageCache.pageKey("cars", 0, 50, Arrays.asList("brand=BMW", "model=X5"), "-year"),
+                pageCache.pageKey("cars", 0, 1000, Arrays.asList("model=X5", "brand=BMW", "model=X5"), "-year"));
+        assertEquals(pageCache.pageKey("cars", 0, 20, null, null),
+                pageCache.pageKey("cars", 0, 20, Collections.emptyList(), ""));
+        assertEquals("repairs/status?only-actives=true&page=1&size=1&filter=&sort=",
+                pageCache.pageKey("repairs/status?only-actives=true", 1, 0, null, null));
+
+        // A filter holding the separators doesn't read the page of two filters
+        assertNotEquals(pageCache.pageKey("cars", 0, 20, Collections.singletonList("brand=BMW&filter=model=X5"), null),
+                pageCache.pageKey("cars", 0, 20, Arrays.asList("brand=BMW", "model=X5"), null));
+    }
+
+    private PageCache pageCache(long maximumWeight) {
+        PageCacheProperties properties = new PageCacheProperties();
+        properties.setMaximumWeight(maximumWeight);
+        properties.setExpiresIn(60000L);
+        return new PageCache(properties, tableVersions, new ObjectMapper(), paginationProperties(), meterRegistry);
+    }
+
+    private PaginationProperties paginationProperties() {
+        PaginationProperties paginationProperties = new PaginationProperties();
+        paginationProperties.setMaxSize(50);
+        return paginationProperties;
+    }
+
+    private double cachedPages() {
+        return meterRegistry.get("cache.size").tag("cache", PageCache.CACHE_NAME).gauge().value();
+    }
+
+    private Paginated<String> loadPage() {
+        return new Paginated<>(Collections.singletonList("car " + loads.incrementAndGet()), 0, 1, 1, 1);
+    }
+}
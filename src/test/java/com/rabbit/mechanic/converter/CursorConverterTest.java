@@ -0,0 +1,69 @@
+package com.rabbit.mechanic.converter;
+
+import com.rabbit.mechanic.command.Cursor;
+import com.rabbit.mechanic.command.CursorPaginated;
+import com.rabbit.mechanic.error.Error;
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.InvalidCursorException;
+import com.rabbit.mechanic.exception.RabbitMechanicExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorConverterTest {
+
+    @Test
+    void decodesTheCursorItEncodes() {
+        Cursor cursor = new Cursor("Ana\nMaria ção", 42L);
+
+        String token = CursorConverter.fromCursorToToken(cursor);
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, CursorConverter.fromTokenToCursor(token));
+        assertEquals(new Cursor("", 7L), CursorConverter.fromTokenToCursor(CursorConverter.fromCursorToToken(new Cursor(null, 7L))));
+        assertNull(CursorConverter.fromTokenToCursor(""));
+        assertNull(CursorConverter.fromTokenToCursor(null));
+
+        Date date = new Date(1617235200000L);
+        assertEquals(date, CursorConverter.fromKeyToDate(new Cursor(CursorConverter.fromDateToKey(date), 1L)));
+    }
+
+    @Test
+    void rejectsTamperedCursorWithBadRequest() {
+        String token = CursorConverter.fromCursorToToken(new Cursor("Ada", 42L));
+
+        for (String tampered : Arrays.asList("not a cursor!", token.substring(1), encode("Ada"), encode("Ada\nforty-two"))) {
+            InvalidCursorException e = assertThrows(InvalidCursorException.class,
+                    () -> CursorConverter.fromTokenToCursor(tampered), tampered);
+            assertEquals(ErrorMessages.INVALID_CURSOR, e.getMessage());
+        }
+        assertThrows(InvalidCursorException.class, () -> CursorConverter.fromKeyToDate(new Cursor("Ada", 42L)));
+
+        ResponseEntity<Error> response = new RabbitMechanicExceptionHandler().handlerBadRequestException(
+                new InvalidCursorException(ErrorMessages.INVALID_CURSOR), new MockHttpServletRequest("GET", "/api/customers/after"));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void givesNextCursorOnlyWhenThereIsAnotherPage() {
+        CursorPaginated<Long> page = CursorConverter.fromRowsToCursorPaginated(Arrays.asList(1L, 2L, 3L), 2, id -> new Cursor(null, id));
+        assertEquals(Arrays.asList(1L, 2L), page.getResults());
+        assertEquals(new Cursor("", 2L), CursorConverter.fromTokenToCursor(page.getNext()));
+
+        CursorPaginated<Long> last = CursorConverter.fromRowsToCursorPaginated(Arrays.asList(3L, 4L), 2, id -> new Cursor(null, id));
+        assertEquals(2, last.getResultsCurrentPage());
+        assertNull(last.getNext());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+package com.rabbit.mechanic.converter;
+
+import com.rabbit.mechanic.command.customer.CustomerDetailsDto;
+import com.rabbit.mechanic.command.repair.RepairDetailsDto;
+import com.rabbit.mechanic.enumerators.CarBrands;
+import com.rabbit.mechanic.exception.InvalidListQueryException;
+import com.rabbit.mechanic.persistence.query.ListDefinition;
+import com.rabbit.mechanic.persistence.query.ListDefinitions;
+import com.rabbit.mechanic.persistence.query.ListOrder;
+import com.rabbit.mechanic.persistence.query.ListQuery;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListQueryConverterTest {
+
+    @Test
+    void ordersByIndexAfterEqualityAndRangeOnItsNextColumn() {
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(ListDefinitions.REPAIRS,
+                Arrays.asList("startDate>=2021-01-01", "carId=5"), "-startDate");
+
+        assertEquals(Arrays.asList("startDate", "repairId"), paths(listQuery));
+        assertTrue(listQuery.getOrders().stream().allMatch(ListOrder::isDescending));
+        assertEquals(5L, listQuery.getFilters().get(1).getValue());
+        assertEquals("repairs?carId=5&startDate>=2021-01-01", listQuery.getKey());
+    }
+
+    @Test
+    void sortsOnNonLeadingColumnOnlyAfterEqualityOnTheOnesBefore() {
+        assertThrows(InvalidListQueryException.class,
+                () -> ListQueryConverter.fromParametersToListQuery(ListDefinitions.CARS, null, "engineType"));
+
+        ListQuery listQuery = ListQueryConverter.fromParametersToListQuery(ListDefinitions.CARS,
+                List.of("brand=bmw"), "engineType");
+        assertEquals(Arrays.asList("engineType", "carId"), paths(listQuery));
+        assertEquals(CarBrands.BMW, listQuery.getFilters().get(0).getValue());
+    }
+
+    @Test
+    void rejectsQueriesNoIndexCanServe() {
+        assertInvalid(ListDefinitions.REPAIRS, List.of("carId!=5"), null);
+        assertInvalid(ListDefinitions.REPAIRS, Arrays.asList("startDate>=2021-01-01", "price<=100"), null);
+        assertInvalid(ListDefinitions.REPAIRS, List.of("price>=100"), "startDate");
+        assertInvalid(ListDefinitions.CARS, List.of("brand>BMW"), null);
+    }
+
+    @Test
+    void rejectsInvalidValuesAndFields() {
+        assertInvalid(ListDefinitions.CARS, List.of("brand=NOT_A_BRAND"), null);
+        assertInvalid(ListDefinitions.REPAIRS, List.of("startDate>=yesterday"), null);
+        assertInvalid(ListDefinitions.REPAIRS, List.of("price>=cheap"), null);
+        assertInvalid(ListDefinitions.REPAIRS, List.of("carId="), null);
+        assertInvalid(ListDefinitions.REPAIRS, List.of("repairName=brakes"), null);
+        assertInvalid(ListDefinitions.REPAIRS, null, "repairName");
+    }
+
+    @Test
+    void comparatorOrdersRowsAsTheIndex() {
+        ListQuery byFirstName = ListQueryConverter.fromParametersToListQuery(ListDefinitions.CUSTOMERS, null, null);
+        List<CustomerDetailsDto> customers = new ArrayList<>(Arrays.asList(
+                customer(2, "bob"), customer(3, "Alice"), customer(4, null), customer(1, "alice")));
+        customers.sort(ListQueryConverter.fromListQueryToComparator(byFirstName));
+
+        // Nulls first and case ignored, as in MySQL, then by id
+        assertEquals(Arrays.asList(4L, 1L, 3L, 2L),
+                customers.stream().map(CustomerDetailsDto::getCustomerId).collect(Collectors.toList()));
+
+        ListQuery byPrice = ListQueryConverter.fromParametersToListQuery(ListDefinitions.REPAIRS, null, "-price");
+        List<RepairDetailsDto> repairs = new ArrayList<>(Arrays.asList(
+                repair(1, "10"), repair(2, "30"), repair(3, "10"), repair(4, "20")));
+        repairs.sort(ListQueryConverter.fromListQueryToComparator(byPrice));
+
+        assertEquals(Arrays.asList("price", "repairId"), paths(byPrice));
+        assertEquals(Arrays.asList(2L, 4L, 3L, 1L),
+                repairs.stream().map(RepairDetailsDto::getRepairId).collect(Collectors.toList()));
+    }
+
+    private static void assertInvalid(ListDefinition<?, ?> definition, List<String> filters, String sort) {
+        assertThrows(InvalidListQueryException.class,
+                () -> ListQueryConverter.fromParametersToListQuery(definition, filters, sort));
+    }
+
+    private static List<String> paths(ListQuery listQuery) {
+        return listQuery.getOrders().stream().map(ListOrder::getPath).collect(Collectors.toList());
+    }
+
+    private static CustomerDetailsDto customer(long customerId, String firstName) {
+        return CustomerDetailsDto.builder().customerId(customerId).firstName(firstName).build();
+    }
+
+    private static RepairDetailsDto repair(long repairId, String price) {
+        return RepairDetailsDto.builder().repairId(repairId).startDate(new Date()).price(new BigDecimal(price)).build();
+    }
+}
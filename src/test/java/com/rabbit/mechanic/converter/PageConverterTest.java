@@ -0,0 +1,56 @@
+package com.rabbit.mechanic.converter;
+
+import com.rabbit.mechanic.command.Paginated;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageConverterTest {
+
+    @Test
+    void keepsCachedTotalOnFirstAndMiddlePagesWhenItIsAhead() {
+        Paginated<Integer> first = PageConverter.fromSliceToPaginated(
+                new SliceImpl<>(Arrays.asList(1, 2), PageRequest.of(0, 2), true), 7);
+        assertEquals(7, first.getTotalResults());
+        assertEquals(4, first.getTotalPages());
+
+        Paginated<Integer> middle = PageConverter.fromSliceToPaginated(
+                new SliceImpl<>(Arrays.asList(3, 4), PageRequest.of(1, 2), true), 7);
+        assertEquals(7, middle.getTotalResults());
+        assertEquals(1, middle.getCurrentPage());
+    }
+
+    @Test
+    void raisesStaleCachedTotalToTheNextPage() {
+        Paginated<Integer> middle = PageConverter.fromSliceToPaginated(
+                new SliceImpl<>(Arrays.asList(3, 4), PageRequest.of(1, 2), true), 3);
+
+        assertEquals(5, middle.getTotalResults());
+        assertEquals(3, middle.getTotalPages());
+    }
+
+    @Test
+    void countsExactlyUpToTheLastPage() {
+        Paginated<Integer> last = PageConverter.fromSliceToPaginated(
+                new SliceImpl<>(Collections.singletonList(5), PageRequest.of(2, 2), false), 9);
+
+        assertEquals(5, last.getTotalResults());
+        assertEquals(3, last.getTotalPages());
+        assertEquals(1, last.getResultsCurrentPage());
+    }
+
+    @Test
+    void keepsCachedTotalPastTheEnd() {
+        Paginated<Integer> pastTheEnd = PageConverter.fromSliceToPaginated(
+                new SliceImpl<>(Collections.emptyList(), PageRequest.of(50, 2), false), 5);
+
+        assertEquals(5, pastTheEnd.getTotalResults());
+        assertEquals(3, pastTheEnd.getTotalPages());
+        assertTrue(pastTheEnd.getResults().isEmpty());
+    }
+}
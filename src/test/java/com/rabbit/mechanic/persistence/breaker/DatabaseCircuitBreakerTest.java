@@ -0,0 +1,128 @@
+package com.rabbit.mechanic.persistence.breaker;
+
+import com.rabbit.mechanic.exception.DatabaseUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseCircuitBreakerTest {
+
+    private static final long OPEN_DURATION = 10000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private DatabaseCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new DatabaseCircuitBreaker(2, OPEN_DURATION, clock::get, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void opensOnSlowDatabaseAndClosesAfterProbe() {
+        SlowDatabase database = new SlowDatabase();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(database);
+        proxyFactory.addAspect(new RepositoryCircuitBreakerAspect(circuitBreaker));
+        CountRepository repository = proxyFactory.getProxy();
+
+        // Queries slower than the timeout are cancelled until the circuit breaker opens
+        database.slow = true;
+        assertThrows(QueryTimeoutException.class, repository::count);
+        assertThrows(QueryTimeoutException.class, repository::count);
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        // Calls fail fast without going to the database
+        assertThrows(DatabaseUnavailableException.class, repository::count);
+        assertEquals(2, database.calls.get());
+
+        // Once the database recovers the probe closes it
+        database.slow = false;
+        clock.addAndGet(OPEN_DURATION);
+        assertEquals(1, repository.count());
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void letsOneProbeThroughAndReopensWhenItFails() {
+        circuitBreaker.onError(new QueryTimeoutException("timeout"), false);
+        circuitBreaker.onError(new QueryTimeoutException("timeout"), false);
+
+        clock.addAndGet(OPEN_DURATION);
+        assertTrue(circuitBreaker.acquirePermission());
+        assertEquals(DatabaseCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(DatabaseUnavailableException.class, circuitBreaker::acquirePermission);
+
+        circuitBreaker.onError(new QueryTimeoutException("timeout"), true);
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(DatabaseUnavailableException.class, circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    void closesOnlyOnSuccessOfTheProbe() {
+        circuitBreaker.onError(new QueryTimeoutException("timeout"), false);
+        circuitBreaker.onError(new QueryTimeoutException("timeout"), false);
+
+        // Calls let through before it opened don't close it, whether they succeed or fail in the database
+        circuitBreaker.onSuccess(false);
+        circuitBreaker.onError(new DataIntegrityViolationException("duplicate"), false);
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        clock.addAndGet(OPEN_DURATION);
+        boolean probe = circuitBreaker.acquirePermission();
+        circuitBreaker.onSuccess(false);
+        circuitBreaker.onError(new DataIntegrityViolationException("duplicate"), false);
+        assertEquals(DatabaseCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(DatabaseUnavailableException.class, circuitBreaker::acquirePermission);
+
+        circuitBreaker.onSuccess(probe);
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertFalse(circuitBreaker.acquirePermission());
+    }
+
+    @Test
+    void ignoresErrorsAnsweredByDatabase() {
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.onError(new DataIntegrityViolationException("duplicate"), false);
+        }
+
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.acquirePermission();
+    }
+
+    interface CountRepository extends Repository<Object, Long> {
+        long count();
+    }
+
+    /**
+     * In memory database whose queries outlast the 1 second timeout while slow
+     */
+    static class SlowDatabase implements CountRepository {
+
+        private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:slow;DB_CLOSE_DELAY=-1", "sa", ""));
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean slow;
+
+        SlowDatabase() {
+            jdbcTemplate.setQueryTimeout(1);
+        }
+
+        @Override
+        public long count() {
+            calls.incrementAndGet();
+            return jdbcTemplate.queryForObject(slow
+                    ? "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 10000000000) WHERE RAND() < 0"
+                    : "SELECT 1", Long.class);
+        }
+    }
+}
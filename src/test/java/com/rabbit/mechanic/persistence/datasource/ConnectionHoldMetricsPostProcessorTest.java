@@ -0,0 +1,50 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionHoldMetricsPostProcessorTest {
+
+    @Test
+    void closesWrappedPoolWithTheContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(
+                PoolConfiguration.class, ConnectionHoldMetricsPostProcessor.class);
+        DataSource dataSource = context.getBean(DataSource.class);
+        assertTrue(dataSource instanceof LazyConnectionDataSourceProxy);
+        assertEquals(1, new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class));
+
+        HikariDataSource pool = context.getBean(PoolConfiguration.class).pool;
+        context.close();
+        assertTrue(pool.isClosed());
+    }
+
+    @Configuration
+    static class PoolConfiguration {
+
+        private HikariDataSource pool;
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        DataSource dataSource() {
+            pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:hold-pool;DB_CLOSE_DELAY=-1");
+            pool.setUsername("sa");
+            return pool;
+        }
+    }
+}
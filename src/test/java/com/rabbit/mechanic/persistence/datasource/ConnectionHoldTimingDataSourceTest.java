@@ -0,0 +1,52 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionHoldTimingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConnectionHoldTimingDataSource dataSource = new ConnectionHoldTimingDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:hold;DB_CLOSE_DELAY=-1", "sa", ""), () -> meterRegistry);
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void recordsHoldTimeOfEndpointOnce() throws SQLException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/cars/{carId}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertEquals(1, meterRegistry.get(ConnectionHoldTimingDataSource.METRIC_NAME)
+                .tag("method", "GET").tag("uri", "/api/cars/{carId}").timer().count());
+    }
+
+    @Test
+    void recordsHoldTimeOutsideRequests() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+
+        assertEquals(1, meterRegistry.get(ConnectionHoldTimingDataSource.METRIC_NAME)
+                .tag("method", "none").tag("uri", "none").timer().count());
+    }
+}
@@ -0,0 +1,94 @@
+package com.rabbit.mechanic.persistence.datasource;
+
+import com.rabbit.mechanic.command.auth.PrincipalDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database(ReadWriteRoutingDataSource.PRIMARY);
+        DataSource replica = database(ReadWriteRoutingDataSource.REPLICA);
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(
+                primary, replica, new ReadYourWritesTracker(60000L, 100L), meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplica() {
+        assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> database()));
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, readWrite.execute(status -> database()));
+        assertEquals(1.0, meterRegistry.get("datasource.routing").tag("target", ReadWriteRoutingDataSource.REPLICA).counter().count());
+    }
+
+    @Test
+    void readsOwnWritesFromPrimary() {
+        authenticate(1L);
+        readWrite.execute(status -> database());
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, readOnly.execute(status -> database()));
+
+        // Other employees still read from the replica
+        authenticate(2L);
+        assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> database()));
+    }
+
+    @Test
+    void routesPinnedReadsToPrimaryWithoutAuthentication() {
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, PrimaryContext.run(() -> readOnly.execute(status -> database())));
+        assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> database()));
+        assertEquals(1.0, meterRegistry.get("datasource.routing").tag("reason", "pinned").counter().count());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT name FROM routing_target", String.class);
+    }
+
+    private static void authenticate(long employeeId) {
+        PrincipalDto principal = PrincipalDto.builder().employeeId(employeeId).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList()));
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS routing_target (name VARCHAR(16))");
+        jdbcTemplate.execute("DELETE FROM routing_target");
+        jdbcTemplate.update("INSERT INTO routing_target (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,132 @@
+package com.rabbit.mechanic.persistence.entity;
+
+import com.rabbit.mechanic.benchmark.BenchmarkDatabase;
+import com.rabbit.mechanic.enumerators.CarBrands;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+
+    private BenchmarkDatabase database;
+    private EntityManager entityManager;
+    private Statistics statistics;
+    private CustomerEntity customer;
+    private CarEntity car;
+
+    @BeforeEach
+    void setUp() {
+        // Same settings as the "Second level cache" section of application.properties
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        properties.put("hibernate.cache.use_second_level_cache", "true");
+        properties.put("hibernate.cache.region.factory_class", "jcache");
+        properties.put("hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+        properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        properties.put("hibernate.cache.auto_evict_collection_cache", "true");
+        properties.put("hibernate.generate_statistics", "true");
+        properties.put("hibernate.session.events.log", "false");
+
+        database = new BenchmarkDatabase("entity-cache", properties);
+        entityManager = database.getEntityManager();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        customer = CustomerEntity.builder()
+                .firstName("John").lastName("Doe").address("Street").email("john@mail.com").cellNumber("912345678")
+                .build();
+        persist(customer);
+        car = car("AA-00-AA");
+        persist(car);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void entitiesFoundByIdComeFromTheirRegion() {
+        assertEquals("John", findCustomerNameOfCar());
+        statistics.clear();
+
+        assertEquals("John", findCustomerNameOfCar());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("cars").getHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("customers").getHitCount());
+    }
+
+    @Test
+    void savingCarEvictsTheCarsOfItsCustomer() {
+        assertEquals(1, countCars());
+        assertEquals(1, countCars());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("customer-cars").getHitCount());
+
+        persist(car("BB-11-BB"));
+
+        assertEquals(2, countCars());
+    }
+
+    /**
+     * Helper to build a car of the customer
+     * @param plate
+     * @return {@link CarEntity}
+     */
+    private CarEntity car(String plate) {
+        return CarEntity.builder()
+                .customerEntity(customer).brand(CarBrands.values()[0]).engineType("Diesel").plate(plate)
+                .build();
+    }
+
+    /**
+     * Helper to find the first name of the customer of the car
+     * @return first name
+     */
+    private String findCustomerNameOfCar() {
+        return inTransaction(() -> entityManager.find(CarEntity.class, car.getCarId()).getCustomerEntity().getFirstName());
+    }
+
+    /**
+     * Helper to count the cars of the customer
+     * @return number of cars
+     */
+    private int countCars() {
+        return inTransaction(() -> entityManager.find(CustomerEntity.class, customer.getCustomerId()).getCars().size());
+    }
+
+    /**
+     * Helper to persist an entity
+     * @param entity
+     */
+    private void persist(Object entity) {
+        inTransaction(() -> {
+            entityManager.persist(entity);
+            return entity;
+        });
+    }
+
+    /**
+     * Helper to run in its own transaction, leaving the persistence context empty as between requests.
+     * Cached entries are only read by transactions started after they were put, as in the application
+     * @param work
+     * @return the result of the work
+     */
+    private <T> T inTransaction(Supplier<T> work) {
+        entityManager.getTransaction().begin();
+        try {
+            return work.get();
+        } finally {
+            entityManager.getTransaction().commit();
+            entityManager.clear();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.rabbit.mechanic.persistence.guard;
+
+import com.rabbit.mechanic.benchmark.BenchmarkDatabase;
+import com.rabbit.mechanic.enumerators.CarBrands;
+import com.rabbit.mechanic.persistence.entity.CarEntity;
+import com.rabbit.mechanic.persistence.entity.CustomerEntity;
+import org.hibernate.Hibernate;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyLoadGuardTest {
+
+    private BenchmarkDatabase database;
+    private EntityManager entityManager;
+    private long customerId;
+    private long carId;
+
+    @BeforeEach
+    void setUp() {
+        database = new BenchmarkDatabase("lazy-load-guard");
+        entityManager = database.getEntityManager();
+        new LazyLoadGuard(entityManager.getEntityManagerFactory()).install();
+
+        CustomerEntity customer = CustomerEntity.builder()
+                .firstName("John").lastName("Doe").address("Street").email("john@mail.com").cellNumber("912345678")
+                .build();
+        CarEntity car = CarEntity.builder()
+                .customerEntity(customer).brand(CarBrands.values()[0]).engineType("Diesel").plate("AA-00-AA")
+                .build();
+
+        entityManager.getTransaction().begin();
+        entityManager.persist(customer);
+        entityManager.persist(car);
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        customerId = customer.getCustomerId();
+        carId = car.getCarId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void failsWhenCollectionIsLoadedOutsideAllowedFetch() {
+        CustomerEntity customer = entityManager.find(CustomerEntity.class, customerId);
+
+        assertThrows(LazyInitializationException.class, () -> customer.getCars().size());
+        assertEquals(1, LazyLoadGuard.allow(() -> customer.getCars().size()));
+    }
+
+    @Test
+    void entityMethodsDontLoadAssociations() {
+        CarEntity car = entityManager.find(CarEntity.class, carId);
+
+        assertTrue(car.toString().contains("AA-00-AA"));
+        assertEquals(car, car);
+        car.hashCode();
+
+        assertFalse(Hibernate.isInitialized(car.getCustomerEntity()));
+        assertFalse(Hibernate.isInitialized(car.getRepairs()));
+    }
+}
@@ -0,0 +1,290 @@
+package com.rabbit.mechanic.persistence.repository;
+
+import com.rabbit.mechanic.enumerators.CarBrands;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks with MySQL EXPLAIN that every repository query is served by an index,
+ * without scanning the whole table or sorting the rows, over a generated dataset.
+ * The statements mirror the SQL generated for the repository queries
+ */
+@SpringBootTest(properties = "rabbit-mechanic.lazy-load-guard.enabled=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "RABBIT_MECHANIC_DATABASE_USERNAME", matches = ".+")
+class RepositoryExplainTest {
+
+    private static final int CUSTOMERS = 2_000;
+    private static final int CARS = 5_000;
+    private static final int REPAIRS = 20_000;
+    private static final int EMPLOYEES = 500;
+    private static final int REFRESH_TOKENS = 5_000;
+
+    // Rows of the dataset are marked so they can be removed afterwards
+    private static final String MARK = "explain-";
+
+    // Cars are spread over every brand, so a brand filter is selective
+    private static final CarBrands[] BRANDS = CarBrands.values();
+
+    private static final String CAR_COLUMNS = "car_id, customer_id, brand, engine_type, plate";
+    private static final String CUSTOMER_COLUMNS = "customer_id, first_name, last_name, address, email, cell_number";
+    private static final String EMPLOYEE_COLUMNS = "employee_id, first_name, last_name, username, role";
+    private static final String REPAIR_COLUMNS = "repair_id, car_id, repair_name, repair_description, start_date, end_date, price";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final long now = System.currentTimeMillis();
+    private long customerId;
+    private long carId;
+    private long employeeId;
+
+    @BeforeAll
+    void insertDataset() {
+        // Ids are generated by the application, the dataset takes the ones after the existing rows
+        customerId = nextId("customers", "customer_id");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            rows.add(new Object[]{customerId + i, "First" + (i % 300), "Last" + i, MARK + i + "@mail.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customers (customer_id, first_name, last_name, address, email, cell_number) " +
+                "VALUES (?, ?, ?, 'Index Street', ?, '900000000')", rows);
+
+        carId = nextId("cars", "car_id");
+        rows.clear();
+        for (int i = 0; i < CARS; i++) {
+            rows.add(new Object[]{carId + i, customerId + i % CUSTOMERS, BRANDS[i % BRANDS.length].name(), String.format("EX%06d", i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cars (car_id, customer_id, brand, engine_type, plate) VALUES (?, ?, ?, 'Diesel', ?)", rows);
+
+        // One in ten repairs is still active
+        long repairId = nextId("repairs", "repair_id");
+        rows.clear();
+        for (int i = 0; i < REPAIRS; i++) {
+            rows.add(new Object[]{repairId + i, carId + i % CARS, "Repair " + i, new Timestamp(now - i * 60_000L),
+                    i % 10 == 0 ? null : new Timestamp(now - i * 30_000L), i % 1_000});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO repairs (repair_id, car_id, repair_name, repair_description, start_date, end_date, price) " +
+                "VALUES (?, ?, ?, 'Explain test repair', ?, ?, ?)", rows);
+
+        employeeId = nextId("employees", "employee_id");
+        rows.clear();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            rows.add(new Object[]{employeeId + i, "First" + (i % 100), MARK + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO employees (employee_id, first_name, last_name, username, encrypted_password, role) " +
+                "VALUES (?, ?, 'Last', ?, 'password', 'MECHANIC')", rows);
+
+        // Refresh tokens expire over the next days, one family per employee
+        long refreshTokenId = nextId("refresh_tokens", "refresh_token_id");
+        rows.clear();
+        for (int i = 0; i < REFRESH_TOKENS; i++) {
+            rows.add(new Object[]{refreshTokenId + i, employeeId + i % EMPLOYEES, String.format("%064d", i), MARK + i % EMPLOYEES,
+                    new Timestamp(now + i * 60_000L)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO refresh_tokens (refresh_token_id, employee_id, token_hash, family_id, expires_at, used) " +
+                "VALUES (?, ?, ?, ?, ?, false)", rows);
+
+        jdbcTemplate.execute("ANALYZE TABLE customers, cars, repairs, employees, refresh_tokens");
+    }
+
+    @AfterAll
+    void deleteDataset() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE family_id LIKE ?", MARK + "%");
+        jdbcTemplate.update("DELETE FROM employees WHERE username LIKE ?", MARK + "%");
+        jdbcTemplate.update("DELETE FROM repairs WHERE car_id >= ?", carId);
+        jdbcTemplate.update("DELETE FROM cars WHERE plate LIKE 'EX%'");
+        jdbcTemplate.update("DELETE FROM customers WHERE email LIKE ?", MARK + "%");
+    }
+
+    // ********** Cars **********
+
+    @Test
+    void carsPageUsesPrimaryKey() {
+        assertIndexed("PRIMARY", "SELECT " + CAR_COLUMNS + " FROM cars ORDER BY car_id LIMIT 100, 21");
+    }
+
+    @Test
+    void carsAfterCursorUsePrimaryKey() {
+        assertIndexed("PRIMARY", "SELECT " + CAR_COLUMNS + " FROM cars WHERE car_id > ? ORDER BY car_id LIMIT 21", carId);
+    }
+
+    @Test
+    void carsOfCustomerUseCustomerIndex() {
+        assertIndexed("idx_cars_customer", "SELECT " + CAR_COLUMNS + " FROM cars WHERE customer_id = ?", customerId);
+    }
+
+    @Test
+    void carsOfBrandUseBrandIndex() {
+        assertIndexed("idx_cars_brand", "SELECT " + CAR_COLUMNS + " FROM cars " +
+                "WHERE brand = ? ORDER BY engine_type, car_id LIMIT 0, 21", CarBrands.BMW.name());
+    }
+
+    @Test
+    void carsOfCustomerSortedUseCustomerIndex() {
+        assertIndexed("idx_cars_customer", "SELECT " + CAR_COLUMNS + " FROM cars " +
+                "WHERE customer_id = ? ORDER BY car_id DESC LIMIT 0, 21", customerId);
+    }
+
+    // ********** Customers **********
+
+    @Test
+    void customersPageUsesFirstNameIndex() {
+        assertIndexed("idx_customers_first_name", "SELECT " + CUSTOMER_COLUMNS + " FROM customers " +
+                "ORDER BY first_name, customer_id LIMIT 100, 21");
+    }
+
+    @Test
+    void customersAfterCursorUseFirstNameIndex() {
+        assertIndexed("idx_customers_first_name", "SELECT " + CUSTOMER_COLUMNS + " FROM customers " +
+                "WHERE first_name > ? OR first_name = ? AND customer_id > ? " +
+                "ORDER BY first_name, customer_id LIMIT 21", "First290", "First290", customerId);
+    }
+
+    // ********** Employees **********
+
+    @Test
+    void employeesPageUsesFirstNameIndex() {
+        assertIndexed("idx_employees_first_name", "SELECT " + EMPLOYEE_COLUMNS + " FROM employees " +
+                "ORDER BY first_name, employee_id LIMIT 20, 21");
+    }
+
+    @Test
+    void employeesAfterCursorUseFirstNameIndex() {
+        assertIndexed("idx_employees_first_name", "SELECT " + EMPLOYEE_COLUMNS + " FROM employees " +
+                "WHERE first_name > ? OR first_name = ? AND employee_id > ? " +
+                "ORDER BY first_name, employee_id LIMIT 21", "First95", "First95", employeeId);
+    }
+
+    @Test
+    void employeeByUsernameUsesUniqueKey() {
+        assertUniqueLookup("SELECT " + EMPLOYEE_COLUMNS + ", encrypted_password FROM employees WHERE username = ?", MARK + 1);
+    }
+
+    // ********** Repairs **********
+
+    @Test
+    void activeRepairsUseActiveIndex() {
+        assertIndexed("idx_repairs_active", "SELECT " + REPAIR_COLUMNS + " FROM repairs " +
+                "WHERE end_date IS NULL ORDER BY start_date, repair_id LIMIT 0, 21");
+    }
+
+    @Test
+    void activeRepairsAfterCursorUseActiveIndex() {
+        Timestamp startDate = new Timestamp(now - REPAIRS * 30_000L);
+        assertIndexed("idx_repairs_active", "SELECT " + REPAIR_COLUMNS + " FROM repairs " +
+                "WHERE end_date IS NULL AND (start_date > ? OR start_date = ? AND repair_id > ?) " +
+                "ORDER BY start_date, repair_id LIMIT 21", startDate, startDate, 0L);
+    }
+
+    @Test
+    void activeRepairsCountUsesActiveIndex() {
+        assertIndexed("idx_repairs_active", "SELECT COUNT(repair_id) FROM repairs WHERE end_date IS NULL");
+    }
+
+    @Test
+    void allRepairsUseStartDateIndex() {
+        assertIndexed("idx_repairs_start_date", "SELECT " + REPAIR_COLUMNS + " FROM repairs " +
+                "ORDER BY start_date, repair_id LIMIT 0, 21");
+    }
+
+    @Test
+    void allRepairsAfterCursorUseStartDateIndex() {
+        Timestamp startDate = new Timestamp(now - REPAIRS * 30_000L);
+        assertIndexed("idx_repairs_start_date", "SELECT " + REPAIR_COLUMNS + " FROM repairs " +
+                "WHERE start_date > ? OR start_date = ? AND repair_id > ? " +
+                "ORDER BY start_date, repair_id LIMIT 21", startDate, startDate, 0L);
+    }
+
+    @Test
+    void repairsOfCarUseCarIndex() {
+        assertIndexed("idx_repairs_car", "SELECT " + REPAIR_COLUMNS + " FROM repairs WHERE car_id = ?", carId);
+    }
+
+    @Test
+    void repairsOfCarSortedUseCarIndex() {
+        assertIndexed("idx_repairs_car", "SELECT " + REPAIR_COLUMNS + " FROM repairs " +
+                "WHERE car_id = ? ORDER BY start_date DESC, repair_id DESC LIMIT 0, 21", carId);
+    }
+
+    @Test
+    void repairsInPriceRangeUsePriceIndex() {
+        assertIndexed("idx_repairs_price", "SELECT " + REPAIR_COLUMNS + " FROM repairs " +
+                "WHERE price >= ? AND price < ? ORDER BY price, repair_id LIMIT 0, 21", 100, 110);
+    }
+
+    // ********** Refresh tokens **********
+
+    @Test
+    void refreshTokenByHashUsesUniqueKey() {
+        assertUniqueLookup("SELECT t.refresh_token_id, t.family_id, t.expires_at, t.used, e.employee_id, e.role " +
+                "FROM refresh_tokens t INNER JOIN employees e ON t.employee_id = e.employee_id " +
+                "WHERE t.token_hash = ?", String.format("%064d", 1));
+    }
+
+    @Test
+    void markAsUsedUsesPrimaryKey() {
+        assertIndexed("PRIMARY", "UPDATE refresh_tokens SET used = true WHERE refresh_token_id = ? AND used = false", 1L);
+    }
+
+    @Test
+    void deleteByFamilyUsesFamilyIndex() {
+        assertIndexed("idx_refresh_tokens_family", "DELETE FROM refresh_tokens WHERE family_id = ?", MARK + 1);
+    }
+
+    @Test
+    void deleteByEmployeeUsesEmployeeIndex() {
+        assertIndexed("idx_refresh_tokens_employee", "DELETE FROM refresh_tokens WHERE employee_id = ?", employeeId);
+    }
+
+    @Test
+    void deleteExpiredUsesExpiresAtIndex() {
+        assertIndexed("idx_refresh_tokens_expires_at", "DELETE FROM refresh_tokens WHERE expires_at < ?",
+                new Timestamp(now + REFRESH_TOKENS / 20 * 60_000L));
+    }
+
+    /**
+     * Assert the statement is driven by the given index and no table of it is fully scanned or sorted
+     */
+    private void assertIndexed(String index, String sql, Object... args) {
+        List<Map<String, Object>> plan = explain(sql, args);
+        assertEquals(index, plan.get(0).get("key"), () -> "Unexpected index " + plan);
+    }
+
+    /**
+     * Assert the statement is driven by a single row lookup on a unique key
+     */
+    private void assertUniqueLookup(String sql, Object... args) {
+        List<Map<String, Object>> plan = explain(sql, args);
+        assertEquals("const", plan.get(0).get("type"), () -> "Not a unique lookup " + plan);
+    }
+
+    /**
+     * First id after the existing rows of a table
+     */
+    private long nextId(String table, String column) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table, Long.class);
+    }
+
+    private List<Map<String, Object>> explain(String sql, Object... args) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+        for (Map<String, Object> row : plan) {
+            assertNotEquals("ALL", row.get("type"), () -> "Full table scan " + plan);
+            assertFalse(String.valueOf(row.get("Extra")).contains("Using filesort"), () -> "Sorted without an index " + plan);
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,81 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import com.rabbit.mechanic.benchmark.BenchmarkDatabase;
+import com.rabbit.mechanic.persistence.entity.CustomerEntity;
+import com.rabbit.mechanic.properties.ShardingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardIdGeneratorTest {
+
+    private BenchmarkDatabase database;
+    private EntityManager entityManager;
+    private Shards shards;
+    private int customers;
+
+    @BeforeEach
+    void setUp() {
+        database = new BenchmarkDatabase("shard-id-generator", Collections.singletonMap(ShardIdGenerator.SHARD_COUNT, 3));
+        entityManager = database.getEntityManager();
+
+        ShardingProperties shardingProperties = new ShardingProperties();
+        shardingProperties.setUrls(Arrays.asList("jdbc:h2:mem:shard-1", "jdbc:h2:mem:shard-2"));
+        shardingProperties.setMaxOffset(1000);
+        shards = new Shards(shardingProperties, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void idsTellTheShardTheyWereInsertedOn() {
+        Set<Long> ids = new HashSet<>();
+        for (int shard : new int[]{0, 1, 2, 2, 1, 0}) {
+            long customerId = ShardContext.run(shard, () -> persistCustomers(1));
+
+            assertEquals(shard, shards.shardOf(customerId));
+            assertTrue(ids.add(customerId));
+        }
+    }
+
+    @Test
+    void takesIdsInBlocks() {
+        persistCustomers(ShardIdGenerator.ALLOCATION_SIZE + 10);
+
+        Long lastValue = new JdbcTemplate(database.getDataSource()).queryForObject(
+                "SELECT next_val FROM id_generators WHERE sequence_name = 'customers'", Long.class);
+        assertEquals(2 * ShardIdGenerator.ALLOCATION_SIZE, lastValue);
+    }
+
+    /**
+     * Helper to persist customers in one transaction
+     * @param count
+     * @return id of the last customer
+     */
+    private long persistCustomers(int count) {
+        entityManager.getTransaction().begin();
+        CustomerEntity customer = null;
+        for (int i = 0; i < count; i++) {
+            customers++;
+            customer = CustomerEntity.builder()
+                    .firstName("John").lastName("Doe").address("Street").email(customers + "@mail.com").cellNumber("912345678")
+                    .build();
+            entityManager.persist(customer);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        return customer.getCustomerId();
+    }
+}
@@ -0,0 +1,98 @@
+package com.rabbit.mechanic.persistence.shard;
+
+import com.rabbit.mechanic.exception.PageTooDeepException;
+import com.rabbit.mechanic.properties.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardsTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private Shards shards;
+
+    @BeforeEach
+    void setUp() {
+        // Shard 0 holds the odd ids and shard 1 the even ones
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(Arrays.asList(
+                database(0, 1, 3, 5, 7), database(1, 2, 4, 6)));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        ShardingProperties shardingProperties = new ShardingProperties();
+        shardingProperties.setUrls(Collections.singletonList("jdbc:h2:mem:shard-1"));
+        shardingProperties.setMaxOffset(9);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        shards = new Shards(shardingProperties, new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void findsShardOfId() {
+        assertEquals(0, shards.shardOf(1));
+        assertEquals(1, shards.shardOf(2));
+        assertEquals(0, shards.shardOf(7));
+        assertEquals(Collections.singletonList(6L), shards.on(shards.shardOf(6), () -> ids("SELECT id FROM rows WHERE id = 6")));
+    }
+
+    @Test
+    void mergesPagesOfEveryShard() {
+        Slice<Long> first = shards.findAll(PageRequest.of(0, 3), Comparator.naturalOrder(), this::page);
+        Slice<Long> last = shards.findAll(PageRequest.of(2, 3), Comparator.naturalOrder(), this::page);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), first.getContent());
+        assertTrue(first.hasNext());
+        assertEquals(Collections.singletonList(7L), last.getContent());
+        assertFalse(last.hasNext());
+
+        // Deeper pages would fetch every row before them from each shard
+        assertThrows(PageTooDeepException.class,
+                () -> shards.findAll(PageRequest.of(3, 3), Comparator.naturalOrder(), this::page));
+        assertThrows(PageTooDeepException.class,
+                () -> shards.findAll(PageRequest.of(Integer.MAX_VALUE, 3), Comparator.naturalOrder(), this::page));
+    }
+
+    @Test
+    void mergesFirstRowsAndCountsOfEveryShard() {
+        List<Long> rows = shards.findFirst(3, Comparator.naturalOrder(), () -> ids("SELECT id FROM rows WHERE id > 2 ORDER BY id LIMIT 3"));
+
+        assertEquals(Arrays.asList(3L, 4L, 5L), rows);
+        assertEquals(7, shards.sum(() -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rows", Long.class)));
+    }
+
+    private Slice<Long> page(Pageable pageable) {
+        List<Long> rows = ids("SELECT id FROM rows ORDER BY id LIMIT " + (pageable.getPageSize() + 1) + " OFFSET " + pageable.getOffset());
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    private List<Long> ids(String sql) {
+        return jdbcTemplate.queryForList(sql, Long.class);
+    }
+
+    private static DataSource database(int shard, long... ids) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:shard-" + shard + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rows (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("DELETE FROM rows");
+        for (long id : ids) {
+            jdbcTemplate.update("INSERT INTO rows (id) VALUES (?)", id);
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,18 @@
+package com.rabbit.mechanic.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptPolicyPasswordEncoderTest {
+
+    private final BCryptPolicyPasswordEncoder encoder = new BCryptPolicyPasswordEncoder(5);
+
+    @Test
+    void upgradesHashesOfAnotherStrength() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPolicyPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPolicyPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding("not a bcrypt hash"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.exception.PasswordHashingUnavailableException;
+import com.rabbit.mechanic.properties.PasswordHashingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    void rejectsWhenPoolAndQueueAreFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(), properties(1, 1, 5000L), meterRegistry);
+
+        // One hash running and one queued
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueSize(1);
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("c"));
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsWhenHashingTakesLongerThanTimeout() {
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(), properties(1, 1, 50L), meterRegistry);
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.matches("a", "hash"));
+    }
+
+    private void waitForQueueSize(double size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("password.hashing.queue.size").gauge().value() < size) {
+            assertTrue(System.currentTimeMillis() < deadline, "queue never filled");
+            Thread.sleep(10);
+        }
+    }
+
+    private static PasswordHashingProperties properties(int poolSize, int queueCapacity, long timeout) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setPoolSize(poolSize);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setTimeout(timeout);
+        return properties;
+    }
+
+    /**
+     * Encoder that blocks until the test releases it
+     */
+    private class BlockingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hash";
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return true;
+        }
+
+        private void await() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
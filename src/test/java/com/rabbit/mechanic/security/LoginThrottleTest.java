@@ -0,0 +1,101 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.exception.TooManyLoginAttemptsException;
+import com.rabbit.mechanic.properties.LoginThrottleProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private static final long ACCOUNT_MAX_DELAY = 200L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void throttlesUsernameAfterBurstFromSameAddress() {
+        LoginThrottle throttle = new LoginThrottle(properties(3, 100, 100), meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("Admin", "10.0.0.1");
+        }
+
+        TooManyLoginAttemptsException e = assertThrows(TooManyLoginAttemptsException.class,
+                () -> throttle.acquire("admin", "10.0.0.1"));
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("auth.login.throttled").tag("key", "username").counter().count());
+
+        // Other usernames and addresses keep their own buckets
+        throttle.acquire("other", "10.0.0.1");
+        throttle.acquire("admin", "10.0.0.2");
+    }
+
+    @Test
+    void throttlesAddressWhateverTheUsername() {
+        LoginThrottle throttle = new LoginThrottle(properties(100, 3, 100), meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user" + i, "10.0.0.1");
+        }
+
+        assertThrows(TooManyLoginAttemptsException.class, () -> throttle.acquire("user3", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.get("auth.login.throttled").tag("key", "address").counter().count());
+    }
+
+    @Test
+    void delaysUsernameWhateverTheAddressWithoutLockingItOut() {
+        LoginThrottle throttle = new LoginThrottle(properties(100, 100, 3), meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("admin", "10.0.0." + i);
+        }
+
+        // The owner of the account still gets in, only later
+        long start = System.nanoTime();
+        throttle.acquire("Admin", "10.0.0.3");
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(ACCOUNT_MAX_DELAY));
+        assertEquals(1.0, meterRegistry.get("auth.login.throttled").tag("key", "account").counter().count());
+
+        start = System.nanoTime();
+        throttle.acquire("other", "10.0.0.3");
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(ACCOUNT_MAX_DELAY));
+    }
+
+    @Test
+    void takesClientAddressFromTrustedProxiesOnly() {
+        LoginThrottle throttle = new LoginThrottle(properties(100, 100, 100), meterRegistry);
+
+        // Spoofed hops left of the first untrusted one are ignored
+        assertEquals("203.0.113.7", throttle.clientAddress(request("10.0.0.1", "198.51.100.1, 203.0.113.7, 10.0.0.2")));
+        assertEquals("10.0.0.2", throttle.clientAddress(request("10.0.0.1", "10.0.0.2")));
+        assertEquals("203.0.113.9", throttle.clientAddress(request("203.0.113.9", "198.51.100.1")));
+        assertEquals("10.0.0.1", throttle.clientAddress(request("10.0.0.1", null)));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    private static LoginThrottleProperties properties(int usernameCapacity, int addressCapacity, int accountCapacity) {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setUsernameCapacity(usernameCapacity);
+        properties.setUsernameRefillPeriod(60000L);
+        properties.setAddressCapacity(addressCapacity);
+        properties.setAddressRefillPeriod(60000L);
+        properties.setAccountCapacity(accountCapacity);
+        properties.setAccountRefillPeriod(60000L);
+        properties.setAccountMaxDelay(ACCOUNT_MAX_DELAY);
+        properties.setTrustedProxies("10\\.\\d+\\.\\d+\\.\\d+");
+        properties.setMaximumBuckets(1000L);
+        return properties;
+    }
+}
@@ -0,0 +1,85 @@
+package com.rabbit.mechanic.security;
+
+import com.rabbit.mechanic.properties.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationStoreTest {
+
+    private static final long TOKEN_LIFETIME = 60000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TokenRevocationStore tokenRevocationStore;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setExpiresIn(TOKEN_LIFETIME);
+        tokenRevocationStore = new TokenRevocationStore(jwtProperties, meterRegistry);
+    }
+
+    @Test
+    void revokesTokensOfEmployeeIssuedBeforeRevocation() {
+        TokenClaims before = token("1", 1L, tokenRevocationStore.issuedAt(1L));
+        TokenClaims otherEmployee = token("2", 2L, tokenRevocationStore.issuedAt(2L));
+
+        tokenRevocationStore.revokeEmployeeTokens(1L);
+        TokenClaims after = token("3", 1L, tokenRevocationStore.issuedAt(1L));
+
+        assertTrue(tokenRevocationStore.isRevoked(before));
+        assertFalse(tokenRevocationStore.isRevoked(otherEmployee));
+        assertFalse(tokenRevocationStore.isRevoked(after));
+    }
+
+    @Test
+    void revokesLoggedOutTokenOnly() {
+        Date issuedAt = tokenRevocationStore.issuedAt(1L);
+        TokenClaims loggedOut = token("1", 1L, issuedAt);
+
+        tokenRevocationStore.revokeToken("1", loggedOut.getExpiresAt());
+
+        assertTrue(tokenRevocationStore.isRevoked(loggedOut));
+        assertFalse(tokenRevocationStore.isRevoked(token("2", 1L, issuedAt)));
+    }
+
+    @Test
+    void tracksTokensIssuedSinceCreatedOrUntracked() {
+        TokenClaims tracked = token("1", 1L, tokenRevocationStore.issuedAt(1L));
+        assertTrue(tokenRevocationStore.isTracked(tracked));
+        assertFalse(tokenRevocationStore.isTracked(token("2", 1L, new Date(System.currentTimeMillis() - 1000))));
+
+        // Revocations of other instances may have been missed, so tokens issued so far can't be trusted any more
+        tokenRevocationStore.untrackIssuedTokens();
+        assertFalse(tokenRevocationStore.isTracked(tracked));
+        assertTrue(tokenRevocationStore.isTracked(token("3", 1L, tokenRevocationStore.issuedAt(1L))));
+    }
+
+    @Test
+    void purgesExpiredTokensOnly() {
+        TokenClaims revoked = token("1", 1L, tokenRevocationStore.issuedAt(1L));
+        tokenRevocationStore.revokeToken("1", revoked.getExpiresAt());
+        tokenRevocationStore.revokeToken("2", new Date(System.currentTimeMillis() - 1));
+        tokenRevocationStore.revokeEmployeeTokens(2L);
+        assertEquals(2.0, meterRegistry.get("auth.revoked.tokens").gauge().value());
+
+        tokenRevocationStore.purgeExpiredTokens();
+
+        assertEquals(1.0, meterRegistry.get("auth.revoked.tokens").gauge().value());
+        assertTrue(tokenRevocationStore.isRevoked(revoked));
+        assertTrue(tokenRevocationStore.isRevoked(token("3", 2L, new Date(System.currentTimeMillis() - 1000))));
+    }
+
+    private static TokenClaims token(String tokenId, long employeeId, Date issuedAt) {
+        return TokenClaims.builder()
+                .tokenId(tokenId)
+                .employeeId(employeeId)
+                .issuedAt(issuedAt)
+                .expiresAt(new Date(issuedAt.getTime() + TOKEN_LIFETIME))
+                .build();
+    }
+}
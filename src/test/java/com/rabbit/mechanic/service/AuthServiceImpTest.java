@@ -0,0 +1,205 @@
+package com.rabbit.mechanic.service;
+
+import com.rabbit.mechanic.cache.InvalidationBus;
+import com.rabbit.mechanic.cache.InvalidationListener;
+import com.rabbit.mechanic.cache.PrincipalCache;
+import com.rabbit.mechanic.command.auth.LoggedInDto;
+import com.rabbit.mechanic.command.auth.PrincipalDto;
+import com.rabbit.mechanic.command.auth.RefreshTokenDto;
+import com.rabbit.mechanic.enumerators.EmployeeRoles;
+import com.rabbit.mechanic.exception.InvalidRefreshTokenException;
+import com.rabbit.mechanic.exception.RevokedTokenException;
+import com.rabbit.mechanic.persistence.entity.EmployeeEntity;
+import com.rabbit.mechanic.persistence.entity.RefreshTokenEntity;
+import com.rabbit.mechanic.persistence.repository.EmployeeRepository;
+import com.rabbit.mechanic.persistence.repository.RefreshTokenRepository;
+import com.rabbit.mechanic.properties.JwtProperties;
+import com.rabbit.mechanic.security.JwtTokenVerifier;
+import com.rabbit.mechanic.security.RefreshTokens;
+import com.rabbit.mechanic.security.TokenClaims;
+import com.rabbit.mechanic.security.TokenRevocationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AuthServiceImpTest {
+
+    private static final String FAMILY_ID = "5b7c2a0e-0c4e-4d3a-9a55-2f1a6e0d9b11";
+
+    private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+    private final InvalidationBus invalidationBus = mock(InvalidationBus.class);
+    private final PrincipalCache principalCache = mock(PrincipalCache.class);
+    private final EmployeeEntity employee = EmployeeEntity.builder()
+            .employeeId(1L)
+            .firstName("Ada")
+            .lastName("Lovelace")
+            .username("ada")
+            .role(EmployeeRoles.MECHANIC)
+            .build();
+    private JwtProperties jwtProperties;
+    private JwtTokenVerifier jwtTokenVerifier;
+    private TokenRevocationStore tokenRevocationStore;
+    private AuthServiceImp authService;
+
+    @BeforeEach
+    void setUp() {
+        jwtProperties = new JwtProperties();
+        jwtProperties.setSecretKey("0123456789012345678901234567890123456789");
+        jwtProperties.setExpiresIn(60000L);
+        jwtProperties.setRefreshExpiresIn(60000L);
+        jwtProperties.setClockSkewSeconds(0L);
+        jwtProperties.setStatelessPrincipal(false);
+
+        jwtTokenVerifier = new JwtTokenVerifier(jwtProperties);
+        tokenRevocationStore = new TokenRevocationStore(jwtProperties, new SimpleMeterRegistry());
+        authService = new AuthServiceImp(mock(EmployeeRepository.class), null, jwtProperties, principalCache,
+                jwtTokenVerifier, tokenRevocationStore, refreshTokenRepository, invalidationBus);
+    }
+
+    @Test
+    void rotatesValidRefreshToken() {
+        RefreshTokenEntity refreshToken = storedToken("valid", 60000L, false);
+        when(refreshTokenRepository.markAsUsed(refreshToken.getRefreshTokenId())).thenReturn(1);
+
+        LoggedInDto loggedIn = authService.refreshToken(new RefreshTokenDto("valid"));
+
+        // The next token of the session is stored hashed, in the same family
+        ArgumentCaptor<RefreshTokenEntity> next = ArgumentCaptor.forClass(RefreshTokenEntity.class);
+        verify(refreshTokenRepository).save(next.capture());
+        assertEquals(RefreshTokens.hash(loggedIn.getRefreshToken()), next.getValue().getTokenHash());
+        assertEquals(FAMILY_ID, next.getValue().getFamilyId());
+        assertNotEquals("valid", loggedIn.getRefreshToken());
+
+        TokenClaims claims = jwtTokenVerifier.verify(loggedIn.getToken());
+        assertEquals(1L, claims.getEmployeeId());
+        assertEquals(FAMILY_ID, claims.getSessionId());
+        verify(refreshTokenRepository, never()).deleteByFamilyId(anyString());
+    }
+
+    @Test
+    void revokesFamilyWhenRotatedTokenIsReused() {
+        storedToken("rotated", 60000L, true);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> authService.refreshToken(new RefreshTokenDto("rotated")));
+
+        verify(refreshTokenRepository).deleteByFamilyId(FAMILY_ID);
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void revokesFamilyWhenTokenIsRotatedConcurrently() {
+        RefreshTokenEntity refreshToken = storedToken("raced", 60000L, false);
+        when(refreshTokenRepository.markAsUsed(refreshToken.getRefreshTokenId())).thenReturn(0);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> authService.refreshToken(new RefreshTokenDto("raced")));
+
+        verify(refreshTokenRepository).deleteByFamilyId(FAMILY_ID);
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rejectsExpiredRefreshToken() {
+        storedToken("expired", -1000L, false);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> authService.refreshToken(new RefreshTokenDto("expired")));
+
+        verify(refreshTokenRepository, never()).markAsUsed(anyLong());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void logoutRevokesTokenAndRefreshTokenFamily() {
+        RefreshTokenEntity refreshToken = storedToken("valid", 60000L, false);
+        when(refreshTokenRepository.markAsUsed(refreshToken.getRefreshTokenId())).thenReturn(1);
+        String token = authService.refreshToken(new RefreshTokenDto("valid")).getToken();
+
+        authService.logoutEmployee(token);
+
+        verify(refreshTokenRepository).deleteByFamilyId(FAMILY_ID);
+        assertTrue(tokenRevocationStore.isRevoked(jwtTokenVerifier.verify(token)));
+    }
+
+    @Test
+    void logoutIsBroadcastToOtherInstances() {
+        RefreshTokenEntity refreshToken = storedToken("valid", 60000L, false);
+        when(refreshTokenRepository.markAsUsed(refreshToken.getRefreshTokenId())).thenReturn(1);
+        String token = authService.refreshToken(new RefreshTokenDto("valid")).getToken();
+        TokenClaims tokenClaims = jwtTokenVerifier.verify(token);
+
+        authService.logoutEmployee(token);
+
+        long tokenId = Long.parseLong(tokenClaims.getTokenId());
+        verify(invalidationBus).publish(InvalidationBus.TOKENS, tokenId);
+
+        // Another instance revokes the token once the invalidation reaches it
+        TokenRevocationStore peerRevocationStore = new TokenRevocationStore(jwtProperties, new SimpleMeterRegistry());
+        InvalidationBus peerInvalidationBus = mock(InvalidationBus.class);
+        new AuthServiceImp(mock(EmployeeRepository.class), null, jwtProperties, null,
+                jwtTokenVerifier, peerRevocationStore, refreshTokenRepository, peerInvalidationBus);
+        ArgumentCaptor<InvalidationListener> listener = ArgumentCaptor.forClass(InvalidationListener.class);
+        verify(peerInvalidationBus).subscribe(eq(InvalidationBus.TOKENS), listener.capture());
+
+        assertFalse(peerRevocationStore.isRevoked(tokenClaims));
+        listener.getValue().invalidate(tokenId);
+        assertTrue(peerRevocationStore.isRevoked(tokenClaims));
+    }
+
+    @Test
+    void trustsClaimsOfTrackedTokensInStatelessModeOnly() {
+        RefreshTokenEntity refreshToken = storedToken("valid", 60000L, false);
+        when(refreshTokenRepository.markAsUsed(refreshToken.getRefreshTokenId())).thenReturn(1);
+        String token = authService.refreshToken(new RefreshTokenDto("valid")).getToken();
+
+        // Stateful mode loads the principal through the cache
+        authService.validateToken(token);
+        verify(principalCache).get(eq(1L), any());
+
+        // Stateless mode builds it from the claims
+        jwtProperties.setStatelessPrincipal(true);
+        PrincipalDto principal = authService.validateToken(token);
+        assertEquals(1L, principal.getEmployeeId());
+        assertEquals(EmployeeRoles.MECHANIC, principal.getEmployeeRole());
+        verify(principalCache, times(1)).get(anyLong(), any());
+
+        // Unless revocations may have been missed since the token was issued
+        tokenRevocationStore.untrackIssuedTokens();
+        authService.validateToken(token);
+        verify(principalCache, times(2)).get(eq(1L), any());
+    }
+
+    @Test
+    void rejectsRevokedTokenInBothModes() {
+        RefreshTokenEntity refreshToken = storedToken("valid", 60000L, false);
+        when(refreshTokenRepository.markAsUsed(refreshToken.getRefreshTokenId())).thenReturn(1);
+        String token = authService.refreshToken(new RefreshTokenDto("valid")).getToken();
+
+        tokenRevocationStore.revokeEmployeeTokens(1L);
+
+        assertThrows(RevokedTokenException.class, () -> authService.validateToken(token));
+        jwtProperties.setStatelessPrincipal(true);
+        assertThrows(RevokedTokenException.class, () -> authService.validateToken(token));
+        verifyNoInteractions(principalCache);
+    }
+
+    private RefreshTokenEntity storedToken(String token, long expiresIn, boolean used) {
+        RefreshTokenEntity refreshToken = RefreshTokenEntity.builder()
+                .refreshTokenId(10L)
+                .employeeEntity(employee)
+                .tokenHash(RefreshTokens.hash(token))
+                .familyId(FAMILY_ID)
+                .expiresAt(new Date(System.currentTimeMillis() + expiresIn))
+                .used(used)
+                .build();
+        when(refreshTokenRepository.findByTokenHash(RefreshTokens.hash(token))).thenReturn(Optional.of(refreshToken));
+        return refreshToken;
+    }
+}
@@ -0,0 +1,62 @@
+package com.rabbit.mechanic.service;
+
+import com.rabbit.mechanic.cache.DetailsCaches;
+import com.rabbit.mechanic.cache.InvalidationBus;
+import com.rabbit.mechanic.cache.ListCountCache;
+import com.rabbit.mechanic.cache.TableVersions;
+import com.rabbit.mechanic.error.Error;
+import com.rabbit.mechanic.error.ErrorMessages;
+import com.rabbit.mechanic.exception.PageTooDeepException;
+import com.rabbit.mechanic.exception.RabbitMechanicExceptionHandler;
+import com.rabbit.mechanic.persistence.repository.CarRepository;
+import com.rabbit.mechanic.persistence.repository.CustomerRepository;
+import com.rabbit.mechanic.persistence.repository.ListQueryRepository;
+import com.rabbit.mechanic.persistence.shard.Shards;
+import com.rabbit.mechanic.persistence.shard.UniqueKeys;
+import com.rabbit.mechanic.properties.PaginationProperties;
+import com.rabbit.mechanic.properties.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CarServiceImpTest {
+
+    private final CarRepository carRepository = mock(CarRepository.class);
+    private CarServiceImp carService;
+
+    @BeforeEach
+    void setUp() {
+        ShardingProperties shardingProperties = new ShardingProperties();
+        shardingProperties.setUrls(Collections.singletonList("jdbc:h2:mem:shard-1"));
+        shardingProperties.setMaxOffset(100);
+        PaginationProperties paginationProperties = new PaginationProperties();
+        paginationProperties.setMaxSize(50);
+
+        carService = new CarServiceImp(carRepository, mock(CustomerRepository.class), paginationProperties,
+                mock(ListCountCache.class), mock(ListQueryRepository.class),
+                new Shards(shardingProperties, mock(PlatformTransactionManager.class)), mock(UniqueKeys.class),
+                mock(DetailsCaches.class), mock(InvalidationBus.class), mock(TableVersions.class));
+    }
+
+    @Test
+    void answersPageTooDeepWithBadRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars");
+
+        // The page ends past the max offset of the shards, so no shard is asked for it
+        PageTooDeepException exception = assertThrows(PageTooDeepException.class,
+                () -> carService.getCarsList(2, 50, null, null));
+        verifyNoInteractions(carRepository);
+
+        ResponseEntity<Error> response = new RabbitMechanicExceptionHandler().handlerBadRequestException(exception, request);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(String.format(ErrorMessages.PAGE_TOO_DEEP, 100), response.getBody().getMessage());
+    }
+}